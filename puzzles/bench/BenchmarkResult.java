@@ -0,0 +1,102 @@
+package puzzles.bench;
+
+import java.util.Locale;
+
+/**
+ * The measurements of one benchmark
+ */
+public class BenchmarkResult {
+    /** name the benchmark is reported under */
+    private final String name;
+
+    /** average nanoseconds per operation of each measured iteration */
+    private final double[] nanosPerOp;
+
+    /** operations run over all measured iterations */
+    private final long operations;
+
+    /** bytes allocated by the benchmark thread per operation */
+    private final double bytesPerOp;
+
+    /** collections that ran while measuring */
+    private final long gcCount;
+
+    /** milliseconds spent collecting while measuring */
+    private final long gcMillis;
+
+    /**
+     * Creates a result
+     *
+     * @param name name of the benchmark
+     * @param nanosPerOp average nanoseconds per operation of each iteration
+     * @param operations operations run
+     * @param bytesPerOp bytes allocated per operation
+     * @param gcCount collections that ran
+     * @param gcMillis milliseconds spent collecting
+     */
+    public BenchmarkResult(String name, double[] nanosPerOp, long operations, double bytesPerOp, long gcCount, long gcMillis){
+        this.name = name;
+        this.nanosPerOp = nanosPerOp;
+        this.operations = operations;
+        this.bytesPerOp = bytesPerOp;
+        this.gcCount = gcCount;
+        this.gcMillis = gcMillis;
+    }
+
+    /**
+     * gets the name of the benchmark
+     * @return benchmark name
+     */
+    public String getName(){ return name; }
+
+    /**
+     * gets the mean time per operation over the measured iterations
+     * @return nanoseconds per operation
+     */
+    public double getScore(){
+        double sum = 0;
+        for(double nanos : nanosPerOp){ sum += nanos; }
+        return sum / nanosPerOp.length;
+    }
+
+    /**
+     * gets the standard deviation of the time per operation between iterations
+     * @return nanoseconds per operation
+     */
+    public double getScoreError(){
+        if(nanosPerOp.length < 2){ return 0; }
+        double mean = getScore(), sum = 0;
+        for(double nanos : nanosPerOp){ sum += (nanos - mean) * (nanos - mean); }
+        return Math.sqrt(sum / (nanosPerOp.length - 1));
+    }
+
+    /**
+     * gets the bytes allocated per operation
+     * @return bytes per operation
+     */
+    public double getBytesPerOp(){ return bytesPerOp; }
+
+    /**
+     * Formats the result as one JSON object
+     * @return the JSON text
+     */
+    public String toJson(){
+        StringBuilder json = new StringBuilder();
+        json.append("{\"benchmark\": \"").append(name).append("\", \"mode\": \"avgt\", \"unit\": \"ns/op\"");
+        json.append(String.format(Locale.ROOT, ", \"score\": %.3f, \"scoreError\": %.3f", getScore(), getScoreError()));
+        json.append(", \"iterations\": ").append(nanosPerOp.length).append(", \"operations\": ").append(operations);
+        json.append(", \"rawData\": [");
+        for(int i = 0; i < nanosPerOp.length; i++){
+            json.append(i == 0 ? "" : ", ").append(String.format(Locale.ROOT, "%.3f", nanosPerOp[i]));
+        }
+        json.append("]");
+        json.append(String.format(Locale.ROOT, ", \"gc.alloc.rate.norm\": %.1f", bytesPerOp));
+        json.append(", \"gc.count\": ").append(gcCount).append(", \"gc.time\": ").append(gcMillis).append("}");
+        return json.toString();
+    }
+
+    @Override
+    public String toString(){
+        return String.format(Locale.ROOT, "%-40s %14.1f +- %10.1f ns/op %14.1f B/op %5d gc", name, getScore(), getScoreError(), bytesPerOp, gcCount);
+    }
+}
@@ -0,0 +1,145 @@
+package puzzles.bench;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Times a piece of code the way a microbenchmark harness would: a few warmup
+ * iterations to let the JIT settle, then measured iterations of a fixed
+ * length. Alongside the time per operation it records the bytes the calling
+ * thread allocated and the collections that ran, so allocation heavy changes
+ * show up even when they don't move the time.
+ */
+public class BenchmarkRunner {
+    /**
+     * Code to benchmark. The result is folded into a sink so the JIT can't
+     * drop the work as dead code.
+     */
+    public interface Operation {
+        /**
+         * Runs the code once
+         * @return any value derived from the work done
+         */
+        long run() throws Exception;
+    }
+
+    /** iterations run and thrown away before measuring */
+    private final int warmupIterations;
+
+    /** iterations measured */
+    private final int measurementIterations;
+
+    /** how long each iteration keeps calling the operation, at least one call is always made */
+    private final long iterationNanos;
+
+    /** thread bean able to report allocated bytes */
+    private final com.sun.management.ThreadMXBean threadBean;
+
+    /** collectors of this JVM */
+    private final List<GarbageCollectorMXBean> collectors;
+
+    /** collects the results of every operation */
+    private long sink;
+
+    /**
+     * Creates a runner
+     *
+     * @param warmupIterations iterations thrown away before measuring
+     * @param measurementIterations iterations measured
+     * @param iterationMillis length of each iteration
+     */
+    public BenchmarkRunner(int warmupIterations, int measurementIterations, long iterationMillis){
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = iterationMillis * 1_000_000L;
+        this.threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        this.threadBean.setThreadAllocatedMemoryEnabled(true);
+        this.collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    }
+
+    /**
+     * Benchmarks an operation
+     *
+     * @param name name the result is reported under
+     * @param operation code to time
+     * @return the measured result
+     */
+    public BenchmarkResult run(String name, Operation operation) throws Exception {
+        return run(name, operation, false);
+    }
+
+    /**
+     * Benchmarks an operation that does many small pieces of work per call,
+     * reporting the time and allocation per piece of work
+     *
+     * @param name name the result is reported under
+     * @param operation code to time, returning how many pieces of work it did
+     * @return the measured result
+     */
+    public BenchmarkResult runBatch(String name, Operation operation) throws Exception {
+        return run(name, operation, true);
+    }
+
+    /**
+     * Benchmarks an operation, counting calls or the work the calls report
+     */
+    private BenchmarkResult run(String name, Operation operation, boolean batch) throws Exception {
+        for(int i = 0; i < warmupIterations; i++){ iterate(operation, batch); }
+
+        double[] nanosPerOp = new double[measurementIterations];
+        long operations = 0, allocated = 0, gcCount = 0, gcMillis = 0;
+        for(int i = 0; i < measurementIterations; i++){
+            long gcCountBefore = gcCount(), gcMillisBefore = gcMillis();
+            long allocatedBefore = threadBean.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            long count = iterate(operation, batch);
+            long elapsed = System.nanoTime() - start;
+            allocated += threadBean.getCurrentThreadAllocatedBytes() - allocatedBefore;
+            gcCount += gcCount() - gcCountBefore;
+            gcMillis += gcMillis() - gcMillisBefore;
+            operations += count;
+            nanosPerOp[i] = (double) elapsed / count;
+        }
+        return new BenchmarkResult(name, nanosPerOp, operations, (double) allocated / operations, gcCount, gcMillis);
+    }
+
+    /**
+     * Gets the folded results of every operation run so far
+     * @return the sink
+     */
+    public long getSink(){ return sink; }
+
+    /**
+     * Calls the operation until the iteration time is used up
+     * @return number of calls made, or the work they reported for a batch
+     */
+    private long iterate(Operation operation, boolean batch) throws Exception {
+        long end = System.nanoTime() + iterationNanos;
+        long count = 0;
+        do{
+            long result = operation.run();
+            sink += result;
+            count += batch ? Math.max(1, result) : 1;
+        } while(System.nanoTime() < end);
+        return count;
+    }
+
+    /**
+     * Total collections run by every collector so far
+     */
+    private long gcCount(){
+        long total = 0;
+        for(GarbageCollectorMXBean collector : collectors){ total += Math.max(0, collector.getCollectionCount()); }
+        return total;
+    }
+
+    /**
+     * Total milliseconds spent collecting by every collector so far
+     */
+    private long gcMillis(){
+        long total = 0;
+        for(GarbageCollectorMXBean collector : collectors){ total += Math.max(0, collector.getCollectionTime()); }
+        return total;
+    }
+}
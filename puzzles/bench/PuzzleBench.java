@@ -0,0 +1,265 @@
+package puzzles.bench;
+
+import puzzles.clock.ClockConfig;
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.EncodableConfiguration;
+import puzzles.common.solver.LongStateTable;
+import puzzles.common.solver.RankedConfiguration;
+import puzzles.common.solver.Solver;
+import puzzles.common.solver.SolverBudget;
+import puzzles.common.solver.SolverTask;
+import puzzles.hoppers.model.HoppersConfig;
+import puzzles.hoppers.model.HoppersSolver;
+import puzzles.jam.model.JamBitboard;
+import puzzles.jam.model.JamConfig;
+import puzzles.water.WaterConfig;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Benchmarks of the solvers and of the configuration methods they call the
+ * most. Every puzzle is solved at three grades of difficulty, and the single
+ * config methods are timed on the states along a solution so they see
+ * realistic boards. Results are printed and written to a JSON file, one
+ * object per benchmark, so runs can be compared between releases.
+ *
+ * Iterations are set with -Dbench.warmup, -Dbench.iterations and -Dbench.time (milliseconds).
+ */
+public class PuzzleBench {
+    /** largest rank range a ranked solve is benchmarked on, so its labels stay small */
+    private static final long MAX_RANKED_STATES = 1L << 27;
+
+    /** boards each breadth first search of the scaling benchmarks roughly generates */
+    private static final int SCALE_BOARDS = 50_000;
+
+    /** folder holding the jam and hoppers puzzle files */
+    private final String dataDir;
+
+    /** only benchmarks whose name contains this are run */
+    private final String filter;
+
+    /** runs and measures each benchmark */
+    private final BenchmarkRunner runner;
+
+    /** results in the order they were run */
+    private final List<BenchmarkResult> results;
+
+    /**
+     * Creates the benchmarks
+     *
+     * @param dataDir folder holding the jam and hoppers puzzle files
+     * @param filter only benchmarks whose name contains this are run
+     * @param runner runner to measure with
+     */
+    public PuzzleBench(String dataDir, String filter, BenchmarkRunner runner){
+        this.dataDir = dataDir;
+        this.filter = filter;
+        this.runner = runner;
+        this.results = new ArrayList<>();
+    }
+
+    /**
+     * Main method
+     * @param args command line arguments ([dataDir] [results.json] [filter])
+     */
+    public static void main(String[] args) throws Exception {
+        String dataDir = args.length > 0 ? args[0] : "puzzles/bench/data";
+        String output = args.length > 1 ? args[1] : "bench-results.json";
+        String filter = args.length > 2 ? args[2] : "";
+        BenchmarkRunner runner = new BenchmarkRunner(Integer.getInteger("bench.warmup", 3),
+                Integer.getInteger("bench.iterations", 5), Long.getLong("bench.time", 1000));
+
+        PuzzleBench bench = new PuzzleBench(dataDir, filter, runner);
+        bench.solves();
+        bench.configMethods();
+        bench.paths();
+        bench.scaling();
+        bench.write(output);
+        System.out.println("Results written to " + output);
+    }
+
+    /**
+     * Benchmarks full solves of every puzzle, with the object map solver, the
+     * compact one and the off-heap one, with the ranked one where the
+     * puzzle's ranks are few enough, and with the depth first one for Hoppers
+     */
+    public void solves() throws Exception {
+        for(Map.Entry<String, EncodableConfiguration> puzzle : puzzles().entrySet()){
+            EncodableConfiguration start = puzzle.getValue();
+            bench("solve." + puzzle.getKey(), () -> length(new Solver().solve(start)));
+            bench("solveCompact." + puzzle.getKey(), () -> length(new Solver().solveCompact(start)));
+            bench("solveOffHeap." + puzzle.getKey(), () -> length(new Solver().solveOffHeap(start)));
+            if(start instanceof RankedConfiguration && ((RankedConfiguration) start).stateCount() <= MAX_RANKED_STATES){
+                bench("solveRanked." + puzzle.getKey(), () -> length(new Solver().solveRanked((RankedConfiguration) start)));
+            }
+            if(start instanceof HoppersConfig){
+                bench("solveDfs." + puzzle.getKey(), () -> length(new HoppersSolver(HoppersSolver.FEWEST_ISOLATED).solve((HoppersConfig) start)));
+            }
+        }
+    }
+
+    /**
+     * Benchmarks getNeighbors, hashCode, equals and isGoal of each configuration,
+     * each call on the next state of a medium solution
+     */
+    public void configMethods() throws Exception {
+        for(String name : new String[]{"clock", "water", "jam", "jamBitboard", "hoppers"}){
+            EncodableConfiguration start = puzzles().get(name + ".medium");
+            List<Configuration> states = new ArrayList<>(new Solver().solve(start));
+            List<Configuration> copies = new ArrayList<>();
+            for(Configuration state : states){ copies.add(copyOf((EncodableConfiguration) state)); }
+            int count = states.size();
+            int[] next = {0};
+
+            bench("getNeighbors." + name, () -> states.get(next[0]++ % count).getNeighbors().size());
+            bench("forEachNeighbor." + name, () ->{
+                long[] sum = {0};
+                states.get(next[0]++ % count).forEachNeighbor(neighbor ->{ sum[0] += neighbor.hashCode(); return true; });
+                return sum[0];
+            });
+            bench("hashCode." + name, () -> states.get(next[0]++ % count).hashCode());
+            bench("equals.same." + name, () ->{
+                int i = next[0]++ % count;
+                return states.get(i).equals(copies.get(i)) ? 1 : 0;
+            });
+            bench("equals.different." + name, () ->{
+                int i = next[0]++ % count;
+                return states.get(i).equals(copies.get((i + 1) % count)) ? 1 : 0;
+            });
+            bench("isGoal." + name, () -> states.get(next[0]++ % count).isGoal() ? 1 : 0);
+        }
+    }
+
+    /**
+     * Benchmarks rebuilding the solution path of each hard puzzle, from a
+     * predecessor map and from a state table
+     */
+    public void paths() throws Exception {
+        for(String name : new String[]{"clock", "water", "jam", "jamBitboard", "hoppers"}){
+            EncodableConfiguration start = puzzles().get(name + ".hard");
+            List<Configuration> solution = new ArrayList<>(new Solver().solve(start));
+            Configuration goal = solution.get(solution.size() - 1);
+
+            // the predecessors along the solution, as the solvers leave them
+            HashMap<Configuration, Configuration> predecessorMap = new HashMap<>();
+            LongStateTable table = new LongStateTable(start.encodedLength());
+            long[] key = new long[start.encodedLength()];
+            int parent = LongStateTable.NO_PARENT;
+            for(int i = 0; i < solution.size(); i++){
+                predecessorMap.put(solution.get(i), i == 0 ? null : solution.get(i - 1));
+                ((EncodableConfiguration) solution.get(i)).encode(key, 0);
+                parent = table.add(key, 0, parent);
+            }
+            int goalIndex = parent;
+
+            bench("path.map." + name, () -> Solver.pathTo(predecessorMap, goal).size());
+            bench("path.table." + name, () -> Solver.pathTo(table, goalIndex, start).size());
+        }
+    }
+
+    /**
+     * Benchmarks Jam on boards from 6x6 up to 32x32, tiled with copies of the
+     * hard puzzle, reporting time per board generated. Each search stops after
+     * about the same number of boards, so larger boards are compared on equal
+     * sized visited sets.
+     */
+    public void scaling() throws Exception {
+        for(String size : new String[]{"6x6", "12x12", "18x18", "24x24", "32x32"}){
+            JamConfig start = new JamConfig(dataDir + "/jam-" + (size.equals("6x6") ? "hard" : size) + ".txt");
+            SolverBudget budget = new SolverBudget(Long.MAX_VALUE, SCALE_BOARDS / start.getNeighbors().size(), Long.MAX_VALUE);
+
+            benchBatch("scale.forEachNeighbor.jam." + size, () ->{
+                long[] count = {0};
+                start.forEachNeighbor(neighbor ->{ count[0]++; return true; });
+                return count[0];
+            });
+            benchBatch("scale.search.jam." + size, () ->{
+                SolverTask task = new SolverTask(start, budget);
+                task.run();
+                return task.getTotalConfigs();
+            });
+        }
+    }
+
+    /**
+     * Writes every result as a JSON array
+     * @param filename file to write
+     */
+    public void write(String filename) throws IOException {
+        try(PrintWriter out = new PrintWriter(filename)){
+            out.println("[");
+            for(int i = 0; i < results.size(); i++){
+                out.println("  " + results.get(i).toJson() + (i < results.size() - 1 ? "," : ""));
+            }
+            out.println("]");
+        }
+    }
+
+    /**
+     * Gets the starting configs of every puzzle, named puzzle.grade
+     * @return puzzles in the order they are benchmarked
+     */
+    private Map<String, EncodableConfiguration> puzzles() throws IOException {
+        Map<String, EncodableConfiguration> puzzles = new LinkedHashMap<>();
+        puzzles.put("clock.easy", new ClockConfig(12, 3, 9));
+        puzzles.put("clock.medium", new ClockConfig(10_000, 1, 5_000));
+        puzzles.put("clock.hard", new ClockConfig(1_000_000, 1, 500_000));
+        puzzles.put("water.easy", new WaterConfig(11, new ArrayList<>(Arrays.asList(4, 9, 13))));
+        puzzles.put("water.medium", new WaterConfig(40, new ArrayList<>(Arrays.asList(3, 17, 29, 51))));
+        puzzles.put("water.hard", new WaterConfig(100, new ArrayList<>(Arrays.asList(7, 19, 41, 83, 127))));
+        for(String grade : new String[]{"easy", "medium", "hard"}){
+            puzzles.put("jam." + grade, new JamConfig(dataDir + "/jam-" + grade + ".txt"));
+        }
+        for(String grade : new String[]{"easy", "medium", "hard"}){
+            puzzles.put("jamBitboard." + grade, new JamBitboard(new JamConfig(dataDir + "/jam-" + grade + ".txt")));
+        }
+        for(String grade : new String[]{"easy", "medium", "hard"}){
+            puzzles.put("hoppers." + grade, new HoppersConfig(dataDir + "/hoppers-" + grade + ".txt"));
+        }
+        return puzzles;
+    }
+
+    /**
+     * Runs a benchmark if its name passes the filter, printing and keeping the result
+     */
+    private void bench(String name, BenchmarkRunner.Operation operation) throws Exception {
+        if(!name.contains(filter)){ return; }
+        BenchmarkResult result = runner.run(name, operation);
+        System.out.println(result);
+        results.add(result);
+    }
+
+    /**
+     * Runs a benchmark reporting per piece of work if its name passes the filter
+     */
+    private void benchBatch(String name, BenchmarkRunner.Operation operation) throws Exception {
+        if(!name.contains(filter)){ return; }
+        BenchmarkResult result = runner.runBatch(name, operation);
+        System.out.println(result);
+        results.add(result);
+    }
+
+    /**
+     * Gets the length of a solution, -1 if there is none
+     */
+    private static long length(Collection<Configuration> solution){
+        return solution == null ? -1 : solution.size();
+    }
+
+    /**
+     * Gets an equal but separate config by encoding and decoding it
+     */
+    private static Configuration copyOf(EncodableConfiguration config){
+        long[] key = new long[config.encodedLength()];
+        config.encode(key, 0);
+        return config.decode(key, 0);
+    }
+}
@@ -21,14 +21,14 @@ public class Clock {
             int end = Integer.parseInt(args[2]);
 
             // construct the initial configuration
-            Configuration init = new ClockConfig(hours,start,end);
+            ClockConfig init = new ClockConfig(hours,start,end);
             Solver solver = new Solver();
 
             // Print out starting message
             System.out.println("Hours: "+hours+" Start: "+start+" End: "+end);
 
             // Attempt to solve puzzle
-            Collection<Configuration> solution = solver.solve(init);
+            Collection<Configuration> solution = solver.solveCompact(init);
             List<Configuration> last = (List<Configuration>) solution;
 
             // Output total number of configurations and unique configurations
@@ -1,11 +1,16 @@
 package puzzles.clock;
 
+import puzzles.common.solver.BidirectionalConfiguration;
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.EncodableConfiguration;
+import puzzles.common.solver.MoveConfiguration;
+import puzzles.common.solver.RankedConfiguration;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.function.Predicate;
 
-public class ClockConfig implements Configuration {
+public class ClockConfig implements EncodableConfiguration, BidirectionalConfiguration, MoveConfiguration, RankedConfiguration {
     /** number of hours on custom clock*/
     private final int hours;
 
@@ -59,7 +64,18 @@ public class ClockConfig implements Configuration {
     public Collection<Configuration> getNeighbors() {
         // Create a list of configurations
         Collection<Configuration> configs = new ArrayList<>();
+        forEachNeighbor(configs::add);
+        return configs;
+    }
 
+    /**
+     * Hands the two neighbors of the current hour to action
+     *
+     * @param action called with each neighbor, returns false to stop
+     * @return true if both neighbors were handed over
+     */
+    @Override
+    public boolean forEachNeighbor(Predicate<? super Configuration> action) {
         // Create 2 new configurations
         ClockConfig config1 = new ClockConfig(this);
         ClockConfig config2 = new ClockConfig(this);
@@ -75,11 +91,156 @@ public class ClockConfig implements Configuration {
         if(current==hours){secondNeighbor = clock.get(0);}
         else{secondNeighbor = clock.get(current);}
 
-        // Add configurations to the collection of configurations
-        config1.current = firstNeighbor; configs.add(config1);
-        config2.current = secondNeighbor; configs.add(config2);
+        // Hand the configurations over in order
+        config1.current = firstNeighbor;
+        if(!action.test(config1)){ return false; }
+        config2.current = secondNeighbor;
+        return action.test(config2);
+    }
 
-        return configs;
+    /**
+     * The only goal is the clock showing the end hour. Stepping back and
+     * forth are inverses, so the default predecessors apply.
+     *
+     * @return collection holding the goal configuration
+     */
+    @Override
+    public Collection<Configuration> getGoals() {
+        Collection<Configuration> goals = new ArrayList<>();
+        ClockConfig goal = new ClockConfig(this);
+        goal.current = end; goals.add(goal);
+        return goals;
+    }
+
+    /**
+     * A clock state is a single hour
+     *
+     * @return longs per encoded state
+     */
+    @Override
+    public int encodedLength() { return 1; }
+
+    /**
+     * Writes the current hour into dest
+     *
+     * @param dest array to write into
+     * @param offset index to write
+     */
+    @Override
+    public void encode(long[] dest, int offset) { dest[offset] = current; }
+
+    /**
+     * Rebuilds a configuration of this clock from an encoded hour
+     *
+     * @param src array holding the encoded hour
+     * @param offset index of the encoded hour
+     * @return the decoded configuration
+     */
+    @Override
+    public ClockConfig decode(long[] src, int offset) {
+        ClockConfig config = new ClockConfig(this);
+        config.current = (int) src[offset];
+        return config;
+    }
+
+    /**
+     * One state per hour of the clock
+     *
+     * @return the number of hours
+     */
+    @Override
+    public long stateCount() { return hours; }
+
+    /**
+     * Hours run from 1, ranks from 0
+     *
+     * @return the current hour less one
+     */
+    @Override
+    public long rank() { return current - 1; }
+
+    /**
+     * Rebuilds a configuration of this clock from a rank
+     *
+     * @param rank a rank returned by rank
+     * @return the configuration at that hour
+     */
+    @Override
+    public ClockConfig unrank(long rank) {
+        ClockConfig config = new ClockConfig(this);
+        config.current = (int) rank + 1;
+        return config;
+    }
+
+    /**
+     * Stepping forward undoes stepping back
+     *
+     * @return true
+     */
+    @Override
+    public boolean isReversible() { return true; }
+
+    /**
+     * The clock can only step back or forward
+     *
+     * @return the largest number of moves getMoves can list
+     */
+    @Override
+    public int maxMoves() { return 2; }
+
+    /**
+     * Lists the two moves, 0 steps back an hour and 1 steps forward
+     *
+     * @param moves array to write the move codes into
+     * @return number of moves written
+     */
+    @Override
+    public int getMoves(int[] moves) {
+        moves[0] = 0; moves[1] = 1;
+        return 2;
+    }
+
+    /**
+     * Steps the hour in place, wrapping around the clock
+     *
+     * @param move 0 to step back, 1 to step forward
+     */
+    @Override
+    public void applyMove(int move) { current = step(move == 1 ? 1 : -1); }
+
+    /**
+     * Steps the hour back the other way
+     *
+     * @param move the move most recently applied
+     */
+    @Override
+    public void undoMove(int move) { current = step(move == 1 ? -1 : 1); }
+
+    /**
+     * Stepping back cancels stepping forward and vice versa
+     *
+     * @param move a move code
+     * @return the opposite move
+     */
+    @Override
+    public int inverseMove(int move) { return move ^ 1; }
+
+    /**
+     * Copies this configuration
+     *
+     * @return an independent copy
+     */
+    @Override
+    public ClockConfig copy() { return new ClockConfig(this); }
+
+    /**
+     * Gets the hour one step away from the current one
+     *
+     * @param direction 1 for forward, -1 for back
+     * @return the neighboring hour
+     */
+    private int step(int direction) {
+        return Math.floorMod(current - 1 + direction, hours) + 1;
     }
 
     /**
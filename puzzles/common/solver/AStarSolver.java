@@ -0,0 +1,157 @@
+package puzzles.common.solver;
+
+import java.util.*;
+
+/**
+ * Best first search ordered by moves taken plus a heuristic estimate of the
+ * moves left. With an admissible heuristic the path is as short as the one
+ * plain BFS finds, while usually expanding far fewer configurations.
+ *
+ * @param <C> the type of configuration the heuristic understands
+ */
+public class AStarSolver<C extends Configuration> {
+    /** estimate of the moves left from a configuration */
+    private final Heuristic<C> heuristic;
+
+    /** counters for configs generated, duplicates and expansions */
+    private final SolverStats stats;
+
+    /** every config reached, mapped to its node index */
+    private HashMap<Configuration, Integer> nodeIndex;
+
+    /** per node of the current search: the config, its parent node, moves from the start and estimate to a goal */
+    private ArrayList<Configuration> configs;
+    private int[] parents;
+    private int[] costs;
+    private int[] estimates;
+
+    /** nodes waiting to be expanded, ordered by cost plus estimate */
+    private IntPriorityQueue open;
+
+    /**
+     * Creates an A* solver
+     * @param heuristic admissible estimate of the moves left
+     */
+    public AStarSolver(Heuristic<C> heuristic){
+        this.heuristic = heuristic;
+        this.stats = new SolverStats();
+        this.nodeIndex = new HashMap<>();
+    }
+
+    /**
+     * gets total number of configurations
+     * @return returns total number of configs
+     */
+    public long getTotalConfigs() {return stats.getGenerated();}
+
+    /**
+     * gets number of unique configurations
+     * @return returns total number of unique configs
+     */
+    public int getUniqueConfigs() {return nodeIndex.size();}
+
+    /**
+     * gets number of configurations expanded
+     * @return returns number of expanded configs
+     */
+    public long getExpandedConfigs() {return stats.getExpanded();}
+
+    /**
+     * gets the counters of the last search
+     * @return solver statistics
+     */
+    public SolverStats getStats() {return stats;}
+
+    /**
+     * Adds a listener, told each time the cost bound of the search grows
+     * @param listener listener to add
+     */
+    public void addListener(SolverListener listener) {stats.addListener(listener);}
+
+    /**
+     * Attempts to solve the puzzle
+     *
+     * @param start starting configuration
+     * @return A shortest solution path, or null if no solution
+     */
+    public Collection<Configuration> solve(C start){
+        this.nodeIndex = new HashMap<>();
+        this.configs = new ArrayList<>();
+        this.parents = new int[1024];
+        this.costs = new int[1024];
+        this.estimates = new int[1024];
+        this.open = new IntPriorityQueue();
+        stats.start();
+        nodeIndex.put(start, 0); configs.add(start); stats.generated();
+        parents[0] = -1; costs[0] = 0; estimates[0] = heuristic.estimate(start);
+        open.add(0, priority(0, estimates[0]));
+        int bound = estimates[0];
+
+        while(!open.isEmpty()){
+            long priority = open.peekPriority();
+            int node = open.remove();
+
+            // skips entries left behind when a shorter route to the node was found
+            if((int) (priority >>> 32) != costs[node] + estimates[node]){ continue; }
+
+            // a level here is every node expanded under the same cost bound
+            if(costs[node] + estimates[node] > bound){
+                stats.endLevel(nodeIndex.size(), -1);
+                bound = costs[node] + estimates[node];
+            }
+            Configuration current = configs.get(node);
+            stats.expanded();
+            if(current.isGoal()){
+                stats.finish(nodeIndex.size(), -1);
+                LinkedList<Configuration> path = new LinkedList<>();
+                for(int i = node; i >= 0; i = parents[i]){ path.addFirst(configs.get(i)); }
+                return path;
+            }
+
+            int cost = costs[node] + 1;
+            current.forEachNeighbor(neighbor -> reach(neighbor, node, cost));
+        }
+        stats.finish(nodeIndex.size(), -1);
+        return null;
+    }
+
+    /**
+     * Records a neighbor reached from a node, queueing it if it is new or
+     * was reached more cheaply than before
+     *
+     * @param neighbor the config reached
+     * @param node the node it was reached from
+     * @param cost moves from the start to the neighbor along this route
+     * @return true, so every neighbor gets handed over
+     */
+    @SuppressWarnings("unchecked")
+    private boolean reach(Configuration neighbor, int node, int cost){
+        stats.generated();
+        Integer known = nodeIndex.get(neighbor);
+        if(known == null){
+            int added = configs.size();
+            if(added == parents.length){
+                parents = Arrays.copyOf(parents, added * 2);
+                costs = Arrays.copyOf(costs, added * 2);
+                estimates = Arrays.copyOf(estimates, added * 2);
+            }
+            nodeIndex.put(neighbor, added); configs.add(neighbor);
+            parents[added] = node; costs[added] = cost;
+            estimates[added] = heuristic.estimate((C) neighbor);
+            open.add(added, priority(cost, estimates[added]));
+        }
+        else if(cost < costs[known]){
+            parents[known] = node; costs[known] = cost;
+            open.add(known, priority(cost, estimates[known]));
+        }
+        else{ stats.duplicate(); }
+        return true;
+    }
+
+    /**
+     * Orders nodes by cost plus estimate, breaking ties toward the deeper node
+     */
+    private static long priority(int cost, int estimate){
+        return ((long) (cost + estimate) << 32) | (Integer.MAX_VALUE - cost);
+    }
+}
@@ -0,0 +1,39 @@
+package puzzles.common.solver;
+
+import java.util.Collection;
+
+/**
+ * A configuration whose puzzle can also be searched backwards from its goals.
+ * Moves are assumed to be reversible unless getPredecessors is overridden.
+ */
+public interface BidirectionalConfiguration extends Configuration {
+    /**
+     * Gets every goal configuration of this puzzle.
+     *
+     * @return all configurations for which isGoal is true
+     */
+    Collection<Configuration> getGoals();
+
+    /**
+     * Gets every goal configuration of this puzzle, unless there are more
+     * than a limit of them. Puzzles with many goals should stop listing them
+     * as soon as they pass the limit.
+     *
+     * @param limit the most goals wanted
+     * @return all configurations for which isGoal is true, or null if there are more than limit
+     */
+    default Collection<Configuration> getGoals(int limit) {
+        Collection<Configuration> goals = getGoals();
+        return goals.size() > limit ? null : goals;
+    }
+
+    /**
+     * Gets the configurations that have this one as a neighbor. Puzzles whose
+     * moves are their own inverse can rely on the default.
+     *
+     * @return all predecessors
+     */
+    default Collection<Configuration> getPredecessors() {
+        return getNeighbors();
+    }
+}
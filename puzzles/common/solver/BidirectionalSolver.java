@@ -0,0 +1,236 @@
+package puzzles.common.solver;
+
+import java.util.*;
+
+/**
+ * Breadth first search that grows one frontier from the start and one from
+ * the goals, stopping once they meet. Each round expands a whole level of the
+ * smaller frontier, or of the side that has seen fewer states when they are
+ * the same size, which keeps the returned path as short as plain BFS.
+ *
+ * Puzzles can have far more goals than states reachable from the start, so
+ * the goal side is only seeded once the goals are no more than the start
+ * side's frontier. Until then the search runs from the start alone and stops
+ * at the first goal it generates, like plain BFS.
+ */
+public class BidirectionalSolver {
+    /** counters for the search from the start side */
+    private final SolverStats forwardStats;
+
+    /** counters for the search from the goal side */
+    private final SolverStats backwardStats;
+
+    /** forward configs mapped to the config they were reached from */
+    private HashMap<Configuration, Configuration> forwardMap;
+
+    /** backward configs mapped to the config one step closer to a goal */
+    private HashMap<Configuration, Configuration> backwardMap;
+
+    public BidirectionalSolver(){
+        this.forwardStats = new SolverStats();
+        this.backwardStats = new SolverStats();
+        this.forwardMap = new HashMap<>();
+        this.backwardMap = new HashMap<>();
+    }
+
+    /**
+     * gets total number of configurations from both directions
+     * @return returns total number of configs
+     */
+    public long getTotalConfigs() {return forwardStats.getGenerated() + backwardStats.getGenerated();}
+
+    /**
+     * gets number of unique configurations from both directions
+     * @return returns unique configs, counting states seen from both sides twice
+     */
+    public int getUniqueConfigs() {return forwardMap.size() + backwardMap.size();}
+
+    /**
+     * gets total number of configurations generated from the start side
+     * @return forward total configs
+     */
+    public long getForwardTotalConfigs() {return forwardStats.getGenerated();}
+
+    /**
+     * gets total number of configurations generated from the goal side
+     * @return backward total configs
+     */
+    public long getBackwardTotalConfigs() {return backwardStats.getGenerated();}
+
+    /**
+     * gets the counters of the start side of the last search
+     * @return forward statistics
+     */
+    public SolverStats getForwardStats() {return forwardStats;}
+
+    /**
+     * gets the counters of the goal side of the last search
+     * @return backward statistics
+     */
+    public SolverStats getBackwardStats() {return backwardStats;}
+
+    /**
+     * Adds a listener told about every completed level of either side
+     * @param listener listener to add
+     */
+    public void addListener(SolverListener listener) {
+        forwardStats.addListener(listener);
+        backwardStats.addListener(listener);
+    }
+
+    /**
+     * gets number of unique configurations seen from the start side
+     * @return forward unique configs
+     */
+    public int getForwardUniqueConfigs() {return forwardMap.size();}
+
+    /**
+     * gets number of unique configurations seen from the goal side
+     * @return backward unique configs
+     */
+    public int getBackwardUniqueConfigs() {return backwardMap.size();}
+
+    /**
+     * Attempts to solve the puzzle
+     *
+     * @param start starting configuration
+     * @return A shortest solution path, or null if no solution
+     */
+    public Collection<Configuration> solve(BidirectionalConfiguration start){
+        this.forwardMap = new HashMap<>();
+        this.backwardMap = new HashMap<>();
+
+        List<Configuration> forwardFrontier = new ArrayList<>();
+        forwardStats.start(); backwardStats.start();
+        forwardMap.put(start, null); forwardStats.generated();
+        forwardFrontier.add(start);
+
+        List<Configuration> backwardFrontier = null;
+        if(start.isGoal()){
+            finish();
+            return buildPath(start);
+        }
+
+        // grows the smaller side one full level at a time until the sides meet
+        while(!forwardFrontier.isEmpty() && (backwardFrontier == null || !backwardFrontier.isEmpty())){
+            if(backwardFrontier == null){ backwardFrontier = seedGoals(start, forwardFrontier.size()); }
+            Configuration meeting = null;
+            int best = Integer.MAX_VALUE;
+            List<Configuration> next = new ArrayList<>();
+            if(backwardFrontier == null || forwardFrontier.size() < backwardFrontier.size()
+                    || (forwardFrontier.size() == backwardFrontier.size() && forwardMap.size() <= backwardMap.size())){
+                // without a goal side, the first goal generated ends the search as in plain BFS
+                boolean seeded = backwardFrontier != null;
+                Configuration[] goal = new Configuration[1];
+                for(Configuration current : forwardFrontier){
+                    forwardStats.expanded();
+                    current.forEachNeighbor(neighbor ->{
+                        forwardStats.generated();
+                        if(!forwardMap.containsKey(neighbor)){
+                            forwardMap.put(neighbor, current);
+                            next.add(neighbor);
+                            if(!seeded && neighbor.isGoal()){
+                                goal[0] = neighbor;
+                                return false;
+                            }
+                        }
+                        else{ forwardStats.duplicate(); }
+                        return true;
+                    });
+                    if(goal[0] != null){ break; }
+                }
+                if(goal[0] != null){ best = 0; meeting = goal[0]; }
+                // the closest meeting point of the level decides the path
+                for(Configuration neighbor : next){
+                    if(!seeded){ break; }
+                    if(backwardMap.containsKey(neighbor)){
+                        int remaining = chainLength(backwardMap, neighbor);
+                        if(remaining < best){ best = remaining; meeting = neighbor; }
+                    }
+                }
+                forwardFrontier = next;
+                forwardStats.endLevel(forwardMap.size(), -1);
+            }
+            else{
+                for(Configuration current : backwardFrontier){
+                    backwardStats.expanded();
+                    for(Configuration predecessor : ((BidirectionalConfiguration) current).getPredecessors()){
+                        backwardStats.generated();
+                        if(!backwardMap.containsKey(predecessor)){
+                            backwardMap.put(predecessor, current);
+                            next.add(predecessor);
+                            if(forwardMap.containsKey(predecessor)){
+                                int travelled = chainLength(forwardMap, predecessor);
+                                if(travelled < best){ best = travelled; meeting = predecessor; }
+                            }
+                        }
+                        else{ backwardStats.duplicate(); }
+                    }
+                }
+                backwardFrontier = next;
+                backwardStats.endLevel(backwardMap.size(), -1);
+            }
+            if(meeting != null){
+                finish();
+                return buildPath(meeting);
+            }
+        }
+        finish();
+        return null;
+    }
+
+    /**
+     * Seeds the goal side with every goal, if there are no more of them than a limit
+     *
+     * @param start starting configuration
+     * @param limit the most goals to seed
+     * @return the goal side's frontier, or null if there are too many goals yet
+     */
+    private List<Configuration> seedGoals(BidirectionalConfiguration start, int limit){
+        Collection<Configuration> goals = start.getGoals(limit);
+        if(goals == null){ return null; }
+        List<Configuration> frontier = new ArrayList<>();
+        for(Configuration goal : goals){
+            backwardStats.generated();
+            if(!backwardMap.containsKey(goal)){
+                backwardMap.put(goal, null);
+                frontier.add(goal);
+            }
+        }
+        return frontier;
+    }
+
+    /**
+     * Reports the totals of both sides
+     */
+    private void finish(){
+        forwardStats.finish(forwardMap.size(), -1);
+        backwardStats.finish(backwardMap.size(), -1);
+    }
+
+    /**
+     * Counts the steps from a config to the root of its side
+     */
+    private static int chainLength(HashMap<Configuration, Configuration> map, Configuration config){
+        int length = 0;
+        for(Configuration link = map.get(config); link != null; link = map.get(link)){
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Joins the forward chain ending at the meeting config to the backward
+     * chain leaving it
+     */
+    private LinkedList<Configuration> buildPath(Configuration meeting){
+        LinkedList<Configuration> path = new LinkedList<>();
+        for(Configuration config = meeting; config != null; config = forwardMap.get(config)){
+            path.addFirst(config);
+        }
+        for(Configuration config = backwardMap.get(meeting); config != null; config = backwardMap.get(config)){
+            path.addLast(config);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,119 @@
+package puzzles.common.solver;
+
+/**
+ * Approximate visited set that keeps a few bits per state instead of the
+ * state itself, in the manner of a Bloom filter. A state is marked by setting
+ * the bits picked by several hashes of it, and counts as seen once all of them
+ * are set. States are never missed as seen, but an unseen state can be taken
+ * for a seen one once its bits have all been set by others, so a search using
+ * the filter may leave out part of the puzzle.
+ */
+public class BitstateFilter {
+    /** the bit array */
+    private final long[] words;
+
+    /** mask picking a bit index out of a hash */
+    private final long mask;
+
+    /** number of bits set for each state */
+    private final int hashes;
+
+    /** number of bits that are set */
+    private long bitsSet;
+
+    /**
+     * Creates an empty filter
+     * @param log2Bits log2 of the number of bits, from 6 up to 36
+     * @param hashes number of bits set for each state, at least 1
+     */
+    public BitstateFilter(int log2Bits, int hashes){
+        if(log2Bits < 6 || log2Bits > 36) { throw new IllegalArgumentException("log2Bits must be from 6 up to 36: " + log2Bits); }
+        if(hashes < 1) { throw new IllegalArgumentException("at least one hash is needed: " + hashes); }
+        this.words = new long[1 << (log2Bits - 6)];
+        this.mask = (1L << log2Bits) - 1;
+        this.hashes = hashes;
+    }
+
+    /**
+     * Marks a state as seen
+     * @param hash a well spread 64 bit hash of the state
+     * @return true if the state was not seen before, false if it was or seems to have been
+     */
+    public boolean add(long hash){
+        // the bits are spread from two hashes, the second odd so it steps through every bit
+        long step = mix(hash) | 1;
+        boolean added = false;
+        for(int i = 0; i < hashes; i++){
+            long bit = (hash + i * step) & mask;
+            int index = (int) (bit >>> 6);
+            long flag = 1L << bit;
+            if((words[index] & flag) == 0){
+                words[index] |= flag;
+                bitsSet++;
+                added = true;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Gets the share of bits that are set
+     * @return set bits over all bits, from 0 to 1
+     */
+    public double fillRatio(){
+        return (double) bitsSet / (mask + 1);
+    }
+
+    /**
+     * Gets the chance that a state never seen would be taken for a seen one right now
+     * @return the fill ratio to the power of the number of hashes
+     */
+    public double falsePositiveRate(){
+        return Math.pow(fillRatio(), hashes);
+    }
+
+    /**
+     * gets the number of bits set for each state
+     * @return hashes per state
+     */
+    public int hashes() { return hashes; }
+
+    /**
+     * gets the number of bits in the filter
+     * @return bits
+     */
+    public long bits() { return mask + 1; }
+
+    /**
+     * Number of bytes held by the filter
+     * @return bytes of the bit array
+     */
+    public long memoryBytes(){
+        return 8L * words.length;
+    }
+
+    /**
+     * Mixes the longs of an encoded state into a well spread 64 bit hash
+     *
+     * @param key array holding the encoded state
+     * @param offset first index of the state
+     * @param width longs per state
+     * @return hash of the state
+     */
+    public static long hash(long[] key, int offset, int width){
+        long h = 0x9E3779B97F4A7C15L;
+        for(int i = 0; i < width; i++){
+            h = mix(h ^ key[offset + i]);
+        }
+        return h;
+    }
+
+    /**
+     * Scrambles the bits of a long, so nearby values land far apart
+     */
+    private static long mix(long h){
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+}
@@ -0,0 +1,173 @@
+package puzzles.common.solver;
+
+import java.util.*;
+
+/**
+ * Breadth first sweep that marks visited states in a BitstateFilter instead
+ * of storing them, for a quick look at whether a puzzle can be solved and how
+ * many states it has before committing to an exact search. Only the frontier
+ * is kept, encoded, so the visited set costs a few bits per state however
+ * large the puzzle is.
+ *
+ * States the filter wrongly takes for seen ones are left out, together with
+ * whatever only they lead to, so a goal that is found is truly reachable but
+ * one that is not found might still be. The sweep reports how likely that is:
+ * the chance that a state met at the end would have been dropped, and the
+ * estimated share of the reachable states it actually visited.
+ */
+public class BitstateSolver {
+    /** counters for configs generated, duplicates and expansions */
+    private final SolverStats stats;
+
+    /** log2 of the number of bits in the filter */
+    private final int log2Bits;
+
+    /** number of bits set for each state */
+    private final int hashes;
+
+    /** visited set of the last sweep */
+    private BitstateFilter filter;
+
+    /** states the last sweep visited */
+    private long storedStates;
+
+    /** estimated number of new states the last sweep took for seen ones */
+    private double expectedOmitted;
+
+    /** depth of the first goal found, -1 if none was */
+    private int goalDepth;
+
+    /**
+     * Creates a solver
+     *
+     * @param log2Bits log2 of the number of bits in the filter, from 6 up to 36
+     * @param hashes number of bits set for each state
+     */
+    public BitstateSolver(int log2Bits, int hashes){
+        this.stats = new SolverStats();
+        this.log2Bits = log2Bits;
+        this.hashes = hashes;
+        this.goalDepth = -1;
+    }
+
+    /**
+     * gets total number of configurations
+     * @return returns total number of configs
+     */
+    public long getTotalConfigs() {return this.stats.getGenerated();}
+
+    /**
+     * gets number of configurations expanded
+     * @return returns number of expanded configs
+     */
+    public long getExpandedConfigs() {return this.stats.getExpanded();}
+
+    /**
+     * gets number of states visited, a lower bound on the reachable states
+     * @return returns visited states
+     */
+    public long getStoredStates() {return this.storedStates;}
+
+    /**
+     * gets the estimated number of reachable states, counting those the filter dropped
+     * @return visited states plus the estimated omissions
+     */
+    public long getEstimatedStates() {return Math.round(this.storedStates + this.expectedOmitted);}
+
+    /**
+     * gets the chance that a new state met at the end of the sweep would have been dropped
+     * @return the filter's false positive rate, 0 before any sweep
+     */
+    public double getOmissionProbability() {return this.filter == null ? 0 : this.filter.falsePositiveRate();}
+
+    /**
+     * gets the estimated share of the reachable states that were visited
+     * @return visited states over estimated states, 1 before any sweep
+     */
+    public double getCoverage() {return this.storedStates == 0 ? 1 : this.storedStates / (this.storedStates + this.expectedOmitted);}
+
+    /**
+     * gets the bits of the filter per visited state
+     * @return filter bits over visited states
+     */
+    public double getHashFactor() {return this.storedStates == 0 ? 0 : (double) (1L << log2Bits) / this.storedStates;}
+
+    /**
+     * gets the depth of the first goal found
+     * @return moves from the start to the goal, -1 if no goal was found
+     */
+    public int getGoalDepth() {return this.goalDepth;}
+
+    /**
+     * gets the counters of the last sweep
+     * @return solver statistics
+     */
+    public SolverStats getStats() {return this.stats;}
+
+    /**
+     * Adds a listener told about every completed level
+     * @param listener listener to add
+     */
+    public void addListener(SolverListener listener) {this.stats.addListener(listener);}
+
+    /**
+     * Sweeps the states reachable from the start
+     *
+     * @param start starting configuration
+     * @param stopAtGoal true to stop at the first goal, false to visit every state it can
+     * @return true if a goal was reached
+     */
+    public boolean explore(EncodableConfiguration start, boolean stopAtGoal){
+        int width = start.encodedLength();
+        BitstateFilter filter = new BitstateFilter(log2Bits, hashes);
+        this.filter = filter;
+        this.storedStates = 0;
+        this.expectedOmitted = 0;
+        this.goalDepth = -1;
+        stats.start();
+        long[] key = new long[width];
+
+        start.encode(key, 0);
+        filter.add(BitstateFilter.hash(key, 0, width)); stats.generated();
+        storedStates = 1;
+        if(start.isGoal()){ goalDepth = 0; }
+        long[][] levels = {key.clone(), new long[16 * width]};
+        int frontier = 1;
+
+        // expands one whole level at a time, collecting the encoded states of the next
+        for(int depth = 1; frontier > 0 && !(stopAtGoal && goalDepth >= 0); depth++){
+            int level = depth;
+            int[] next = {0};
+            double before = filter.falsePositiveRate();
+            for(int i = 0; i < frontier && !(stopAtGoal && goalDepth >= 0); i++){
+                stats.expanded();
+                start.decode(levels[0], i * width).forEachNeighbor(neighbor ->{
+                    stats.generated();
+                    ((EncodableConfiguration) neighbor).encode(key, 0);
+                    if(!filter.add(BitstateFilter.hash(key, 0, width))){
+                        stats.duplicate();
+                        return true;
+                    }
+                    if((next[0] + 1) * width > levels[1].length){ levels[1] = Arrays.copyOf(levels[1], levels[1].length * 2); }
+                    System.arraycopy(key, 0, levels[1], next[0]++ * width, width);
+                    if(goalDepth < 0 && neighbor.isGoal()){
+                        goalDepth = level;
+                        return !stopAtGoal;
+                    }
+                    return true;
+                });
+            }
+            // each new state stood in for about p / (1 - p) new ones the filter dropped, p averaged over the level
+            double p = Math.min((before + filter.falsePositiveRate()) / 2, 0.999);
+            expectedOmitted += next[0] * p / (1 - p);
+            storedStates += next[0];
+            stats.endLevel(storedStates, filter.memoryBytes() + 8L * (levels[0].length + levels[1].length));
+            long[] expanded = levels[0];
+            levels[0] = levels[1];
+            levels[1] = expanded;
+            frontier = next[0];
+        }
+        stats.finish(storedStates, filter.memoryBytes() + 8L * (levels[0].length + levels[1].length));
+        return goalDepth >= 0;
+    }
+}
@@ -1,18 +1,38 @@
 package puzzles.common.solver;
 
 import java.util.Collection;
+import java.util.function.Predicate;
 
 /**
  * representation of a single configuration
  */
 public interface Configuration {
     /**
-     * Gets a collection of the successors from current one.
+     * Gets a collection of the successors from current one. Must not modify
+     * this configuration, so parallel solvers can expand it from any thread.
      *
      * @return all successors
      */
     Collection<Configuration> getNeighbors();
 
+    /**
+     * Hands the successors to action one at a time, without collecting them
+     * first. Returning false from action stops the enumeration, so a solver
+     * can quit as soon as it generates a goal. Same rules as getNeighbors
+     * about not modifying this configuration.
+     *
+     * @param action called with each successor, returns false to stop
+     * @return true if every successor was handed over, false if action stopped early
+     */
+    default boolean forEachNeighbor(Predicate<? super Configuration> action){
+        for(Configuration neighbor : getNeighbors()){
+            if(!action.test(neighbor)){
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Has the goal been reached?
      * @return true if goal is reached, false is not
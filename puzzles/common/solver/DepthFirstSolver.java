@@ -0,0 +1,239 @@
+package puzzles.common.solver;
+
+import java.util.*;
+
+/**
+ * Depth first searches over configurations that move in place. A single
+ * working copy of the start is moved and moved back, and the move lists for
+ * every depth are allocated once up front, so no memory is allocated per node.
+ *
+ * Without a table nothing is remembered between branches, so revisited
+ * configurations are searched again and only stepping straight back is
+ * skipped. Given a byte budget, configurations with a Zobrist hash are kept in
+ * a fixed size transposition table holding, for each hash, the most moves an
+ * earlier search from it had left. A configuration met again with no more
+ * moves left is skipped, since that search covered everything this one could
+ * find. Slots are overwritten when hashes clash, so the table never grows past
+ * its budget and only forgets, which costs time but never a solution. Two
+ * configurations with the same 64 bit hash are taken to be the same.
+ */
+public class DepthFirstSolver {
+    /** bytes per table slot: the hash and the moves left */
+    private static final int SLOT_BYTES = 10;
+
+    /** counters for configs generated and expanded */
+    private final SolverStats stats;
+
+    /** bytes the transposition table may use, 0 for none */
+    private final long tableBytes;
+
+    /**
+     * Creates a solver without a transposition table
+     */
+    public DepthFirstSolver(){
+        this(0);
+    }
+
+    /**
+     * Creates a solver with a transposition table
+     * @param tableBytes bytes the table may use, 0 for no table
+     */
+    public DepthFirstSolver(long tableBytes){
+        this.stats = new SolverStats();
+        this.tableBytes = tableBytes;
+    }
+
+    /**
+     * gets total number of configurations
+     * @return returns total number of configs
+     */
+    public long getTotalConfigs() {return stats.getGenerated();}
+
+    /**
+     * gets number of configurations expanded
+     * @return returns number of expanded configs
+     */
+    public long getExpandedConfigs() {return stats.getExpanded();}
+
+    /**
+     * gets number of configurations skipped by the transposition table
+     * @return returns number of configs met again with no more moves left
+     */
+    public long getDuplicateConfigs() {return stats.getDuplicates();}
+
+    /**
+     * gets the counters of the last search
+     * @return solver statistics
+     */
+    public SolverStats getStats() {return stats;}
+
+    /**
+     * Adds a listener, told after each depth limit of an iterative deepening search
+     * @param listener listener to add
+     */
+    public void addListener(SolverListener listener) {stats.addListener(listener);}
+
+    /**
+     * Finds a shortest solution by iterative deepening: depth limited
+     * searches with a limit of 0, 1, 2, ... moves.
+     *
+     * @param start starting configuration, left unchanged
+     * @param maxDepth most moves a solution may take
+     * @return A shortest solution path, or null if none within maxDepth
+     */
+    public Collection<Configuration> solve(MoveConfiguration start, int maxDepth){
+        stats.start();
+        Search search = new Search(start, maxDepth);
+        for(int limit = 0; limit <= maxDepth; limit++){
+            int found = search.run(limit);
+            stats.endLevel(0, search.memoryBytes());
+            if(found >= 0){
+                stats.finish(0, search.memoryBytes());
+                return search.buildPath(start, found);
+            }
+        }
+        stats.finish(0, search.memoryBytes());
+        return null;
+    }
+
+    /**
+     * Finds any solution within a depth limit with a single depth first search.
+     * The path found isn't necessarily the shortest.
+     *
+     * @param start starting configuration, left unchanged
+     * @param maxDepth most moves a solution may take
+     * @return A solution path, or null if none within maxDepth
+     */
+    public Collection<Configuration> solveDepthFirst(MoveConfiguration start, int maxDepth){
+        stats.start();
+        Search search = new Search(start, maxDepth);
+        int found = search.run(maxDepth);
+        stats.finish(0, search.memoryBytes());
+        return found >= 0 ? search.buildPath(start, found) : null;
+    }
+
+    /**
+     * The working copy and the buffers of one search
+     */
+    private class Search {
+        /** configuration moved around by the search */
+        private final MoveConfiguration config;
+
+        /** moves listed at each depth */
+        private final int[][] moves;
+
+        /** number of moves listed at each depth */
+        private final int[] counts;
+
+        /** next move to try at each depth */
+        private final int[] cursors;
+
+        /** move taken at each depth */
+        private final int[] path;
+
+        /** hash held by each table slot, null without a table */
+        private final long[] hashes;
+
+        /** moves left plus one when each slot's configuration was searched, 0 if empty */
+        private final short[] left;
+
+        Search(MoveConfiguration start, int maxDepth){
+            this.config = start.copy();
+            this.moves = new int[maxDepth + 1][start.maxMoves()];
+            this.counts = new int[maxDepth + 1];
+            this.cursors = new int[maxDepth + 1];
+            this.path = new int[maxDepth + 1];
+            long slots = tableBytes / SLOT_BYTES;
+            if(config instanceof ZobristConfiguration && slots > 0 && maxDepth < Short.MAX_VALUE){
+                int size = Integer.highestOneBit((int) Math.min(slots, 1 << 30));
+                this.hashes = new long[size];
+                this.left = new short[size];
+            }
+            else{
+                this.hashes = null;
+                this.left = null;
+            }
+        }
+
+        /**
+         * Checks the working copy against the table and records it
+         *
+         * @param remaining moves left to play from the working copy
+         * @return true if it was already searched with at least as many moves left
+         */
+        boolean searched(int remaining){
+            if(hashes == null){ return false; }
+            long hash = ((ZobristConfiguration) config).zobristHash();
+            int slot = LongStateTable.hash(hash) & (hashes.length - 1);
+            if(hashes[slot] == hash && left[slot] > remaining){ return true; }
+            hashes[slot] = hash;
+            left[slot] = (short) (remaining + 1);
+            return false;
+        }
+
+        /**
+         * Searches every move sequence up to the limit
+         *
+         * @param limit most moves to play
+         * @return number of moves to the goal found, or -1 if none
+         */
+        int run(int limit){
+            if(config.isGoal()){ return 0; }
+            if(limit == 0){ return -1; }
+            searched(limit);
+            int depth = 0;
+            counts[0] = config.getMoves(moves[0]); cursors[0] = 0; stats.expanded();
+            while(depth >= 0){
+                // every move at this depth was tried, so step back up
+                if(cursors[depth] == counts[depth]){
+                    depth--;
+                    if(depth >= 0){ config.undoMove(path[depth]); }
+                    continue;
+                }
+                int move = moves[depth][cursors[depth]++];
+                if(depth > 0 && config.inverseMove(path[depth - 1]) == move){ continue; }
+                config.applyMove(move); stats.generated();
+                path[depth] = move;
+                if(config.isGoal()){
+                    // puts the working copy back to the start before returning
+                    for(int i = depth; i >= 0; i--){ config.undoMove(path[i]); }
+                    return depth + 1;
+                }
+                if(depth + 1 < limit && searched(limit - depth - 1)){
+                    stats.duplicate();
+                    config.undoMove(move);
+                }
+                else if(depth + 1 < limit){
+                    depth++;
+                    counts[depth] = config.getMoves(moves[depth]); cursors[depth] = 0; stats.expanded();
+                }
+                else{
+                    config.undoMove(move);
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Replays the first length moves of the path on copies of the start
+         */
+        LinkedList<Configuration> buildPath(MoveConfiguration start, int length){
+            LinkedList<Configuration> solution = new LinkedList<>();
+            MoveConfiguration step = start.copy();
+            solution.add(step);
+            for(int i = 0; i < length; i++){
+                step = step.copy();
+                step.applyMove(path[i]);
+                solution.add(step);
+            }
+            return solution;
+        }
+
+        /**
+         * Bytes held by the move buffers and the table
+         */
+        long memoryBytes(){
+            return 4L * moves.length * (moves[0].length + 3) + (hashes == null ? 0 : (long) SLOT_BYTES * hashes.length);
+        }
+    }
+}
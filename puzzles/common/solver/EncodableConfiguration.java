@@ -0,0 +1,34 @@
+package puzzles.common.solver;
+
+/**
+ * A configuration that can be packed into a fixed number of longs and
+ * rebuilt from them. Solvers use this to keep explored states in primitive
+ * tables instead of holding on to whole configuration objects.
+ */
+public interface EncodableConfiguration extends Configuration {
+    /**
+     * Number of longs one encoded state takes up. Every configuration
+     * of the same puzzle must report the same length.
+     *
+     * @return longs per encoded state
+     */
+    int encodedLength();
+
+    /**
+     * Writes this configuration into dest starting at offset.
+     *
+     * @param dest array to write into
+     * @param offset first index to write
+     */
+    void encode(long[] dest, int offset);
+
+    /**
+     * Rebuilds a configuration of the same puzzle from an encoded state.
+     * Puzzle wide data (board size, capacities, ...) comes from this object.
+     *
+     * @param src array holding the encoded state
+     * @param offset first index of the encoded state
+     * @return the decoded configuration
+     */
+    EncodableConfiguration decode(long[] src, int offset);
+}
@@ -0,0 +1,627 @@
+package puzzles.common.solver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Breadth first search that keeps its levels on disk instead of in memory,
+ * for puzzles with more states than fit in RAM. Each level is expanded into
+ * a buffer of records, every full buffer is sorted and written out as a run,
+ * and once the level is done the runs are merged into the next level's file.
+ * Duplicates are only found during that merge, by walking the earlier level
+ * files alongside it: the two levels before for reversible puzzles, whose
+ * moves can never skip further back, and every earlier level for the rest.
+ *
+ * A record is the encoded state followed by the move it was reached by, or
+ * the parent's encoded state for puzzles without move codes. The path is
+ * rebuilt from the goal by working out each parent and binary searching for
+ * it in the level before. Files are read through a buffer each and written
+ * through one direct buffer, all in order, and memory stays within
+ * the buffer size however large the search grows: three quarters of it hold
+ * the run being sorted, an eighth gathers writes and the last eighth is split
+ * among the files being read.
+ *
+ * Only a limited number of files are read at once, as many as the read share
+ * allows with buffers of at least MIN_WINDOW, up to MAX_FAN_IN. When a level
+ * leaves more runs than that, groups of them are first merged into longer
+ * runs, and when there are more earlier levels to check against, as there are
+ * for puzzles that aren't reversible, the merged states are checked against a
+ * group of them per pass and written to an intermediate run, the last pass
+ * writing the level file.
+ */
+public class ExternalSolver {
+    /** smallest stretch of a file worth reading at once, which bounds how many files are read together */
+    private static final long MIN_WINDOW = 64 << 10;
+
+    /** most files read at once by one merge pass */
+    private static final int MAX_FAN_IN = 64;
+
+    /** counters for configs generated, duplicates and expansions */
+    private final SolverStats stats;
+
+    /** folder the run and level files are written to */
+    private final Path directory;
+
+    /** bytes of memory the search may use for records */
+    private final long bufferBytes;
+
+    /** states stored in the level files of the last search */
+    private long uniqueConfigs;
+
+    /** run files created by the last search, used to name them */
+    private int runFiles;
+
+    /**
+     * Creates a solver
+     *
+     * @param directory folder for the search files, created if it is missing
+     * @param bufferBytes bytes of memory the search may use for records
+     */
+    public ExternalSolver(Path directory, long bufferBytes){
+        this.stats = new SolverStats();
+        this.directory = directory;
+        this.bufferBytes = bufferBytes;
+    }
+
+    /**
+     * gets total number of configurations
+     * @return returns total number of configs
+     */
+    public long getTotalConfigs() {return this.stats.getGenerated();}
+
+    /**
+     * gets number of configurations expanded
+     * @return returns number of expanded configs
+     */
+    public long getExpandedConfigs() {return this.stats.getExpanded();}
+
+    /**
+     * gets number of unique configurations
+     * @return returns total number of unique configs
+     */
+    public long getUniqueConfigs() {return this.uniqueConfigs;}
+
+    /**
+     * gets the counters of the last search
+     * @return solver statistics
+     */
+    public SolverStats getStats() {return this.stats;}
+
+    /**
+     * Adds a listener told about every completed level
+     * @param listener listener to add
+     */
+    public void addListener(SolverListener listener) {this.stats.addListener(listener);}
+
+    /**
+     * Attempts to solve the puzzle, checking each level against only the two
+     * before it when the puzzle says it is reversible
+     *
+     * @param start starting configuration
+     * @return A solution path, or null if no solution
+     */
+    public Collection<Configuration> solve(EncodableConfiguration start){
+        return solve(start, start instanceof RankedConfiguration && ((RankedConfiguration) start).isReversible());
+    }
+
+    /**
+     * Attempts to solve the puzzle. The search files are removed once it is done.
+     *
+     * @param start starting configuration
+     * @param reversible true if every move can be undone by another move
+     * @return A solution path, or null if no solution
+     */
+    public Collection<Configuration> solve(EncodableConfiguration start, boolean reversible){
+        try{
+            Files.createDirectories(directory);
+            List<Path> levels = new ArrayList<>();
+            try{
+                return search(start, reversible, levels);
+            }
+            finally{
+                for(Path level : levels){ Files.deleteIfExists(level); }
+            }
+        }
+        catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Runs the search level by level, adding each level file to levels as it is written
+     */
+    private Collection<Configuration> search(EncodableConfiguration start, boolean reversible, List<Path> levels) throws IOException {
+        int width = start.encodedLength();
+        boolean moves = start instanceof MoveConfiguration;
+        int recordWidth = width + (moves ? 1 : width);
+        long ioBytes = Math.max(8L * recordWidth, bufferBytes / 4);
+        long[] buffer = new long[(int) Math.min(Integer.MAX_VALUE - 8, Math.max(recordWidth, (bufferBytes - ioBytes) / 8 / recordWidth * recordWidth))];
+        long[] key = new long[recordWidth];
+        int[] moveCodes = moves ? new int[((MoveConfiguration) start).maxMoves()] : null;
+        // only one file is ever written at a time, so every writer gathers its records in the same buffer
+        ByteBuffer out = ByteBuffer.allocateDirect((int) Math.min(Integer.MAX_VALUE, Math.max(1, ioBytes / 2 / (8 * recordWidth)) * 8 * recordWidth));
+        out.order(ByteOrder.nativeOrder());
+        this.uniqueConfigs = 0;
+        this.runFiles = 0;
+        int fanIn = (int) Math.max(2, Math.min(MAX_FAN_IN, ioBytes / 2 / MIN_WINDOW));
+        stats.start();
+
+        // level 0 holds only the start, whose parent part is never read
+        start.encode(key, 0);
+        levels.add(directory.resolve("level-0.bin"));
+        try(RecordWriter writer = new RecordWriter(levels.get(0), recordWidth, out)){ writer.write(key, 0); }
+        stats.generated();
+        uniqueConfigs = 1;
+        if(start.isGoal()){
+            stats.finish(uniqueConfigs, bufferBytes);
+            return new LinkedList<>(List.of(start));
+        }
+
+        for(int depth = 0; ; depth++){
+            List<Path> runs = new ArrayList<>();
+            try{
+                int[] filled = {0};
+                long[] goal = null;
+                long[] parent = new long[recordWidth];
+                try(RecordReader reader = new RecordReader(levels.get(depth), recordWidth, ioBytes / 2)){
+                    while(goal == null && reader.next()){
+                        long[] current = reader.record();
+                        System.arraycopy(current, 0, parent, 0, recordWidth);
+                        Configuration config = start.decode(current, 0);
+                        stats.expanded();
+                        if(moves){
+                            MoveConfiguration moving = (MoveConfiguration) config;
+                            int count = moving.getMoves(moveCodes);
+                            for(int i = 0; i < count && goal == null; i++){
+                                moving.applyMove(moveCodes[i]);
+                                stats.generated();
+                                ((EncodableConfiguration) moving).encode(key, 0);
+                                key[width] = moveCodes[i];
+                                if(moving.isGoal()){ goal = key; }
+                                else{ add(key, buffer, filled, recordWidth, width, runs, out); }
+                                moving.undoMove(moveCodes[i]);
+                            }
+                        }
+                        else{
+                            long[][] found = {null};
+                            config.forEachNeighbor(neighbor ->{
+                                stats.generated();
+                                ((EncodableConfiguration) neighbor).encode(key, 0);
+                                System.arraycopy(parent, 0, key, width, width);
+                                if(neighbor.isGoal()){
+                                    found[0] = key;
+                                    return false;
+                                }
+                                add(key, buffer, filled, recordWidth, width, runs, out);
+                                return true;
+                            });
+                            goal = found[0];
+                        }
+                    }
+                }
+                // a goal is never in an earlier level, or the search would have stopped there
+                if(goal != null){
+                    uniqueConfigs++;
+                    stats.finish(uniqueConfigs, bufferBytes);
+                    return pathTo(start, goal, parent, levels, depth, recordWidth);
+                }
+                if(filled[0] > 0){ writeRun(buffer, filled[0], recordWidth, width, runs, out); }
+                if(runs.isEmpty()){
+                    stats.finish(uniqueConfigs, bufferBytes);
+                    return null;
+                }
+
+                int from = reversible ? Math.max(0, depth - 1) : 0;
+                Path next = directory.resolve("level-" + (depth + 1) + ".bin");
+                levels.add(next);
+                long added = mergeLevel(runs, levels.subList(from, depth + 1), next, recordWidth, width, ioBytes / 2, fanIn, out);
+                if(added == 0){
+                    stats.finish(uniqueConfigs, bufferBytes);
+                    return null;
+                }
+                uniqueConfigs += added;
+                stats.endLevel(uniqueConfigs, bufferBytes);
+            }
+            finally{
+                for(Path run : runs){ Files.deleteIfExists(run); }
+            }
+        }
+    }
+
+    /**
+     * Appends a record to the buffer, first writing the buffer out as a run if it is full
+     */
+    private void add(long[] record, long[] buffer, int[] filled, int recordWidth, int width, List<Path> runs, ByteBuffer out){
+        if((filled[0] + 1) * recordWidth > buffer.length){
+            try{
+                writeRun(buffer, filled[0], recordWidth, width, runs, out);
+            }
+            catch(IOException e){
+                throw new UncheckedIOException(e);
+            }
+            filled[0] = 0;
+        }
+        System.arraycopy(record, 0, buffer, filled[0] * recordWidth, recordWidth);
+        filled[0]++;
+    }
+
+    /**
+     * Sorts the records of the buffer by state, drops repeated states and writes the rest to a new run file
+     */
+    private void writeRun(long[] buffer, int count, int recordWidth, int width, List<Path> runs, ByteBuffer out) throws IOException {
+        sort(buffer, 0, count, recordWidth, width, new long[recordWidth]);
+        Path run = directory.resolve("run-" + runFiles++ + ".bin");
+        runs.add(run);
+        try(RecordWriter writer = new RecordWriter(run, recordWidth, out)){
+            for(int i = 0; i < count; i++){
+                if(i > 0 && compare(buffer, i * recordWidth, buffer, (i - 1) * recordWidth, width) == 0){
+                    stats.duplicate();
+                    continue;
+                }
+                writer.write(buffer, i * recordWidth);
+            }
+        }
+    }
+
+    /**
+     * Merges the sorted runs into one level file, leaving out every state that
+     * is repeated or already in one of the earlier levels, in as many passes
+     * as it takes to never read more than fanIn files at once. Runs merged
+     * away are deleted and the intermediate runs written are added to runs.
+     *
+     * @return the number of states written to the level file
+     */
+    private long mergeLevel(List<Path> runs, List<Path> earlier, Path into, int recordWidth, int width, long readBytes, int fanIn, ByteBuffer out) throws IOException {
+        // half of each pass reads earlier levels, the other half reads runs
+        int checksPerPass = Math.max(1, fanIn / 2);
+        long written = 0;
+        for(int from = 0; from < earlier.size(); from += checksPerPass){
+            List<Path> checks = earlier.subList(from, Math.min(earlier.size(), from + checksPerPass));
+            while(runs.size() > fanIn - checks.size()){
+                List<Path> group = new ArrayList<>(runs.subList(0, Math.min(fanIn, runs.size())));
+                Path merged = directory.resolve("run-" + runFiles++ + ".bin");
+                runs.add(merged);
+                merge(group, List.of(), merged, recordWidth, width, readBytes, out);
+                removeRuns(runs, group);
+            }
+            boolean last = from + checksPerPass >= earlier.size();
+            Path target = last ? into : directory.resolve("run-" + runFiles++ + ".bin");
+            List<Path> group = new ArrayList<>(runs);
+            if(!last){ runs.add(target); }
+            written = merge(group, checks, target, recordWidth, width, readBytes, out);
+            removeRuns(runs, group);
+        }
+        return written;
+    }
+
+    /**
+     * Deletes runs that were merged away and drops them from the list of runs
+     */
+    private static void removeRuns(List<Path> runs, List<Path> merged) throws IOException {
+        for(Path run : merged){ Files.deleteIfExists(run); }
+        runs.removeAll(merged);
+    }
+
+    /**
+     * Merges sorted runs in a single pass, leaving out every state that is
+     * repeated or already in one of the earlier levels given
+     *
+     * @return the number of states written
+     */
+    private long merge(List<Path> runs, List<Path> earlier, Path into, int recordWidth, int width, long readBytes, ByteBuffer out) throws IOException {
+        long window = readBytes / (runs.size() + earlier.size());
+        PriorityQueue<RecordReader> queue = new PriorityQueue<>((a, b) -> compare(a.record(), 0, b.record(), 0, width));
+        List<RecordReader> checks = new ArrayList<>();
+        long written = 0;
+        try(RecordWriter writer = new RecordWriter(into, recordWidth, out)){
+            for(Path run : runs){
+                RecordReader reader = new RecordReader(run, recordWidth, window);
+                if(reader.next()){ queue.add(reader); }
+                else{ reader.close(); }
+            }
+            for(Path level : earlier){
+                RecordReader reader = new RecordReader(level, recordWidth, window);
+                checks.add(reader.next() ? reader : null);
+                if(checks.get(checks.size() - 1) == null){ reader.close(); }
+            }
+            long[] last = null;
+            while(!queue.isEmpty()){
+                RecordReader smallest = queue.remove();
+                long[] record = smallest.record();
+                boolean seen = last != null && compare(record, 0, last, 0, width) == 0;
+                for(int i = 0; i < checks.size() && !seen; i++){
+                    RecordReader check = checks.get(i);
+                    while(check != null && compare(check.record(), 0, record, 0, width) < 0){
+                        if(!check.next()){
+                            check.close();
+                            check = null;
+                            checks.set(i, null);
+                        }
+                    }
+                    seen = check != null && compare(check.record(), 0, record, 0, width) == 0;
+                }
+                if(seen){ stats.duplicate(); }
+                else{
+                    writer.write(record, 0);
+                    last = last == null ? new long[recordWidth] : last;
+                    System.arraycopy(record, 0, last, 0, recordWidth);
+                    written++;
+                }
+                if(smallest.next()){ queue.add(smallest); }
+                else{ smallest.close(); }
+            }
+        }
+        finally{
+            for(RecordReader reader : queue){ reader.close(); }
+            for(RecordReader reader : checks){ if(reader != null){ reader.close(); } }
+        }
+        return written;
+    }
+
+    /**
+     * Rebuilds the path to a goal by finding each parent in the level before it
+     *
+     * @param start any config of the puzzle, used to decode the states
+     * @param goal record of the goal
+     * @param parent record of the goal's parent, in the level at depth
+     * @param levels the level files
+     * @param depth level of the goal's parent
+     * @param recordWidth longs per record
+     * @return the path from the start to the goal
+     */
+    private static LinkedList<Configuration> pathTo(EncodableConfiguration start, long[] goal, long[] parent, List<Path> levels, int depth, int recordWidth) throws IOException {
+        int width = start.encodedLength();
+        LinkedList<Configuration> path = new LinkedList<>();
+        path.addFirst(start.decode(goal, 0));
+        long[] record = parent.clone();
+        long[] key = new long[width];
+        for(int d = depth; ; d--){
+            EncodableConfiguration config = start.decode(record, 0);
+            path.addFirst(config);
+            if(d == 0){ return path; }
+            if(config instanceof MoveConfiguration){
+                ((MoveConfiguration) config).undoMove((int) record[width]);
+                config.encode(key, 0);
+                ((MoveConfiguration) config).applyMove((int) record[width]);
+            }
+            else{
+                System.arraycopy(record, width, key, 0, width);
+            }
+            if(!find(levels.get(d - 1), key, record, recordWidth)){
+                throw new IllegalStateException("parent missing from level " + (d - 1));
+            }
+        }
+    }
+
+    /**
+     * Binary searches a level file for a state
+     *
+     * @param level the level file
+     * @param key the encoded state
+     * @param record array the record found is copied into
+     * @param recordWidth longs per record
+     * @return true if the state was found
+     */
+    private static boolean find(Path level, long[] key, long[] record, int recordWidth) throws IOException {
+        int width = key.length;
+        ByteBuffer bytes = ByteBuffer.allocate(8 * recordWidth).order(ByteOrder.nativeOrder());
+        try(FileChannel channel = FileChannel.open(level, StandardOpenOption.READ)){
+            long low = 0;
+            long high = channel.size() / bytes.capacity() - 1;
+            while(low <= high){
+                long middle = (low + high) >>> 1;
+                bytes.clear();
+                while(bytes.hasRemaining()){
+                    if(channel.read(bytes, middle * bytes.capacity() + bytes.position()) < 0){ throw new IOException("truncated " + level); }
+                }
+                for(int i = 0; i < recordWidth; i++){ record[i] = bytes.getLong(8 * i); }
+                int order = compare(record, 0, key, 0, width);
+                if(order == 0){ return true; }
+                if(order < 0){ low = middle + 1; }
+                else{ high = middle - 1; }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compares the states at the start of two records
+     */
+    private static int compare(long[] a, int aOffset, long[] b, int bOffset, int width){
+        for(int i = 0; i < width; i++){
+            int order = Long.compare(a[aOffset + i], b[bOffset + i]);
+            if(order != 0){ return order; }
+        }
+        return 0;
+    }
+
+    /**
+     * Sorts the records from index from up to index to by state, quicksorting
+     * the larger pieces and insertion sorting the small ones
+     */
+    private static void sort(long[] records, int from, int to, int recordWidth, int width, long[] scratch){
+        while(to - from > 16){
+            // the median of the first, middle and last records is moved to the front as the pivot
+            int middle = (from + to) >>> 1;
+            int last = to - 1;
+            if(compare(records, middle * recordWidth, records, from * recordWidth, width) < 0){ swap(records, middle, from, recordWidth, scratch); }
+            if(compare(records, last * recordWidth, records, from * recordWidth, width) < 0){ swap(records, last, from, recordWidth, scratch); }
+            if(compare(records, last * recordWidth, records, middle * recordWidth, width) < 0){ swap(records, last, middle, recordWidth, scratch); }
+            swap(records, from, middle, recordWidth, scratch);
+            int i = from;
+            int j = to;
+            while(true){
+                do{ i++; } while(i < to && compare(records, i * recordWidth, records, from * recordWidth, width) < 0);
+                do{ j--; } while(compare(records, j * recordWidth, records, from * recordWidth, width) > 0);
+                if(i >= j){ break; }
+                swap(records, i, j, recordWidth, scratch);
+            }
+            swap(records, from, j, recordWidth, scratch);
+            // recursing into the smaller side keeps the stack shallow
+            if(j - from < to - j - 1){
+                sort(records, from, j, recordWidth, width, scratch);
+                from = j + 1;
+            }
+            else{
+                sort(records, j + 1, to, recordWidth, width, scratch);
+                to = j;
+            }
+        }
+        for(int i = from + 1; i < to; i++){
+            for(int j = i; j > from && compare(records, j * recordWidth, records, (j - 1) * recordWidth, width) < 0; j--){
+                swap(records, j, j - 1, recordWidth, scratch);
+            }
+        }
+    }
+
+    /**
+     * Swaps two records
+     */
+    private static void swap(long[] records, int i, int j, int recordWidth, long[] scratch){
+        System.arraycopy(records, i * recordWidth, scratch, 0, recordWidth);
+        System.arraycopy(records, j * recordWidth, records, i * recordWidth, recordWidth);
+        System.arraycopy(scratch, 0, records, j * recordWidth, recordWidth);
+    }
+
+    /**
+     * Reads the records of a file in order through a buffer
+     */
+    private static class RecordReader implements AutoCloseable {
+        /** the open file */
+        private final FileChannel channel;
+
+        /** records read from the file and not yet handed out, a whole number of records long */
+        private final ByteBuffer buffer;
+
+        /** the record last read */
+        private final long[] record;
+
+        /**
+         * Opens a file for reading
+         *
+         * @param file the file
+         * @param recordWidth longs per record
+         * @param windowBytes bytes to read at a time, rounded down to whole records but at least one
+         */
+        RecordReader(Path file, int recordWidth, long windowBytes) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            int recordBytes = 8 * recordWidth;
+            this.buffer = ByteBuffer.allocate((int) (Math.max(1, Math.min(windowBytes, Integer.MAX_VALUE - 8) / recordBytes) * recordBytes));
+            buffer.order(ByteOrder.nativeOrder());
+            buffer.limit(0);
+            this.record = new long[recordWidth];
+        }
+
+        /**
+         * Reads the next record
+         * @return false once the file is used up
+         */
+        boolean next(){
+            try{
+                if(!buffer.hasRemaining()){
+                    buffer.clear();
+                    while(buffer.hasRemaining() && channel.read(buffer) >= 0){}
+                    buffer.flip();
+                    if(!buffer.hasRemaining()){ return false; }
+                }
+            }
+            catch(IOException e){
+                throw new UncheckedIOException(e);
+            }
+            for(int i = 0; i < record.length; i++){ record[i] = buffer.getLong(); }
+            return true;
+        }
+
+        /**
+         * gets the record last read
+         * @return the record, overwritten by the next read
+         */
+        long[] record() {return record;}
+
+        /**
+         * Closes the file
+         */
+        @Override
+        public void close(){
+            try{
+                channel.close();
+            }
+            catch(IOException e){
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Writes records to a new file in order through a direct buffer
+     */
+    private static class RecordWriter implements AutoCloseable {
+        /** the open file */
+        private final FileChannel channel;
+
+        /** records waiting to be written */
+        private final ByteBuffer buffer;
+
+        /** longs per record */
+        private final int recordWidth;
+
+        /**
+         * Creates or empties a file for writing
+         *
+         * @param file the file
+         * @param recordWidth longs per record
+         * @param buffer buffer to gather records in before each write, a whole number of records long
+         */
+        RecordWriter(Path file, int recordWidth, ByteBuffer buffer) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.buffer = buffer;
+            this.recordWidth = recordWidth;
+            buffer.clear();
+        }
+
+        /**
+         * Writes one record
+         * @param records array holding the record
+         * @param offset first index of the record
+         */
+        void write(long[] records, int offset){
+            if(!buffer.hasRemaining()){ flush(); }
+            for(int i = 0; i < recordWidth; i++){ buffer.putLong(records[offset + i]); }
+        }
+
+        /**
+         * Writes out the records gathered so far
+         */
+        private void flush(){
+            try{
+                buffer.flip();
+                while(buffer.hasRemaining()){ channel.write(buffer); }
+                buffer.clear();
+            }
+            catch(IOException e){
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Writes what is left and closes the file
+         */
+        @Override
+        public void close(){
+            flush();
+            try{
+                channel.close();
+            }
+            catch(IOException e){
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
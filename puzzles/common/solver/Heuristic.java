@@ -0,0 +1,18 @@
+package puzzles.common.solver;
+
+/**
+ * Estimates how many moves separate a configuration from the nearest goal.
+ * To keep A* paths optimal the estimate must never be more than the real
+ * number of moves (admissible), and goals must be estimated at 0.
+ *
+ * @param <C> the type of configuration being estimated
+ */
+public interface Heuristic<C extends Configuration> {
+    /**
+     * Estimates the remaining moves to a goal
+     *
+     * @param config configuration to estimate
+     * @return a lower bound on the moves needed to reach a goal
+     */
+    int estimate(C config);
+}
@@ -0,0 +1,111 @@
+package puzzles.common.solver;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of ints ordered by long priorities, kept in two parallel
+ * primitive arrays
+ */
+public class IntPriorityQueue {
+    /** priority of each heap entry */
+    private long[] priorities;
+
+    /** value of each heap entry */
+    private int[] values;
+
+    /** number of entries */
+    private int size;
+
+    /**
+     * Creates an empty queue
+     * @param capacity initial capacity
+     */
+    public IntPriorityQueue(int capacity){
+        this.priorities = new long[Math.max(16, capacity)];
+        this.values = new int[priorities.length];
+    }
+
+    /**
+     * Creates an empty queue with a small default capacity
+     */
+    public IntPriorityQueue(){
+        this(1 << 10);
+    }
+
+    /**
+     * Adds a value
+     * @param value value to add
+     * @param priority smaller priorities are removed first
+     */
+    public void add(int value, long priority){
+        if(size == values.length){
+            priorities = Arrays.copyOf(priorities, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        // sifts the new entry up from the bottom of the heap
+        int i = size++;
+        while(i > 0){
+            int parent = (i - 1) >>> 1;
+            if(priorities[parent] <= priority){
+                break;
+            }
+            priorities[i] = priorities[parent];
+            values[i] = values[parent];
+            i = parent;
+        }
+        priorities[i] = priority;
+        values[i] = value;
+    }
+
+    /**
+     * gets the smallest priority in the queue
+     * @rit.pre the queue is not empty
+     * @return the smallest priority
+     */
+    public long peekPriority() { return priorities[0]; }
+
+    /**
+     * Removes the value with the smallest priority
+     * @rit.pre the queue is not empty
+     * @return the removed value
+     */
+    public int remove(){
+        int top = values[0];
+        size--;
+        long priority = priorities[size];
+        int value = values[size];
+
+        // sifts the last entry down from the root
+        int i = 0;
+        while(true){
+            int child = 2 * i + 1;
+            if(child >= size){
+                break;
+            }
+            if(child + 1 < size && priorities[child + 1] < priorities[child]){
+                child++;
+            }
+            if(priority <= priorities[child]){
+                break;
+            }
+            priorities[i] = priorities[child];
+            values[i] = values[child];
+            i = child;
+        }
+        priorities[i] = priority;
+        values[i] = value;
+        return top;
+    }
+
+    /**
+     * Is the queue empty?
+     * @return true if nothing is queued
+     */
+    public boolean isEmpty() { return size == 0; }
+
+    /**
+     * gets the number of entries
+     * @return queue size
+     */
+    public int size() { return size; }
+}
@@ -0,0 +1,76 @@
+package puzzles.common.solver;
+
+/**
+ * Growable FIFO queue of ints backed by a circular array
+ */
+public class IntRingBuffer {
+    /** queued values */
+    private int[] items;
+
+    /** index of the next value to remove */
+    private int head;
+
+    /** number of queued values */
+    private int size;
+
+    /**
+     * Creates an empty queue
+     * @param capacity initial capacity, rounded up to a power of two
+     */
+    public IntRingBuffer(int capacity){
+        this.items = new int[Integer.highestOneBit(Math.max(16, capacity) * 2 - 1)];
+    }
+
+    /**
+     * Creates an empty queue with a small default capacity
+     */
+    public IntRingBuffer(){
+        this(1 << 10);
+    }
+
+    /**
+     * Adds a value to the tail of the queue
+     * @param value value to add
+     */
+    public void add(int value){
+        if(size == items.length){
+            int[] bigger = new int[items.length * 2];
+            for(int i = 0; i < size; i++){
+                bigger[i] = items[(head + i) & (items.length - 1)];
+            }
+            items = bigger;
+            head = 0;
+        }
+        items[(head + size) & (items.length - 1)] = value;
+        size++;
+    }
+
+    /**
+     * Removes the value at the head of the queue
+     * @rit.pre the queue is not empty
+     * @return the removed value
+     */
+    public int remove(){
+        int value = items[head];
+        head = (head + 1) & (items.length - 1);
+        size--;
+        return value;
+    }
+
+    /**
+     * Is the queue empty?
+     * @return true if nothing is queued
+     */
+    public boolean isEmpty() { return size == 0; }
+
+    /**
+     * gets the number of queued values
+     * @return queue size
+     */
+    public int size() { return size; }
+
+    /**
+     * Removes every value
+     */
+    public void clear() { head = 0; size = 0; }
+}
@@ -0,0 +1,114 @@
+package puzzles.common.solver;
+
+/**
+ * Snapshot of the work done by a solver, either for one level of the search
+ * or for the whole search.
+ */
+public class LevelStats {
+    /** depth of the level, or deepest level reached for a whole search */
+    private final int depth;
+
+    /** configs expanded */
+    private final long frontierSize;
+
+    /** configs generated as neighbors */
+    private final long generated;
+
+    /** generated configs that had already been seen */
+    private final long duplicates;
+
+    /** unique configs retained so far */
+    private final long uniqueConfigs;
+
+    /** wall clock time spent */
+    private final long wallNanos;
+
+    /** estimated bytes retained by the solver so far */
+    private final long retainedBytes;
+
+    /**
+     * Creates a snapshot
+     *
+     * @param depth depth of the level
+     * @param frontierSize configs expanded
+     * @param generated configs generated
+     * @param duplicates generated configs already seen
+     * @param uniqueConfigs unique configs retained so far
+     * @param wallNanos wall clock time spent
+     * @param retainedBytes estimated bytes retained by the solver
+     */
+    public LevelStats(int depth, long frontierSize, long generated, long duplicates,
+                      long uniqueConfigs, long wallNanos, long retainedBytes){
+        this.depth = depth;
+        this.frontierSize = frontierSize;
+        this.generated = generated;
+        this.duplicates = duplicates;
+        this.uniqueConfigs = uniqueConfigs;
+        this.wallNanos = wallNanos;
+        this.retainedBytes = retainedBytes;
+    }
+
+    /**
+     * gets the depth of the level
+     * @return depth of the level
+     */
+    public int getDepth() { return depth; }
+
+    /**
+     * gets the configs expanded
+     * @return configs expanded
+     */
+    public long getFrontierSize() { return frontierSize; }
+
+    /**
+     * gets the configs generated
+     * @return configs generated
+     */
+    public long getGenerated() { return generated; }
+
+    /**
+     * gets the generated configs already seen
+     * @return generated configs already seen
+     */
+    public long getDuplicates() { return duplicates; }
+
+    /**
+     * gets the unique configs retained
+     * @return unique configs retained
+     */
+    public long getUniqueConfigs() { return uniqueConfigs; }
+
+    /**
+     * gets the wall clock nanoseconds spent
+     * @return wall clock nanoseconds spent
+     */
+    public long getWallNanos() { return wallNanos; }
+
+    /**
+     * gets the estimated bytes retained
+     * @return estimated bytes retained
+     */
+    public long getRetainedBytes() { return retainedBytes; }
+
+    /**
+     * gets the expansion rate
+     * @return configs expanded per second
+     */
+    public double getNodesPerSecond(){
+        return wallNanos == 0 ? 0 : frontierSize * 1e9 / wallNanos;
+    }
+
+    /**
+     * gets the estimated memory cost of each retained config
+     * @return retained bytes divided by unique configs
+     */
+    public long getBytesPerState(){
+        return uniqueConfigs == 0 ? 0 : retainedBytes / uniqueConfigs;
+    }
+
+    @Override
+    public String toString(){
+        return String.format("depth %d: frontier %,d, generated %,d, duplicates %,d, unique %,d, %.1f ms, %,.0f nodes/s, ~%,d bytes/state",
+                depth, frontierSize, generated, duplicates, uniqueConfigs, wallNanos / 1e6, getNodesPerSecond(), getBytesPerState());
+    }
+}
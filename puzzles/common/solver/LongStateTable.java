@@ -0,0 +1,233 @@
+package puzzles.common.solver;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressed visited set for encoded states. Every state is appended to
+ * a flat key log together with the index of its parent, so the table doubles
+ * as the predecessor map without creating an object per state.
+ * Callers may hand in their own hash for each state, but then every state of
+ * the table has to be added and looked up with one.
+ */
+public class LongStateTable {
+    /** marks a state without a parent */
+    public static final int NO_PARENT = -1;
+
+    /** longs per encoded state */
+    private final int width;
+
+    /** encoded states, in insertion order */
+    private long[] keys;
+
+    /** parent index of each state */
+    private int[] parents;
+
+    /** hash of each state, kept so growing never has to rehash the keys */
+    private int[] hashes;
+
+    /** hash slots holding state index + 1, 0 if empty */
+    private int[] slots;
+
+    /** number of states stored */
+    private int size;
+
+    /**
+     * Creates an empty table
+     *
+     * @param width longs per encoded state
+     * @param expected number of states expected, used for the initial capacity
+     */
+    public LongStateTable(int width, int expected){
+        this.width = width;
+        int capacity = Math.max(16, expected);
+        this.keys = new long[capacity * width];
+        this.parents = new int[capacity];
+        this.hashes = new int[capacity];
+        this.slots = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+        this.size = 0;
+    }
+
+    /**
+     * Creates an empty table with a small default capacity
+     *
+     * @param width longs per encoded state
+     */
+    public LongStateTable(int width){
+        this(width, 1 << 10);
+    }
+
+    /**
+     * gets the number of stored states
+     * @return number of states
+     */
+    public int size() { return size; }
+
+    /**
+     * gets the number of longs per state
+     * @return state width
+     */
+    public int width() { return width; }
+
+    /**
+     * Adds a state if it isn't already present
+     *
+     * @param key array holding the encoded state
+     * @param offset first index of the state
+     * @param parent index of the parent state, or NO_PARENT
+     * @return index of the new state, or -1 if it was already present
+     */
+    public int add(long[] key, int offset, int parent){
+        return add(key, offset, parent, hash(key, offset, width));
+    }
+
+    /**
+     * Adds a state with a hash the caller already knows if it isn't already present
+     *
+     * @param key array holding the encoded state
+     * @param offset first index of the state
+     * @param parent index of the parent state, or NO_PARENT
+     * @param hash hash of the state
+     * @return index of the new state, or -1 if it was already present
+     */
+    public int add(long[] key, int offset, int parent, int hash){
+        int slot = find(key, offset, hash);
+        if(slots[slot] != 0){
+            return -1;
+        }
+        if(size == parents.length){
+            int capacity = parents.length + (parents.length >> 1);
+            keys = Arrays.copyOf(keys, capacity * width);
+            parents = Arrays.copyOf(parents, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+        }
+        int index = size++;
+        System.arraycopy(key, offset, keys, index * width, width);
+        parents[index] = parent;
+        hashes[index] = hash;
+        slots[slot] = index + 1;
+        if(size * 2 > slots.length){
+            rehash();
+        }
+        return index;
+    }
+
+    /**
+     * Looks up a state
+     *
+     * @param key array holding the encoded state
+     * @param offset first index of the state
+     * @return index of the state, or -1 if absent
+     */
+    public int indexOf(long[] key, int offset){
+        return indexOf(key, offset, hash(key, offset, width));
+    }
+
+    /**
+     * Looks up a state by a hash the caller already knows
+     *
+     * @param key array holding the encoded state
+     * @param offset first index of the state
+     * @param hash hash of the state
+     * @return index of the state, or -1 if absent
+     */
+    public int indexOf(long[] key, int offset, int hash){
+        return slots[find(key, offset, hash)] - 1;
+    }
+
+    /**
+     * Copies a stored state out of the table
+     *
+     * @param index index of the state
+     * @param dest array to copy into
+     * @param offset first index to write
+     */
+    public void get(int index, long[] dest, int offset){
+        System.arraycopy(keys, index * width, dest, offset, width);
+    }
+
+    /**
+     * gets the parent of a stored state
+     * @param index index of the state
+     * @return parent index, or NO_PARENT for a root
+     */
+    public int parent(int index) { return parents[index]; }
+
+    /**
+     * Estimated number of bytes held by the table
+     * @return bytes used by the backing arrays
+     */
+    public long memoryBytes(){
+        return 8L * keys.length + 4L * parents.length + 4L * hashes.length + 4L * slots.length;
+    }
+
+    /**
+     * Finds the slot holding the key, or the empty slot where it belongs
+     */
+    private int find(long[] key, int offset, int hash){
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while(slots[slot] != 0 && !matches(slots[slot] - 1, key, offset, hash)){
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Does the stored state at index equal the given key?
+     */
+    private boolean matches(int index, long[] key, int offset, int hash){
+        if(hashes[index] != hash){
+            return false;
+        }
+        int base = index * width;
+        for(int i = 0; i < width; i++){
+            if(keys[base + i] != key[offset + i]){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Doubles the slot array and re-inserts every stored state
+     */
+    private void rehash(){
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for(int index = 0; index < size; index++){
+            int slot = hashes[index] & mask;
+            while(slots[slot] != 0){
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = index + 1;
+        }
+    }
+
+    /**
+     * Mixes the longs of an encoded state into a well spread hash
+     *
+     * @param key array holding the encoded state
+     * @param offset first index of the state
+     * @param width longs per state
+     * @return hash of the state
+     */
+    public static int hash(long[] key, int offset, int width){
+        long h = 0x9E3779B97F4A7C15L;
+        for(int i = 0; i < width; i++){
+            h = (h ^ key[offset + i]) * 0xBF58476D1CE4E5B9L;
+            h ^= h >>> 31;
+        }
+        h *= 0x94D049BB133111EBL;
+        return (int) (h ^ (h >>> 29) ^ (h >>> 32));
+    }
+
+    /**
+     * Folds an already well spread 64 bit hash, such as a Zobrist hash, into a table hash
+     *
+     * @param h the 64 bit hash
+     * @return hash of the state
+     */
+    public static int hash(long h){
+        return (int) (h ^ (h >>> 32));
+    }
+}
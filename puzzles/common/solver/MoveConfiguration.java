@@ -0,0 +1,52 @@
+package puzzles.common.solver;
+
+/**
+ * A configuration that changes in place. Legal moves are listed as int codes
+ * and applied or undone on this object, so a depth first search can walk the
+ * puzzle without building a new configuration for every node.
+ */
+public interface MoveConfiguration extends Configuration {
+    /**
+     * Largest number of moves getMoves can ever list for this puzzle.
+     *
+     * @return size the moves array passed to getMoves needs
+     */
+    int maxMoves();
+
+    /**
+     * Lists the moves that are legal from this configuration.
+     *
+     * @param moves array of at least maxMoves() entries to write the codes into
+     * @return number of moves written
+     */
+    int getMoves(int[] moves);
+
+    /**
+     * Plays a move on this configuration.
+     *
+     * @param move a code returned by getMoves for the current configuration
+     */
+    void applyMove(int move);
+
+    /**
+     * Takes back a move, restoring this configuration to what it was before applyMove.
+     *
+     * @param move the move most recently applied
+     */
+    void undoMove(int move);
+
+    /**
+     * Gets the move that cancels another one, so searches can skip stepping straight back.
+     *
+     * @param move a move code
+     * @return the code of the opposite move, or -1 if moves can't be reversed
+     */
+    int inverseMove(int move);
+
+    /**
+     * Gets an independent copy of this configuration.
+     *
+     * @return the copy
+     */
+    MoveConfiguration copy();
+}
@@ -0,0 +1,320 @@
+package puzzles.common.solver;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Open-addressed visited set for encoded states that keeps everything outside
+ * the Java heap, for searches too large for LongStateTable. States are appended
+ * to a log of fixed width records, each holding the encoded state, the index of
+ * its parent and its hash, and the hash slots hold log index + 1. Both live in
+ * direct buffers split into chunks, so indices are longs and the only heap
+ * objects are the chunk arrays themselves. A record never straddles two chunks.
+ *
+ * The log starts with room for the initial capacity and, when full, grows by
+ * the growth factor; the slots are doubled whenever they would be more than
+ * half used. The memory is given back once the table is no longer referenced.
+ *
+ * Direct buffers are capped by -XX:MaxDirectMemorySize, not by -Xmx, though
+ * the cap defaults to the maximum heap size. A table that outgrows it throws
+ * an OutOfMemoryError naming the flag and the bytes it was asking for, so
+ * large searches should raise it along with the heap.
+ */
+public class OffHeapStateTable {
+    /** marks a state without a parent */
+    public static final long NO_PARENT = -1;
+
+    /** largest single buffer, kept below the 2GB a ByteBuffer can address */
+    private static final int MAX_CHUNK_BYTES = 1 << 30;
+
+    /** slots per slot chunk, as a power of two */
+    private static final int SLOT_SHIFT = 27;
+
+    /** longs per encoded state */
+    private final int width;
+
+    /** bytes per record: the state, a long parent and an int hash */
+    private final int recordBytes;
+
+    /** records per log chunk, as a power of two */
+    private final int recordShift;
+
+    /** factor the log capacity is multiplied by when it is full */
+    private final double growthFactor;
+
+    /** the state log, in insertion order */
+    private ByteBuffer[] records;
+
+    /** number of records the log chunks have room for */
+    private long capacity;
+
+    /** hash slots holding state index + 1, 0 if empty */
+    private ByteBuffer[] slots;
+
+    /** number of hash slots, a power of two */
+    private long slotCount;
+
+    /** number of states stored */
+    private long size;
+
+    /**
+     * Creates an empty table
+     *
+     * @param width longs per encoded state
+     * @param initialCapacity number of states the log has room for before it first grows
+     * @param growthFactor factor the log capacity is multiplied by when it is full, more than 1
+     */
+    public OffHeapStateTable(int width, long initialCapacity, double growthFactor){
+        if(growthFactor <= 1){
+            throw new IllegalArgumentException("growth factor must be more than 1: " + growthFactor);
+        }
+        this.width = width;
+        this.recordBytes = 8 * width + 8 + 4;
+        this.growthFactor = growthFactor;
+        long wanted = Math.max(16, initialCapacity);
+        long perChunk = Math.min(Long.highestOneBit(wanted * 2 - 1), Integer.highestOneBit(MAX_CHUNK_BYTES / recordBytes));
+        this.recordShift = Long.numberOfTrailingZeros(perChunk);
+        this.records = new ByteBuffer[0];
+        this.capacity = 0;
+        growLog(wanted);
+        this.slotCount = 0;
+        this.slots = new ByteBuffer[0];
+        growSlots(Long.highestOneBit(wanted * 2 - 1) << 1);
+        this.size = 0;
+    }
+
+    /**
+     * Creates an empty table with a small default capacity that doubles as it fills
+     *
+     * @param width longs per encoded state
+     */
+    public OffHeapStateTable(int width){
+        this(width, 1 << 16, 2);
+    }
+
+    /**
+     * gets the number of stored states
+     * @return number of states
+     */
+    public long size() { return size; }
+
+    /**
+     * gets the number of longs per state
+     * @return state width
+     */
+    public int width() { return width; }
+
+    /**
+     * Adds a state if it isn't already present
+     *
+     * @param key array holding the encoded state
+     * @param offset first index of the state
+     * @param parent index of the parent state, or NO_PARENT
+     * @return index of the new state, or -1 if it was already present
+     */
+    public long add(long[] key, int offset, long parent){
+        return add(key, offset, parent, LongStateTable.hash(key, offset, width));
+    }
+
+    /**
+     * Adds a state with a hash the caller already knows if it isn't already present
+     *
+     * @param key array holding the encoded state
+     * @param offset first index of the state
+     * @param parent index of the parent state, or NO_PARENT
+     * @param hash hash of the state
+     * @return index of the new state, or -1 if it was already present
+     */
+    public long add(long[] key, int offset, long parent, int hash){
+        long slot = find(key, offset, hash);
+        if(slotAt(slot) != 0){
+            return -1;
+        }
+        if(size == capacity){
+            growLog((long) Math.ceil(capacity * growthFactor));
+        }
+        long index = size++;
+        ByteBuffer chunk = chunkOf(index);
+        int base = recordOffset(index);
+        for(int i = 0; i < width; i++){
+            chunk.putLong(base + 8 * i, key[offset + i]);
+        }
+        chunk.putLong(base + 8 * width, parent);
+        chunk.putInt(base + 8 * width + 8, hash);
+        setSlot(slot, index + 1);
+        if(size * 2 > slotCount){
+            growSlots(slotCount * 2);
+        }
+        return index;
+    }
+
+    /**
+     * Looks up a state
+     *
+     * @param key array holding the encoded state
+     * @param offset first index of the state
+     * @return index of the state, or -1 if absent
+     */
+    public long indexOf(long[] key, int offset){
+        return indexOf(key, offset, LongStateTable.hash(key, offset, width));
+    }
+
+    /**
+     * Looks up a state by a hash the caller already knows
+     *
+     * @param key array holding the encoded state
+     * @param offset first index of the state
+     * @param hash hash of the state
+     * @return index of the state, or -1 if absent
+     */
+    public long indexOf(long[] key, int offset, int hash){
+        return slotAt(find(key, offset, hash)) - 1;
+    }
+
+    /**
+     * Copies a stored state out of the table
+     *
+     * @param index index of the state
+     * @param dest array to copy into
+     * @param offset first index to write
+     */
+    public void get(long index, long[] dest, int offset){
+        ByteBuffer chunk = chunkOf(index);
+        int base = recordOffset(index);
+        for(int i = 0; i < width; i++){
+            dest[offset + i] = chunk.getLong(base + 8 * i);
+        }
+    }
+
+    /**
+     * gets the parent of a stored state
+     * @param index index of the state
+     * @return parent index, or NO_PARENT for a root
+     */
+    public long parent(long index) { return chunkOf(index).getLong(recordOffset(index) + 8 * width); }
+
+    /**
+     * Number of bytes held outside the heap by the table
+     * @return bytes of the log and slot buffers
+     */
+    public long memoryBytes(){
+        return capacity * recordBytes + slotCount * 8;
+    }
+
+    /**
+     * Finds the slot holding the key, or the empty slot where it belongs
+     */
+    private long find(long[] key, int offset, int hash){
+        long mask = slotCount - 1;
+        long slot = spread(hash) & mask;
+        long stored;
+        while((stored = slotAt(slot)) != 0 && !matches(stored - 1, key, offset, hash)){
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Does the stored state at index equal the given key?
+     */
+    private boolean matches(long index, long[] key, int offset, int hash){
+        ByteBuffer chunk = chunkOf(index);
+        int base = recordOffset(index);
+        if(chunk.getInt(base + 8 * width + 8) != hash){
+            return false;
+        }
+        for(int i = 0; i < width; i++){
+            if(chunk.getLong(base + 8 * i) != key[offset + i]){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds log chunks until there is room for at least the given number of records
+     */
+    private void growLog(long wanted){
+        long perChunk = 1L << recordShift;
+        int chunks = Math.toIntExact((wanted + perChunk - 1) >>> recordShift);
+        int old = records.length;
+        records = Arrays.copyOf(records, Math.max(chunks, old + 1));
+        for(int i = old; i < records.length; i++){
+            records[i] = allocate((int) (perChunk * recordBytes));
+        }
+        capacity = (long) records.length << recordShift;
+    }
+
+    /**
+     * Allocates a direct buffer, explaining how to raise the limit if direct memory runs out
+     */
+    private ByteBuffer allocate(int bytes){
+        try{
+            return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+        }
+        catch(OutOfMemoryError e){
+            OutOfMemoryError error = new OutOfMemoryError("Off-heap state table holding " + memoryBytes() + " bytes could not get "
+                    + bytes + " more (" + e.getMessage() + "); raise -XX:MaxDirectMemorySize, which defaults to the maximum heap size");
+            error.initCause(e);
+            throw error;
+        }
+    }
+
+    /**
+     * Replaces the slots with a larger set and re-inserts every stored state
+     * by the hash kept in its record
+     */
+    private void growSlots(long count){
+        int perChunk = (int) Math.min(count, 1L << SLOT_SHIFT);
+        slots = new ByteBuffer[Math.toIntExact(count / perChunk)];
+        for(int i = 0; i < slots.length; i++){
+            slots[i] = allocate(perChunk * 8);
+        }
+        slotCount = count;
+        long mask = count - 1;
+        for(long index = 0; index < size; index++){
+            long slot = spread(chunkOf(index).getInt(recordOffset(index) + 8 * width + 8)) & mask;
+            while(slotAt(slot) != 0){
+                slot = (slot + 1) & mask;
+            }
+            setSlot(slot, index + 1);
+        }
+    }
+
+    /**
+     * gets the log chunk holding a record
+     */
+    private ByteBuffer chunkOf(long index){
+        return records[(int) (index >>> recordShift)];
+    }
+
+    /**
+     * gets the byte offset of a record within its chunk
+     */
+    private int recordOffset(long index){
+        return (int) (index & ((1L << recordShift) - 1)) * recordBytes;
+    }
+
+    /**
+     * gets the contents of a slot
+     */
+    private long slotAt(long slot){
+        return slots[(int) (slot >>> SLOT_SHIFT)].getLong((int) (slot & ((1L << SLOT_SHIFT) - 1)) << 3);
+    }
+
+    /**
+     * sets the contents of a slot
+     */
+    private void setSlot(long slot, long value){
+        slots[(int) (slot >>> SLOT_SHIFT)].putLong((int) (slot & ((1L << SLOT_SHIFT) - 1)) << 3, value);
+    }
+
+    /**
+     * Widens an int hash to a slot position, so tables with more than 2^32
+     * slots still use every one of them
+     */
+    private static long spread(int hash){
+        return (hash & 0xFFFFFFFFL) | ((long) (hash * 0x9E3779B9) << 32);
+    }
+}
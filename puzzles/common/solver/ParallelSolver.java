@@ -0,0 +1,185 @@
+package puzzles.common.solver;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Level synchronous breadth first search that expands each frontier across a
+ * ForkJoinPool. A new config keeps the parent that plain BFS would have
+ * reached it from first, so the returned path is the same for any number of
+ * threads and matches Solver.solve.
+ */
+public class ParallelSolver {
+    /** frontier configs expanded by a single task */
+    private static final int CHUNK = 64;
+
+    /** number of worker threads */
+    private final int threads;
+
+    /** counters for configs generated, duplicates and expansions */
+    private final SolverStats stats;
+
+    /** every config reached so far */
+    private Set<Configuration> visited;
+
+    /**
+     * Creates a solver using the given number of threads
+     * @param threads worker threads, at least 1
+     */
+    public ParallelSolver(int threads){
+        if(threads < 1){ throw new IllegalArgumentException("threads must be at least 1: " + threads); }
+        this.threads = threads;
+        this.stats = new SolverStats();
+        this.visited = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Creates a solver using one thread per available processor
+     */
+    public ParallelSolver(){
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * gets total number of configurations
+     * @return returns total number of configs
+     */
+    public long getTotalConfigs() {return stats.getGenerated();}
+
+    /**
+     * gets the counters of the last search
+     * @return solver statistics
+     */
+    public SolverStats getStats() {return stats;}
+
+    /**
+     * Adds a listener told about every completed level
+     * @param listener listener to add
+     */
+    public void addListener(SolverListener listener) {stats.addListener(listener);}
+
+    /**
+     * gets number of unique configurations
+     * @return returns total number of unique configs
+     */
+    public int getUniqueConfigs() {return visited.size();}
+
+    /**
+     * Attempts to solve the puzzle
+     *
+     * @param start starting configuration
+     * @return A solution path, or null if no solution
+     */
+    public Collection<Configuration> solve(Configuration start){
+        Set<Configuration> visited = ConcurrentHashMap.newKeySet();
+        this.visited = visited;
+        stats.start();
+        visited.add(start); stats.generated();
+
+        // every level's configs, and for each one the index of its parent in the level before
+        List<Configuration[]> levels = new ArrayList<>();
+        List<int[]> parents = new ArrayList<>();
+        levels.add(new Configuration[]{start});
+        parents.add(new int[]{-1});
+        if(start.isGoal()){
+            stats.finish(visited.size(), -1);
+            return buildPath(levels, parents, 0);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try{
+            while(true){
+                Configuration[] frontier = levels.get(levels.size() - 1);
+
+                // each new config maps to (parent index << 32 | neighbor index), keeping the smallest
+                ConcurrentHashMap<Configuration, Long> claims = new ConcurrentHashMap<>();
+                long generatedBefore = stats.getGenerated();
+                pool.invoke(new Expand(frontier, 0, frontier.length, claims));
+                stats.expanded(frontier.length);
+                stats.duplicates(stats.getGenerated() - generatedBefore - claims.size());
+                if(claims.isEmpty()){
+                    stats.endLevel(visited.size(), -1);
+                    stats.finish(visited.size(), -1);
+                    return null;
+                }
+
+                // orders the level the way a sequential queue would have
+                List<Map.Entry<Configuration, Long>> entries = pool.submit(() ->
+                        claims.entrySet().parallelStream().sorted(Map.Entry.comparingByValue()).toList()).join();
+                Configuration[] level = new Configuration[entries.size()];
+                int[] levelParents = new int[entries.size()];
+                int goal = -1;
+                for(int i = 0; i < level.length; i++){
+                    level[i] = entries.get(i).getKey();
+                    levelParents[i] = (int) (entries.get(i).getValue() >>> 32);
+                    if(goal < 0 && level[i].isGoal()){ goal = i; }
+                }
+                visited.addAll(claims.keySet());
+                levels.add(level);
+                parents.add(levelParents);
+                stats.endLevel(visited.size(), -1);
+                if(goal >= 0){
+                    stats.finish(visited.size(), -1);
+                    return buildPath(levels, parents, goal);
+                }
+            }
+        }
+        finally{
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Follows the parent indices from a config in the last level back to the start
+     */
+    private static LinkedList<Configuration> buildPath(List<Configuration[]> levels, List<int[]> parents, int index){
+        LinkedList<Configuration> path = new LinkedList<>();
+        for(int depth = levels.size() - 1; depth >= 0; depth--){
+            path.addFirst(levels.get(depth)[index]);
+            index = parents.get(depth)[index];
+        }
+        return path;
+    }
+
+    /**
+     * Expands a slice of the frontier, splitting it while it is large
+     */
+    private class Expand extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Configuration[] frontier;
+        private final int from;
+        private final int to;
+        private final ConcurrentHashMap<Configuration, Long> claims;
+
+        Expand(Configuration[] frontier, int from, int to, ConcurrentHashMap<Configuration, Long> claims){
+            this.frontier = frontier; this.from = from; this.to = to; this.claims = claims;
+        }
+
+        @Override
+        protected void compute(){
+            if(to - from > CHUNK){
+                int middle = (from + to) >>> 1;
+                invokeAll(new Expand(frontier, from, middle, claims), new Expand(frontier, middle, to, claims));
+                return;
+            }
+            long generated = 0;
+            // counts the neighbors of the config being expanded, low 32 bits, under its index, high 32 bits
+            long[] claim = new long[1];
+            for(int i = from; i < to; i++){
+                claim[0] = (long) i << 32;
+                frontier[i].forEachNeighbor(neighbor ->{
+                    if(!visited.contains(neighbor)){
+                        claims.merge(neighbor, claim[0], Math::min);
+                    }
+                    claim[0]++;
+                    return true;
+                });
+                generated += (int) claim[0];
+            }
+            stats.generated(generated);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package puzzles.common.solver;
+
+import java.io.PrintStream;
+
+/**
+ * Listener that prints one line per level and a summary line
+ */
+public class PrintingSolverListener implements SolverListener {
+    /** where the lines go */
+    private final PrintStream out;
+
+    /**
+     * Creates a listener printing to the given stream
+     * @param out stream to print to
+     */
+    public PrintingSolverListener(PrintStream out) { this.out = out; }
+
+    /**
+     * Creates a listener printing to standard error
+     */
+    public PrintingSolverListener() { this(System.err); }
+
+    @Override
+    public void levelCompleted(LevelStats level) {
+        out.println("[solver] " + level);
+    }
+
+    @Override
+    public void searchFinished(LevelStats total) {
+        out.println("[solver] total " + total);
+    }
+}
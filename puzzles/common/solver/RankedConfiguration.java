@@ -0,0 +1,44 @@
+package puzzles.common.solver;
+
+/**
+ * A configuration whose puzzle has a known number of states, each with its own
+ * rank from 0 up to that number. Solvers use the rank as an index into flat
+ * arrays, so a visited state costs a few bits instead of a table entry. Ranks
+ * may also be given to boards that can never be reached.
+ */
+public interface RankedConfiguration extends Configuration {
+    /**
+     * Number of ranks this puzzle uses. Every configuration of the same puzzle
+     * must report the same count.
+     *
+     * @return one more than the largest rank, or Long.MAX_VALUE if that can't be counted in a long
+     */
+    long stateCount();
+
+    /**
+     * Gets the rank of this configuration.
+     *
+     * @return a number from 0 up to stateCount, different for every configuration
+     */
+    long rank();
+
+    /**
+     * Rebuilds a configuration of the same puzzle from its rank.
+     * Puzzle wide data (board size, capacities, ...) comes from this object.
+     *
+     * @param rank a rank returned by rank
+     * @return the configuration with that rank
+     */
+    RankedConfiguration unrank(long rank);
+
+    /**
+     * Can every move be undone by another move? The neighbors of a reversible
+     * configuration are then also its predecessors, which lets a solver keep
+     * less about each state.
+     *
+     * @return true if every move has an opposite move
+     */
+    default boolean isReversible() {
+        return false;
+    }
+}
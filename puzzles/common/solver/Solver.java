@@ -3,14 +3,23 @@ package puzzles.common.solver;
 import java.util.*;
 
 public class Solver {
-    /** total number of configs generated */
-    private int totalConfigs;
+    /** counters for configs generated, duplicates and expansions */
+    private final SolverStats stats;
 
     /** Map of configurations */
     private HashMap<Configuration, Configuration> predecessorMap;
 
+    /** visited states of the last compact solve, null if solve was used */
+    private LongStateTable stateTable;
+
+    /** depth labels of the last ranked solve, null if another solve was used */
+    private StateLabels stateLabels;
+
+    /** visited states of the last off-heap solve, null if another solve was used */
+    private OffHeapStateTable offHeapTable;
+
     public Solver(){
-        this.totalConfigs = 0;
+        this.stats = new SolverStats();
         this.predecessorMap = new HashMap<>();
     }
 
@@ -18,13 +27,35 @@ public class Solver {
      * gets total number of configurations
      * @return returns total number of configs
      */
-    public int getTotalConfigs() {return this.totalConfigs;}
+    public long getTotalConfigs() {return this.stats.getGenerated();}
+
+    /**
+     * gets number of configurations expanded
+     * @return returns number of expanded configs
+     */
+    public long getExpandedConfigs() {return this.stats.getExpanded();}
+
+    /**
+     * gets the counters of the last search
+     * @return solver statistics
+     */
+    public SolverStats getStats() {return this.stats;}
+
+    /**
+     * Adds a listener told about every completed level
+     * @param listener listener to add
+     */
+    public void addListener(SolverListener listener) {this.stats.addListener(listener);}
 
     /**
      * gets number of unique configurations
      * @return returns total number of unique configs
      */
-    public int getUniqueConfigs(){return this.predecessorMap.size();}
+    public int getUniqueConfigs(){
+        if(this.offHeapTable != null){ return (int) Math.min(Integer.MAX_VALUE, this.offHeapTable.size()); }
+        if(this.stateLabels != null){ return (int) this.stateLabels.size(); }
+        return this.stateTable != null ? this.stateTable.size() : this.predecessorMap.size();
+    }
 
     /**
      * Attempts to solve the puzzle
@@ -36,66 +67,435 @@ public class Solver {
         //Creates Hashmap of Configurations
         HashMap<Configuration, Configuration> predecessorMap = new HashMap<>();
         this.predecessorMap = predecessorMap;
+        this.stateTable = null;
+        this.stateLabels = null;
+        this.offHeapTable = null;
+        stats.start();
 
         // starts with map putting start config inside
-        predecessorMap.put(start,null); totalConfigs++;
+        predecessorMap.put(start,null); stats.generated();
         Queue<Configuration> queue = new LinkedList<>();
         queue.add(start);
-        Configuration solution = start;
+        Configuration[] solution = {start.isGoal() ? start : null};
+        int levelRemaining = 1;
 
         // loops through until end is found or until queue is empty
-        while(!queue.isEmpty()){
+        while(solution[0] == null && !queue.isEmpty()){
             Configuration current = queue.remove();
-            if(!current.isGoal()){
-                current.getNeighbors().forEach(neighbor ->{
-                    totalConfigs++;
-                    if(!predecessorMap.containsKey(neighbor)){
-                        queue.add(neighbor);
-                        predecessorMap.put(neighbor,current);
+            stats.expanded();
+            // a goal is caught as soon as it is generated, which ends the expansion early
+            current.forEachNeighbor(neighbor ->{
+                stats.generated();
+                if(predecessorMap.containsKey(neighbor)){
+                    stats.duplicate();
+                    return true;
+                }
+                queue.add(neighbor);
+                predecessorMap.put(neighbor,current);
+                if(neighbor.isGoal()){
+                    solution[0] = neighbor;
+                    return false;
+                }
+                return true;
+            });
+            // the queue holds exactly the next level once the current one is used up
+            if(--levelRemaining == 0){
+                stats.endLevel(predecessorMap.size(), -1);
+                levelRemaining = queue.size();
+            }
+        }
+        stats.finish(predecessorMap.size(), -1);
+        if(solution[0] == null){ return null; }
+
+        return pathTo(predecessorMap, solution[0]);
+    }
+
+    /**
+     * Attempts to solve the puzzle keeping every explored state encoded in a
+     * primitive table. Configurations are only rebuilt to be expanded and to
+     * form the final path. Puzzles that can move in place are expanded move
+     * by move, so a successor is encoded and looked up without ever being
+     * copied, and only new ones are kept at all.
+     * Symmetric puzzles keep one entry per class of symmetric states, under
+     * its canonical encoding, and the path is replayed from the real start.
+     *
+     * @param start starting configuration
+     * @return A solution path, or null if no solution
+     */
+    public Collection<Configuration> solveCompact(EncodableConfiguration start){
+        int width = start.encodedLength();
+        LongStateTable table = new LongStateTable(width);
+        this.stateTable = table;
+        this.stateLabels = null;
+        this.offHeapTable = null;
+        this.predecessorMap = new HashMap<>();
+        stats.start();
+        long[] key = new long[width];
+        int[] moves = start instanceof MoveConfiguration ? new int[((MoveConfiguration) start).maxMoves()] : null;
+
+        // starts with the encoded start config as the only root
+        IntRingBuffer queue = new IntRingBuffer();
+        queue.add(table.add(key, 0, LongStateTable.NO_PARENT, encodeState(start, key))); stats.generated();
+        int[] solution = {start.isGoal() ? 0 : -1};
+        int levelRemaining = 1;
+
+        // loops through until end is found or until queue is empty
+        while(solution[0] < 0 && !queue.isEmpty()){
+            int index = queue.remove();
+            table.get(index, key, 0);
+            Configuration current = start.decode(key, 0);
+            stats.expanded();
+            if(moves != null){
+                solution[0] = expandInPlace((MoveConfiguration) current, index, table, queue, key, moves);
+            }
+            else{
+                current.forEachNeighbor(neighbor ->{
+                    stats.generated();
+                    int added = table.add(key, 0, index, encodeState(neighbor, key));
+                    if(added < 0){
+                        stats.duplicate();
+                        return true;
                     }
+                    queue.add(added);
+                    if(neighbor.isGoal()){
+                        solution[0] = added;
+                        return false;
+                    }
+                    return true;
                 });
             }
-            else{
-                solution = current;
-                break;
+            if(--levelRemaining == 0){
+                stats.endLevel(table.size(), table.memoryBytes());
+                levelRemaining = queue.size();
             }
         }
-        if(queue.isEmpty()){
-            if(solution.isGoal()){
-                Collection<Configuration> path = new LinkedList<>();
-                HashMap<Integer, Configuration> tmp = new HashMap<>();
-                int num = 1;
-                Configuration config = predecessorMap.get(solution);
-                while(config!=null){
-                    tmp.put(num,config);
-                    config = predecessorMap.get(config);
-                    num++;
-                }
-                for(int i=num-1;i>0;i--){
-                    path.add(tmp.get(i));
-                }
-                path.add(solution);
+        stats.finish(table.size(), table.memoryBytes());
+        if(solution[0] < 0){ return null; }
 
-                return path;
+        if(start instanceof SymmetricConfiguration){ return replayPath(table, solution[0], (SymmetricConfiguration) start); }
+        return pathTo(table, solution[0], start);
+    }
+
+    /**
+     * Attempts to solve the puzzle with a label for every rank in place of a
+     * visited table. A state's label is its depth, counted modulo 3 in two bits
+     * for reversible puzzles and modulo 255 in a byte for the rest, with 0 left
+     * for unseen states. The path is walked back from the goal through the
+     * predecessors whose label is one depth less. Neighbors of a reversible
+     * puzzle are never more than one depth apart, so two bits tell them apart;
+     * for the rest a byte does while the goal is less than 255 moves deep,
+     * and deeper searches start over with solve.
+     *
+     * @param start starting configuration, a BidirectionalConfiguration unless it is reversible
+     * @return A solution path, or null if no solution
+     */
+    public Collection<Configuration> solveRanked(RankedConfiguration start){
+        boolean reversible = start.isReversible();
+        if(!reversible && !(start instanceof BidirectionalConfiguration)){
+            throw new IllegalArgumentException("paths can only be walked back through reversible or bidirectional puzzles");
+        }
+        int modulus = reversible ? 3 : 255;
+        StateLabels labels = new StateLabels(start.stateCount(), reversible ? 2 : 8);
+        this.stateLabels = labels;
+        this.stateTable = null;
+        this.offHeapTable = null;
+        this.predecessorMap = new HashMap<>();
+        stats.start();
+
+        labels.set(start.rank(), 1); stats.generated();
+        Configuration[] solution = {start.isGoal() ? start : null};
+        long[][] levels = {{start.rank()}, new long[16]};
+        int frontier = 1;
+        int depth = 0;
+
+        // expands one whole level at a time, collecting the ranks of the next
+        while(solution[0] == null && frontier > 0){
+            if(!reversible && depth + 1 == modulus){
+                stats.finish(labels.size(), labels.memoryBytes());
+                return solve(start);
             }
-            return null;
+            int label = (depth + 1) % modulus + 1;
+            int[] next = {0};
+            for(int i = 0; i < frontier && solution[0] == null; i++){
+                stats.expanded();
+                start.unrank(levels[0][i]).forEachNeighbor(neighbor ->{
+                    stats.generated();
+                    long rank = ((RankedConfiguration) neighbor).rank();
+                    if(labels.get(rank) != 0){
+                        stats.duplicate();
+                        return true;
+                    }
+                    labels.set(rank, label);
+                    if(next[0] == levels[1].length){ levels[1] = Arrays.copyOf(levels[1], next[0] * 2); }
+                    levels[1][next[0]++] = rank;
+                    if(neighbor.isGoal()){
+                        solution[0] = neighbor;
+                        return false;
+                    }
+                    return true;
+                });
+            }
+            stats.endLevel(labels.size(), labels.memoryBytes());
+            long[] expanded = levels[0];
+            levels[0] = levels[1];
+            levels[1] = expanded;
+            frontier = next[0];
+            depth++;
         }
-        else{
-            Collection<Configuration> path = new LinkedList<>();
-            HashMap<Integer, Configuration> tmp = new HashMap<>();
-            int num = 1;
-            Configuration config = predecessorMap.get(solution);
-            while(config!=null){
-                tmp.put(num,config);
-                config = predecessorMap.get(config);
-                num++;
+        stats.finish(labels.size(), labels.memoryBytes());
+        if(solution[0] == null){ return null; }
+
+        // depth now counts the levels to the goal, 0 if the start is one
+        LinkedList<Configuration> path = new LinkedList<>();
+        Configuration current = solution[0];
+        path.addFirst(current);
+        for(int d = depth; d > 0; d--){
+            int label = (d - 1) % modulus + 1;
+            Collection<Configuration> candidates = reversible ? current.getNeighbors() : ((BidirectionalConfiguration) current).getPredecessors();
+            for(Configuration candidate : candidates){
+                if(labels.get(((RankedConfiguration) candidate).rank()) == label){
+                    current = candidate;
+                    break;
+                }
             }
-            for(int i=num-1;i>0;i--){
-                path.add(tmp.get(i));
+            path.addFirst(current);
+        }
+        return path;
+    }
+
+    /**
+     * Attempts to solve the puzzle keeping every explored state encoded in an
+     * off-heap table, for searches with more states than the heap can hold.
+     * The table's state log is in breadth first order, so it doubles as the
+     * queue and nothing per state is kept on the heap. Puzzles that can move
+     * in place are expanded move by move, as in solveCompact. Searching a
+     * puzzle with no solution enumerates every state reachable from the start.
+     * The table's direct buffers are capped by -XX:MaxDirectMemorySize rather
+     * than -Xmx, so large searches should raise both; running out throws an
+     * OutOfMemoryError saying so.
+     *
+     * @param start starting configuration
+     * @param initialCapacity number of states the table has room for before it first grows
+     * @param growthFactor factor the table's capacity is multiplied by when it is full
+     * @return A solution path, or null if no solution
+     */
+    public Collection<Configuration> solveOffHeap(EncodableConfiguration start, long initialCapacity, double growthFactor){
+        int width = start.encodedLength();
+        OffHeapStateTable table = new OffHeapStateTable(width, initialCapacity, growthFactor);
+        this.offHeapTable = table;
+        this.stateTable = null;
+        this.stateLabels = null;
+        this.predecessorMap = new HashMap<>();
+        stats.start();
+        long[] key = new long[width];
+        int[] moves = start instanceof MoveConfiguration ? new int[((MoveConfiguration) start).maxMoves()] : null;
+
+        // starts with the encoded start config as the only root
+        start.encode(key, 0);
+        table.add(key, 0, OffHeapStateTable.NO_PARENT, stateHash(start, key)); stats.generated();
+        long[] solution = {start.isGoal() ? 0 : -1};
+        long levelEnd = 1;
+
+        // the states between the head and the end of the log are the queue
+        for(long head = 0; solution[0] < 0 && head < table.size(); head++){
+            long index = head;
+            table.get(index, key, 0);
+            Configuration current = start.decode(key, 0);
+            stats.expanded();
+            if(moves != null){
+                MoveConfiguration moving = (MoveConfiguration) current;
+                int count = moving.getMoves(moves);
+                for(int i = 0; i < count && solution[0] < 0; i++){
+                    moving.applyMove(moves[i]);
+                    stats.generated();
+                    ((EncodableConfiguration) moving).encode(key, 0);
+                    long added = table.add(key, 0, index, stateHash(moving, key));
+                    if(added < 0){ stats.duplicate(); }
+                    else if(moving.isGoal()){ solution[0] = added; }
+                    moving.undoMove(moves[i]);
+                }
+            }
+            else{
+                current.forEachNeighbor(neighbor ->{
+                    stats.generated();
+                    ((EncodableConfiguration) neighbor).encode(key, 0);
+                    long added = table.add(key, 0, index, stateHash(neighbor, key));
+                    if(added < 0){
+                        stats.duplicate();
+                        return true;
+                    }
+                    if(neighbor.isGoal()){
+                        solution[0] = added;
+                        return false;
+                    }
+                    return true;
+                });
+            }
+            if(head + 1 == levelEnd){
+                stats.endLevel(table.size(), table.memoryBytes());
+                levelEnd = table.size();
+            }
+        }
+        stats.finish(table.size(), table.memoryBytes());
+        if(solution[0] < 0){ return null; }
+
+        return pathTo(table, solution[0], start);
+    }
+
+    /**
+     * Attempts to solve the puzzle with an off-heap table that starts with room
+     * for 65536 states and doubles whenever it is full
+     *
+     * @param start starting configuration
+     * @return A solution path, or null if no solution
+     */
+    public Collection<Configuration> solveOffHeap(EncodableConfiguration start){
+        return solveOffHeap(start, 1 << 16, 2);
+    }
+
+    /**
+     * Follows the predecessors back from a goal to the start
+     *
+     * @param predecessorMap each config mapped to the config it was reached from, the start to null
+     * @param goal the config the path ends at
+     * @return the path from the start to the goal
+     */
+    public static LinkedList<Configuration> pathTo(Map<Configuration, Configuration> predecessorMap, Configuration goal){
+        LinkedList<Configuration> path = new LinkedList<>();
+        for(Configuration config = goal; config != null; config = predecessorMap.get(config)){
+            path.addFirst(config);
+        }
+        return path;
+    }
+
+    /**
+     * Walks the parent indices of a state table back from a goal to the start, decoding each state
+     *
+     * @param table table holding the encoded states
+     * @param goal index of the state the path ends at
+     * @param puzzle any config of the puzzle, used to decode the states
+     * @return the path from the start to the goal
+     */
+    public static LinkedList<Configuration> pathTo(LongStateTable table, int goal, EncodableConfiguration puzzle){
+        long[] key = new long[table.width()];
+        LinkedList<Configuration> path = new LinkedList<>();
+        for(int index = goal; index != LongStateTable.NO_PARENT; index = table.parent(index)){
+            table.get(index, key, 0);
+            path.addFirst(puzzle.decode(key, 0));
+        }
+        return path;
+    }
+
+    /**
+     * Rebuilds a path through a table of canonical encodings. The parent
+     * indices give the class of every state along the path, and the path is
+     * played again from the real start, each step taking the first neighbor
+     * in the next class, so every step is a real move from the one before.
+     *
+     * @param table table holding the canonical encodings
+     * @param goal index of the class the path ends in
+     * @param start the configuration the search started from
+     * @return the path from the start to a goal
+     */
+    public static LinkedList<Configuration> replayPath(LongStateTable table, int goal, SymmetricConfiguration start){
+        int width = table.width();
+        LinkedList<Integer> classes = new LinkedList<>();
+        for(int index = goal; table.parent(index) != LongStateTable.NO_PARENT; index = table.parent(index)){
+            classes.addFirst(index);
+        }
+        long[] wanted = new long[width];
+        long[] key = new long[width];
+        LinkedList<Configuration> path = new LinkedList<>();
+        Configuration[] step = {start};
+        path.add(start);
+        for(int index : classes){
+            table.get(index, wanted, 0);
+            step[0].forEachNeighbor(neighbor ->{
+                ((SymmetricConfiguration) neighbor).encodeCanonical(key, 0);
+                if(!Arrays.equals(key, wanted)){ return true; }
+                step[0] = neighbor;
+                return false;
+            });
+            path.add(step[0]);
+        }
+        return path;
+    }
+
+    /**
+     * Walks the parent indices of an off-heap state table back from a goal to the start, decoding each state
+     *
+     * @param table table holding the encoded states
+     * @param goal index of the state the path ends at
+     * @param puzzle any config of the puzzle, used to decode the states
+     * @return the path from the start to the goal
+     */
+    public static LinkedList<Configuration> pathTo(OffHeapStateTable table, long goal, EncodableConfiguration puzzle){
+        long[] key = new long[table.width()];
+        LinkedList<Configuration> path = new LinkedList<>();
+        for(long index = goal; index != OffHeapStateTable.NO_PARENT; index = table.parent(index)){
+            table.get(index, key, 0);
+            path.addFirst(puzzle.decode(key, 0));
+        }
+        return path;
+    }
+
+    /**
+     * Expands a config by playing each move on it, recording the states not
+     * seen before and taking the move back again
+     *
+     * @param current config to expand, left as it was
+     * @param index table index of current
+     * @param table visited states
+     * @param queue indices waiting to be expanded
+     * @param key scratch array for the encoded successor
+     * @param moves scratch array for the move codes
+     * @return table index of a goal that was reached, or -1
+     */
+    private int expandInPlace(MoveConfiguration current, int index, LongStateTable table, IntRingBuffer queue, long[] key, int[] moves){
+        int count = current.getMoves(moves);
+        for(int i = 0; i < count; i++){
+            current.applyMove(moves[i]);
+            stats.generated();
+            int added = table.add(key, 0, index, encodeState(current, key));
+            boolean goal = added >= 0 && current.isGoal();
+            current.undoMove(moves[i]);
+            if(added < 0){ stats.duplicate(); }
+            else{
+                queue.add(added);
+                if(goal){ return added; }
             }
-            path.add(solution);
+        }
+        return -1;
+    }
+
+    /**
+     * Encodes a config for the visited table, canonically when the puzzle is symmetric
+     *
+     * @param config the config
+     * @param key array to write the encoded config into
+     * @return hash to file it under
+     */
+    private static int encodeState(Configuration config, long[] key){
+        if(config instanceof SymmetricConfiguration){
+            // a Zobrist hash belongs to the config itself, not to its class
+            ((SymmetricConfiguration) config).encodeCanonical(key, 0);
+            return LongStateTable.hash(key, 0, key.length);
+        }
+        ((EncodableConfiguration) config).encode(key, 0);
+        return stateHash(config, key);
+    }
 
-            return path;
+    /**
+     * Gets the table hash of an encoded config, using its Zobrist hash when it keeps one
+     *
+     * @param config the config
+     * @param key the encoded config
+     * @return hash to file it under
+     */
+    private static int stateHash(Configuration config, long[] key){
+        if(config instanceof ZobristConfiguration){
+            return LongStateTable.hash(((ZobristConfiguration) config).zobristHash());
         }
+        return LongStateTable.hash(key, 0, key.length);
     }
 }
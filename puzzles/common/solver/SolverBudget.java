@@ -0,0 +1,49 @@
+package puzzles.common.solver;
+
+/**
+ * Limits on how much a search may spend before it gives up
+ */
+public class SolverBudget {
+    /** a budget that never runs out */
+    public static final SolverBudget UNLIMITED = new SolverBudget(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+
+    /** wall clock milliseconds the search may run for */
+    private final long timeMillis;
+
+    /** configurations the search may expand */
+    private final long maxNodes;
+
+    /** bytes of heap the search may grow by */
+    private final long maxBytes;
+
+    /**
+     * Creates a budget. Use Long.MAX_VALUE for any limit that shouldn't apply.
+     *
+     * @param timeMillis wall clock milliseconds the search may run for
+     * @param maxNodes configurations the search may expand
+     * @param maxBytes bytes of heap the search may grow by
+     */
+    public SolverBudget(long timeMillis, long maxNodes, long maxBytes) {
+        this.timeMillis = timeMillis;
+        this.maxNodes = maxNodes;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * gets the time limit
+     * @return wall clock milliseconds the search may run for
+     */
+    public long getTimeMillis() { return timeMillis; }
+
+    /**
+     * gets the node limit
+     * @return configurations the search may expand
+     */
+    public long getMaxNodes() { return maxNodes; }
+
+    /**
+     * gets the memory limit
+     * @return bytes of heap the search may grow by
+     */
+    public long getMaxBytes() { return maxBytes; }
+}
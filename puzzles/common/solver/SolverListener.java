@@ -0,0 +1,21 @@
+package puzzles.common.solver;
+
+/**
+ * Receives progress reports from a running solver. Callbacks arrive on the
+ * thread driving the search, so implementations should return quickly.
+ */
+public interface SolverListener {
+    /**
+     * Called after the solver finishes expanding one level of the search.
+     *
+     * @param level statistics for the level just completed
+     */
+    void levelCompleted(LevelStats level);
+
+    /**
+     * Called once when the search stops, whether or not a solution was found.
+     *
+     * @param total statistics for the whole search, depth is the deepest level reached
+     */
+    default void searchFinished(LevelStats total) {}
+}
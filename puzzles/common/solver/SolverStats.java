@@ -0,0 +1,174 @@
+package puzzles.common.solver;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters shared by the solvers. Workers bump the counters from any thread;
+ * the thread driving the search closes levels and notifies the listeners.
+ *
+ * Setting the system property puzzles.solver.stats to true prints every
+ * level to standard error, which works for the command line mains and for
+ * the hints given by the models alike.
+ */
+public class SolverStats {
+    /** configs generated, including the start */
+    private final LongAdder generated = new LongAdder();
+
+    /** generated configs that had already been seen */
+    private final LongAdder duplicates = new LongAdder();
+
+    /** configs expanded */
+    private final LongAdder expanded = new LongAdder();
+
+    /** who gets told about finished levels */
+    private final List<SolverListener> listeners = new CopyOnWriteArrayList<>();
+
+    /** deepest level closed so far */
+    private int depth;
+
+    /** counter values and clock when the search and the current level started */
+    private long searchStartNanos;
+    private long searchStartHeap;
+    private long levelStartNanos;
+    private long levelStartGenerated;
+    private long levelStartDuplicates;
+    private long levelStartExpanded;
+
+    public SolverStats(){
+        if(Boolean.getBoolean("puzzles.solver.stats")){
+            listeners.add(new PrintingSolverListener());
+        }
+        start();
+    }
+
+    /**
+     * Adds a listener
+     * @param listener listener to notify about levels
+     */
+    public void addListener(SolverListener listener) { listeners.add(listener); }
+
+    /**
+     * Removes a listener
+     * @param listener listener to stop notifying
+     */
+    public void removeListener(SolverListener listener) { listeners.remove(listener); }
+
+    /**
+     * Resets every counter for a new search
+     */
+    public void start(){
+        generated.reset();
+        duplicates.reset();
+        expanded.reset();
+        depth = 0;
+        searchStartNanos = System.nanoTime();
+        searchStartHeap = usedHeap();
+        levelStartNanos = searchStartNanos;
+        levelStartGenerated = 0;
+        levelStartDuplicates = 0;
+        levelStartExpanded = 0;
+    }
+
+    /** Counts one generated config */
+    public void generated() { generated.increment(); }
+
+    /**
+     * Counts several generated configs
+     * @param count number of configs
+     */
+    public void generated(long count) { generated.add(count); }
+
+    /** Counts one generated config that had already been seen */
+    public void duplicate() { duplicates.increment(); }
+
+    /**
+     * Counts several generated configs that had already been seen
+     * @param count number of configs
+     */
+    public void duplicates(long count) { duplicates.add(count); }
+
+    /** Counts one expanded config */
+    public void expanded() { expanded.increment(); }
+
+    /**
+     * Counts several expanded configs
+     * @param count number of configs
+     */
+    public void expanded(long count) { expanded.add(count); }
+
+    /**
+     * gets the configs generated so far
+     * @return configs generated so far
+     */
+    public long getGenerated() { return generated.sum(); }
+
+    /**
+     * gets the duplicate configs so far
+     * @return duplicate configs so far
+     */
+    public long getDuplicates() { return duplicates.sum(); }
+
+    /**
+     * gets the configs expanded so far
+     * @return configs expanded so far
+     */
+    public long getExpanded() { return expanded.sum(); }
+
+    /**
+     * Closes the current level and tells the listeners about it
+     *
+     * @param uniqueConfigs unique configs retained so far
+     * @param retainedBytes bytes the solver retains, or -1 to estimate from the heap
+     * @return statistics of the closed level
+     */
+    public LevelStats endLevel(long uniqueConfigs, long retainedBytes){
+        long now = System.nanoTime();
+        long generatedNow = generated.sum();
+        long duplicatesNow = duplicates.sum();
+        long expandedNow = expanded.sum();
+        LevelStats level = new LevelStats(depth++, expandedNow - levelStartExpanded,
+                generatedNow - levelStartGenerated, duplicatesNow - levelStartDuplicates,
+                uniqueConfigs, now - levelStartNanos, retained(retainedBytes));
+        levelStartNanos = now;
+        levelStartGenerated = generatedNow;
+        levelStartDuplicates = duplicatesNow;
+        levelStartExpanded = expandedNow;
+        for(SolverListener listener : listeners){
+            listener.levelCompleted(level);
+        }
+        return level;
+    }
+
+    /**
+     * Ends the search and tells the listeners about the totals
+     *
+     * @param uniqueConfigs unique configs retained
+     * @param retainedBytes bytes the solver retains, or -1 to estimate from the heap
+     * @return statistics of the whole search
+     */
+    public LevelStats finish(long uniqueConfigs, long retainedBytes){
+        LevelStats total = new LevelStats(depth, expanded.sum(), generated.sum(), duplicates.sum(),
+                uniqueConfigs, System.nanoTime() - searchStartNanos, retained(retainedBytes));
+        for(SolverListener listener : listeners){
+            listener.searchFinished(total);
+        }
+        return total;
+    }
+
+    /**
+     * Uses the given byte count, or the heap growth since the search started
+     */
+    private long retained(long retainedBytes){
+        return retainedBytes >= 0 ? retainedBytes : Math.max(0, usedHeap() - searchStartHeap);
+    }
+
+    /**
+     * gets the heap currently in use
+     */
+    private static long usedHeap(){
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,258 @@
+package puzzles.common.solver;
+
+import java.util.*;
+
+/**
+ * A breadth first search that advances in bounded steps. Callers drive it
+ * with step or stepLevel, may cancel it from another thread, and can read
+ * its progress at any time. A search that runs past its budget stops with a
+ * status saying why instead of blocking or running out of memory.
+ */
+public class SolverTask {
+    /** how a search stands */
+    public enum Status {
+        /** still searching */
+        RUNNING,
+        /** a solution path was found */
+        SOLVED,
+        /** every reachable configuration was searched without finding a goal */
+        NO_SOLUTION,
+        /** cancel was called */
+        CANCELLED,
+        /** the time limit passed */
+        OUT_OF_TIME,
+        /** the node limit was reached */
+        OUT_OF_NODES,
+        /** the memory limit was reached or the heap ran out */
+        OUT_OF_MEMORY
+    }
+
+    /** expansions between two checks of the heap */
+    private static final int MEMORY_CHECK_INTERVAL = 256;
+
+    /** limits on the search */
+    private final SolverBudget budget;
+
+    /** does the budget have a time limit? */
+    private final boolean timed;
+
+    /** System.nanoTime after which the search is out of time */
+    private final long deadline;
+
+    /** heap in use when the search started */
+    private final long startHeap;
+
+    /** counters for configs generated, duplicates and expansions */
+    private final SolverStats stats;
+
+    /** set from any thread to stop the search */
+    private volatile boolean cancelled;
+
+    /** where the search stands */
+    private Status status;
+
+    /** Map of configurations, dropped once the search stops without a solution */
+    private HashMap<Configuration, Configuration> predecessorMap;
+
+    /** configs waiting to be expanded */
+    private ArrayDeque<Configuration> queue;
+
+    /** configs left to expand in the current level */
+    private int levelRemaining;
+
+    /** number of levels closed so far */
+    private long closedLevels;
+
+    /** the goal that was reached */
+    private Configuration solution;
+
+    /**
+     * Sets up a search; nothing is expanded until step is called
+     *
+     * @param start starting configuration
+     * @param budget limits on the search
+     */
+    public SolverTask(Configuration start, SolverBudget budget){
+        this.budget = budget;
+        this.timed = budget.getTimeMillis() < Long.MAX_VALUE / 1_000_000;
+        this.deadline = timed ? System.nanoTime() + budget.getTimeMillis() * 1_000_000 : 0;
+        this.startHeap = usedHeap();
+        this.stats = new SolverStats();
+        this.status = Status.RUNNING;
+        this.predecessorMap = new HashMap<>();
+        this.queue = new ArrayDeque<>();
+        predecessorMap.put(start, null); stats.generated();
+        queue.add(start);
+        this.levelRemaining = 1;
+    }
+
+    /**
+     * Expands up to the given number of configurations
+     *
+     * @param maxExpansions most configurations to expand in this call
+     * @return the status after this step
+     */
+    public Status step(long maxExpansions){
+        for(long i = 0; i < maxExpansions && status == Status.RUNNING; i++){
+            expandOne();
+        }
+        return status;
+    }
+
+    /**
+     * Expands configurations until the current level of the search is done
+     *
+     * @return the status after this level
+     */
+    public Status stepLevel(){
+        long levelsBefore = closedLevels;
+        while(status == Status.RUNNING && closedLevels == levelsBefore){
+            expandOne();
+        }
+        return status;
+    }
+
+    /**
+     * Runs the search until it stops
+     *
+     * @return the final status
+     */
+    public Status run(){
+        while(status == Status.RUNNING){
+            expandOne();
+        }
+        return status;
+    }
+
+    /**
+     * Asks the search to stop; it does so before its next expansion.
+     * Safe to call from any thread.
+     */
+    public void cancel() { cancelled = true; }
+
+    /**
+     * gets where the search stands
+     * @return current status
+     */
+    public Status getStatus() { return status; }
+
+    /**
+     * gets the solution path
+     * @return the path from the start to a goal, or null unless SOLVED
+     */
+    public Collection<Configuration> getPath(){
+        if(status != Status.SOLVED){
+            return null;
+        }
+        return Solver.pathTo(predecessorMap, solution);
+    }
+
+    /**
+     * gets the number of levels fully searched so far
+     * @return depth reached
+     */
+    public long getDepth() { return closedLevels; }
+
+    /**
+     * gets the number of configurations expanded so far
+     * @return expanded configs
+     */
+    public long getExpandedConfigs() { return stats.getExpanded(); }
+
+    /**
+     * gets the number of configurations generated so far
+     * @return total configs
+     */
+    public long getTotalConfigs() { return stats.getGenerated(); }
+
+    /**
+     * gets the counters of the search
+     * @return solver statistics
+     */
+    public SolverStats getStats() { return stats; }
+
+    /**
+     * Expands the next configuration, or stops the search if it has to
+     */
+    private void expandOne(){
+        try{
+            Status stop = checkLimits();
+            if(stop != null){
+                finish(stop);
+                return;
+            }
+            Configuration current = queue.remove();
+            stats.expanded();
+            if(current.isGoal()){
+                solution = current;
+                finish(Status.SOLVED);
+                return;
+            }
+            current.forEachNeighbor(neighbor ->{
+                stats.generated();
+                if(!predecessorMap.containsKey(neighbor)){
+                    queue.add(neighbor);
+                    predecessorMap.put(neighbor, current);
+                }
+                else{ stats.duplicate(); }
+                return true;
+            });
+            if(--levelRemaining == 0){
+                stats.endLevel(predecessorMap.size(), -1);
+                closedLevels++;
+                levelRemaining = queue.size();
+            }
+        }
+        catch(OutOfMemoryError e){
+            // frees the search so the rest of the program can carry on
+            predecessorMap = null;
+            queue = null;
+            finish(Status.OUT_OF_MEMORY);
+        }
+    }
+
+    /**
+     * Works out whether the search has to stop before the next expansion
+     *
+     * @return the reason to stop, or null to carry on
+     */
+    private Status checkLimits(){
+        if(cancelled){
+            return Status.CANCELLED;
+        }
+        if(queue.isEmpty()){
+            return Status.NO_SOLUTION;
+        }
+        long expanded = stats.getExpanded();
+        if(expanded >= budget.getMaxNodes()){
+            return Status.OUT_OF_NODES;
+        }
+        if(timed && System.nanoTime() - deadline > 0){
+            return Status.OUT_OF_TIME;
+        }
+        if(expanded % MEMORY_CHECK_INTERVAL == 0 && usedHeap() - startHeap > budget.getMaxBytes()){
+            return Status.OUT_OF_MEMORY;
+        }
+        return null;
+    }
+
+    /**
+     * Stops the search, releasing what a failed search no longer needs
+     */
+    private void finish(Status result){
+        status = result;
+        stats.finish(predecessorMap == null ? 0 : predecessorMap.size(), -1);
+        if(result != Status.SOLVED){
+            predecessorMap = null;
+            queue = null;
+        }
+    }
+
+    /**
+     * gets the heap currently in use
+     */
+    private static long usedHeap(){
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
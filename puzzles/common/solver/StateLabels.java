@@ -0,0 +1,78 @@
+package puzzles.common.solver;
+
+/**
+ * A small label for every rank of a ranked puzzle, packed into longs. A label
+ * of zero means the state has not been seen.
+ */
+public class StateLabels {
+    /** the packed labels, 64 / bits of them per long */
+    private final long[] words;
+
+    /** bits per label, a power of two */
+    private final int bits;
+
+    /** log2 of the labels per long */
+    private final int shift;
+
+    /** number of labels that are not zero */
+    private long size;
+
+    /**
+     * Creates labels for a range of ranks, all zero
+     * @param states number of ranks
+     * @param bits bits per label, 1, 2, 4, 8, 16 or 32
+     */
+    public StateLabels(long states, int bits){
+        if(Integer.bitCount(bits) != 1 || bits > 32) { throw new IllegalArgumentException("bits must be a power of two up to 32: " + bits); }
+        this.bits = bits;
+        this.shift = Integer.numberOfTrailingZeros(Long.SIZE / bits);
+        long words = (states + (1L << shift) - 1) >>> shift;
+        if(states < 0 || words > Integer.MAX_VALUE - 8) { throw new IllegalArgumentException("too many states to label: " + states); }
+        this.words = new long[(int) words];
+    }
+
+    /**
+     * Gets the label of a rank
+     * @param rank the rank
+     * @return its label, 0 if it was never set
+     */
+    public int get(long rank){
+        long word = words[(int) (rank >>> shift)];
+        // widened to long, since 1 << 32 is 1 for an int
+        return (int) ((word >>> offset(rank)) & ((1L << bits) - 1));
+    }
+
+    /**
+     * Sets the label of a rank
+     * @param rank the rank
+     * @param label new label, below 2 to the power of bits, read as unsigned with 32 bits
+     */
+    public void set(long rank, int label){
+        int index = (int) (rank >>> shift);
+        int offset = offset(rank);
+        long mask = ((1L << bits) - 1) << offset;
+        if((words[index] & mask) == 0 && label != 0) { size++; }
+        else if((words[index] & mask) != 0 && label == 0) { size--; }
+        // a 32 bit label with its top bit set would otherwise spread into its neighbor
+        words[index] = (words[index] & ~mask) | ((Integer.toUnsignedLong(label) << offset) & mask);
+    }
+
+    /**
+     * Gets the number of ranks with a label other than zero
+     * @return labelled ranks
+     */
+    public long size() { return size; }
+
+    /**
+     * Gets the memory taken by the labels
+     * @return bytes of the packed array
+     */
+    public long memoryBytes() { return (long) words.length * Long.BYTES; }
+
+    /**
+     * Gets the bit a rank's label starts at within its long
+     */
+    private int offset(long rank){
+        return (int) (rank & ((1L << shift) - 1)) * bits;
+    }
+}
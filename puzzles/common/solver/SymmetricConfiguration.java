@@ -0,0 +1,22 @@
+package puzzles.common.solver;
+
+/**
+ * A configuration whose puzzle has symmetries: mirror images of a board, or
+ * pieces that can stand in for each other, which map every configuration to
+ * others that play exactly the same. Each such class of configurations has
+ * one canonical encoding, so a solver can keep a single entry per class
+ * instead of one per variant. Moves and isGoal must respect the symmetries:
+ * the neighbors of a variant are variants of the neighbors, and either every
+ * configuration of a class is a goal or none is.
+ */
+public interface SymmetricConfiguration extends EncodableConfiguration {
+    /**
+     * Writes the canonical encoding of this configuration's class into dest
+     * starting at offset. Every configuration of the class writes the same
+     * longs, and decoding them gives one of the configurations of the class.
+     *
+     * @param dest array to write into
+     * @param offset first index to write
+     */
+    void encodeCanonical(long[] dest, int offset);
+}
@@ -0,0 +1,18 @@
+package puzzles.common.solver;
+
+/**
+ * A configuration that keeps a Zobrist hash of itself: one random key per
+ * piece and position, XORed together, and updated with a couple of XORs by
+ * every move instead of being recomputed from the whole board. Solvers use
+ * it to look a successor up in their visited set while it is still a move
+ * applied in place, before any copy of it exists.
+ */
+public interface ZobristConfiguration extends MoveConfiguration {
+    /**
+     * Gets the Zobrist hash of this configuration. Equal configurations of
+     * the same puzzle always have equal hashes.
+     *
+     * @return the 64 bit hash
+     */
+    long zobristHash();
+}
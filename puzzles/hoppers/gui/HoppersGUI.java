@@ -1,6 +1,7 @@
 package puzzles.hoppers.gui;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
@@ -49,6 +50,7 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, Ho
         this.filename = getParameters().getRaw().get(0);
         this.model = new HoppersModel(filename);
         model.addObserver(this);
+        model.setNotifier(Platform::runLater);
     }
 
     /**
@@ -64,7 +66,7 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, Ho
             Button button = new Button();
             button.setMinSize(75,75); button.setMaxSize(75,75);
             if(r==row-1){button.setMaxSize(74,74);button.setMinSize(74,74);}
-            char temp = config.getBoard()[r][c];
+            char temp = config.getCell(r,c);
             if(temp=='.'){
                 button.setGraphic(new ImageView(lilyPad));
             }
@@ -1,27 +1,37 @@
 package puzzles.hoppers.model;
 
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.SymmetricConfiguration;
+import puzzles.common.solver.ZobristConfiguration;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.function.Predicate;
 
 /**
- * Configuration creator used to make the puzzle
+ * Configuration creator used to make the puzzle. The green frogs are a bit
+ * mask over the lily pads of the board's layout and the red frog is a pad
+ * number, so a hop is a few bit operations on a (from, over, to) triple of
+ * the layout's hop table.
  */
-public class HoppersConfig implements Configuration {
-    /** Dimensions of board */
-    private final int row;
-    private final int col;
+public class HoppersConfig implements SymmetricConfiguration, ZobristConfiguration {
+    /** Size, pads and hops of the board, shared by every copy of a board */
+    private final HoppersLayout layout;
 
-    /** Where we are on board */
-    private int cursorRow;
-    private int cursorCol;
+    /** Bit per pad, set where a green frog sits */
+    private final long[] greens;
 
-    /** 2D array of game*/
-    private final char[][] board;
+    /** Pad of the red frog, -1 if there is none */
+    private int red;
+
+    /** Number of green frogs left, kept up to date by each hop */
+    private int greenCount;
+
+    /** XOR of the keys of every frog on the board, kept up to date by each hop */
+    private long zobrist;
 
     /**
      * Configuration constructor for Hoppers puzzle
@@ -29,20 +39,30 @@ public class HoppersConfig implements Configuration {
      * @throws IOException exception thrown if file is messed up
      */
     public HoppersConfig(String filename) throws IOException {
-        cursorCol = 0; cursorRow = 0;
         BufferedReader in = new BufferedReader(new FileReader(filename));
         String [] fields = in.readLine().split("\\s+");
 
         // get the row and column values of board
-        this.row = Integer.parseInt(fields[0]);
-        this.col = Integer.parseInt(fields[1]);
+        int row = Integer.parseInt(fields[0]);
+        int col = Integer.parseInt(fields[1]);
 
-        // create the board
-        this.board = new char[row][col];
+        // read the board, then work out its pads and hops
+        char[][] board = new char[row][col];
         for(int r=0;r<row;r++){
             String[] cells = in.readLine().split("\\s+");
             for(int c=0;c<col;c++){ board[r][c] = cells[c].charAt(0); }
         }
+        this.layout = new HoppersLayout(row, col, board);
+        this.greens = new long[Math.max(1, (layout.getPadCount()+63)/64)];
+        this.red = -1;
+        for(int pad=0;pad<layout.getPadCount();pad++){
+            char cell = board[layout.rowOf(pad)][layout.colOf(pad)];
+            if(cell=='G'){ addGreen(pad); }
+            else if(cell=='R'){
+                red = pad;
+                zobrist ^= layout.zobristKey(pad, true);
+            }
+        }
     }
 
     /**
@@ -50,217 +70,418 @@ public class HoppersConfig implements Configuration {
      * @param other configuration which is being copied
      */
     private HoppersConfig(HoppersConfig other){
-        this.row = other.row;
-        this.col = other.col;
+        this.layout = other.layout;
+        this.greens = other.greens.clone();
+        this.red = other.red;
+        this.greenCount = other.greenCount;
+        this.zobrist = other.zobrist;
+    }
 
-        this.cursorRow = other.cursorRow;
-        this.cursorCol = other.cursorCol;
+    /**
+     * Creates a board without frogs
+     * @param layout the board's pads and hops
+     */
+    private HoppersConfig(HoppersLayout layout){
+        this.layout = layout;
+        this.greens = new long[Math.max(1, (layout.getPadCount()+63)/64)];
+        this.red = -1;
+    }
 
-        this.board = new char[row][col];
-        for(int i=0;i<row;i++){
-            System.arraycopy(other.board[i],0,this.board[i],0,col);
-        }
+    /**
+     * Creates a solved board of the same layout, with the red frog alone on a pad
+     * @param pad the pad number of the red frog
+     * @return a new board with no green frogs
+     */
+    public HoppersConfig solvedBoard(int pad){
+        HoppersConfig config = new HoppersConfig(layout);
+        config.red = pad;
+        config.zobrist = layout.zobristKey(pad, true);
+        return config;
     }
 
     /**
      * gets the number of columns
      * @return returns column value
      */
-    public int getCol() { return col; }
+    public int getCol() { return layout.getCol(); }
 
     /**
      * gets the number of rows
      * @return returns row value
      */
-    public int getRow() { return row; }
+    public int getRow() { return layout.getRow(); }
+
+    /**
+     * gets the pads and hops of the board
+     * @return the layout
+     */
+    public HoppersLayout getLayout() { return layout; }
+
+    /**
+     * gets the number of green frogs left
+     * @return green frogs on the board
+     */
+    public int getGreenCount() { return greenCount; }
 
     /**
-     * gets the board configuration
+     * gets what is on a cell
+     * @param r row of the cell
+     * @param c column of the cell
+     * @return 'G' or 'R' for a frog, '.' for an empty pad, '*' where there is no pad
+     */
+    public char getCell(int r, int c){
+        int pad = layout.pad(r, c);
+        return pad<0 ? '*' : getFrog(pad);
+    }
+
+    /**
+     * gets what is on a lily pad
+     * @param pad the pad number in the layout
+     * @return 'G' or 'R' for a frog, '.' for an empty pad
+     */
+    public char getFrog(int pad){
+        return pad==red ? 'R' : hasGreen(pad) ? 'G' : '.';
+    }
+
+    /**
+     * Draws the board as a grid of cells, as getCell reads them. The grid is
+     * a new copy, so changing it doesn't change the board; hops go through
+     * findMove and applyMove.
      * @return returns board
      */
-    public char[][] getBoard() { return board; }
+    public char[][] getBoard() {
+        char[][] board = new char[getRow()][getCol()];
+        for(int r=0;r<getRow();r++){ for(int c=0;c<getCol();c++){ board[r][c] = getCell(r,c); }}
+        return board;
+    }
 
     /**
-     * Helper function which looks at the next available cell
+     * Finds the legal hop that takes the frog at one cell to another
+     * @param r row of the frog
+     * @param c column of the frog
+     * @param r2 row of the landing pad
+     * @param c2 column of the landing pad
+     * @return the move code, or -1 if there is no such hop
      */
-    private void nextCell(){
-        // if we're on even row
-        if(cursorRow % 2 == 0){
-            // if not at the edge
-            if(cursorCol!=col-1){ cursorCol = cursorCol + 2; }
-            // if at edge
-            else{ cursorRow++; cursorCol=1; }
+    public int findMove(int r, int c, int r2, int c2){
+        int from = layout.pad(r, c), to = layout.pad(r2, c2);
+        if(from<0 || to<0){ return -1; }
+        for(int jump=layout.firstJump(from);jump<layout.endJump(from);jump++){
+            if(layout.jumpTo(jump)==to && canJump(jump)){ return jump; }
         }
+        return -1;
+    }
 
-        // if we're on odd row
-        else{
-            // if not at the edge
-            if(cursorCol!=col-2){ cursorCol = cursorCol + 2; }
-            // if at edge
-            else{ cursorRow++; cursorCol=0; }
-        }
+    /**
+     * Is there a frog to hop, a green frog to hop over and a free pad to land on?
+     * @param jump index of the hop in the layout
+     * @return true if the hop is legal
+     */
+    private boolean canJump(int jump){
+        int from = layout.jumpFrom(jump), over = layout.jumpOver(jump), to = layout.jumpTo(jump);
+        return (from==red || hasGreen(from)) && hasGreen(over) && to!=red && !hasGreen(to);
     }
 
     /**
-     * Looks at current cell (R or G) and sees if there is a valid hop
-     * @return configuration of valid hops from that cell
+     * Gets every board one hop away. Only reads this configuration, so
+     * several threads may expand it at once.
+     * @return collection of neighbors
      */
-    private Collection<Configuration> validHopHelper(){
+    @Override
+    public Collection<Configuration> getNeighbors() {
         Collection<Configuration> configs = new ArrayList<>();
-        char current = board[cursorRow][cursorCol];
-        int r = cursorRow; int c = cursorCol;
-
-        // Diagonal Bottom Right
-        if(r+1<=row-1&&c+1<=col-1&&board[r+1][c+1]=='G'){
-            if(r+2<=row-1&&c+2<=col-1&&board[r+2][c+2]=='.'){
-                HoppersConfig config = new HoppersConfig(this);
-                config.board[r][c] = '.';
-                config.board[r+1][c+1] = '.';
-                config.board[r+2][c+2] = current;
-                configs.add(config);
+        forEachNeighbor(configs::add);
+        return configs;
+    }
+
+    /**
+     * Hands every board one hop away to action, frog by frog in pad order
+     * @param action called with each neighbor, returns false to stop
+     * @return true if every neighbor was handed over
+     */
+    @Override
+    public boolean forEachNeighbor(Predicate<? super Configuration> action) {
+        for(int w=0;w<greens.length;w++){
+            long frogs = greens[w] | (red>=0 && red>>>6==w ? 1L<<red : 0);
+            for(;frogs!=0;frogs&=frogs-1){
+                int from = (w<<6) + Long.numberOfTrailingZeros(frogs);
+                for(int jump=layout.firstJump(from);jump<layout.endJump(from);jump++){
+                    if(canJump(jump)){
+                        HoppersConfig config = new HoppersConfig(this);
+                        config.applyMove(jump);
+                        if(!action.test(config)){ return false; }
+                    }
+                }
             }
         }
+        return true;
+    }
 
-        // Diagonal Bottom Left
-        if(r+1<=row-1&&c-1>=0&&board[r+1][c-1]=='G'){
-            if(r+2<=row-1&&c-2>=0&&board[r+2][c-2]=='.'){
-                HoppersConfig config = new HoppersConfig(this);
-                config.board[r][c] = '.';
-                config.board[r+1][c-1] = '.';
-                config.board[r+2][c-2] = current;
-                configs.add(config);
+    /**
+     * Every hop of the layout could be legal at once at most
+     * @return the largest number of moves getMoves can list
+     */
+    @Override
+    public int maxMoves() { return layout.getJumpCount(); }
+
+    /**
+     * Lists every legal hop. A move is the index of the hop in the layout's
+     * hop table, so moves come out frog by frog in pad order.
+     * @param moves array to write the move codes into
+     * @return number of moves written
+     */
+    @Override
+    public int getMoves(int[] moves) {
+        int count = 0;
+        for(int w=0;w<greens.length;w++){
+            long frogs = greens[w] | (red>=0 && red>>>6==w ? 1L<<red : 0);
+            for(;frogs!=0;frogs&=frogs-1){
+                int from = (w<<6) + Long.numberOfTrailingZeros(frogs);
+                for(int jump=layout.firstJump(from);jump<layout.endJump(from);jump++){
+                    if(canJump(jump)){ moves[count++] = jump; }
+                }
             }
         }
+        return count;
+    }
 
-        // Diagonal Top Right
-        if(r-1>=0&&c+1<=col-1&&board[r-1][c+1]=='G'){
-            if(r-2>=0&&c+2<=col-1&&board[r-2][c+2]=='.'){
-                HoppersConfig config = new HoppersConfig(this);
-                config.board[r][c] = '.';
-                config.board[r-1][c+1] = '.';
-                config.board[r-2][c+2] = current;
-                configs.add(config);
+    /**
+     * Lists every hop that could have led to this board: a frog that could
+     * have come from a free pad over another free pad. undoMove takes the
+     * hop back, putting a green frog on the pad jumped over.
+     * @param moves array to write the move codes into, with room for maxMoves
+     * @return number of moves written
+     */
+    public int getReverseMoves(int[] moves) {
+        int count = 0;
+        for(int jump=0;jump<layout.getJumpCount();jump++){
+            int from = layout.jumpFrom(jump), over = layout.jumpOver(jump), to = layout.jumpTo(jump);
+            if((to==red || hasGreen(to)) && from!=red && !hasGreen(from) && over!=red && !hasGreen(over)){
+                moves[count++] = jump;
             }
         }
+        return count;
+    }
 
-        // Diagonal Top Left
-        if(r-1>=0&&c-1>=0&&board[r-1][c-1]=='G'){
-            if(r-2>=0&&c-2>=0&&board[r-2][c-2]=='.'){
-                HoppersConfig config = new HoppersConfig(this);
-                config.board[r][c] = '.';
-                config.board[r-1][c-1] = '.';
-                config.board[r-2][c-2] = current;
-                configs.add(config);
-            }
+    /**
+     * Plays a hop in place, removing the green frog jumped over
+     * @param move a code returned by getMoves
+     */
+    @Override
+    public void applyMove(int move) {
+        int from = layout.jumpFrom(move), to = layout.jumpTo(move);
+        removeGreen(layout.jumpOver(move));
+        if(from==red){
+            zobrist ^= layout.zobristKey(from, true) ^ layout.zobristKey(to, true);
+            red = to;
+        }
+        else{
+            removeGreen(from);
+            addGreen(to);
         }
+    }
 
-        // If frog on even space:
-        if(cursorRow % 2 == 0) {
-
-            // Top
-            if (r - 2 >= 0 && board[r - 2][c] == 'G') {
-                if (r - 4 >= 0 && board[r - 4][c] == '.') {
-                    HoppersConfig config = new HoppersConfig(this);
-                    config.board[r][c] = '.';
-                    config.board[r - 2][c] = '.';
-                    config.board[r - 4][c] = current;
-                    configs.add(config);
-                }
-            }
+    /**
+     * Takes a hop back, putting the green frog that was jumped over back
+     * @param move the move most recently applied
+     */
+    @Override
+    public void undoMove(int move) {
+        int from = layout.jumpFrom(move), to = layout.jumpTo(move);
+        if(to==red){
+            zobrist ^= layout.zobristKey(from, true) ^ layout.zobristKey(to, true);
+            red = from;
+        }
+        else{
+            removeGreen(to);
+            addGreen(from);
+        }
+        addGreen(layout.jumpOver(move));
+    }
 
-            // Bottom
-            if (r + 2 <= row - 1 && board[r + 2][c] == 'G') {
-                if (r + 4 <= row - 1 && board[r + 4][c] == '.') {
-                    HoppersConfig config = new HoppersConfig(this);
-                    config.board[r][c] = '.';
-                    config.board[r + 2][c] = '.';
-                    config.board[r + 4][c] = current;
-                    configs.add(config);
-                }
-            }
+    /**
+     * Hops always remove a frog, so none can be reversed
+     * @param move a move code
+     * @return -1
+     */
+    @Override
+    public int inverseMove(int move) { return -1; }
 
-            // Left
-            if (c - 2 >= 0 && board[r][c - 2] == 'G') {
-                if (c - 4 >= 0 && board[r][c - 4] == '.') {
-                    HoppersConfig config = new HoppersConfig(this);
-                    config.board[r][c] = '.';
-                    config.board[r][c - 2] = '.';
-                    config.board[r][c - 4] = current;
-                    configs.add(config);
-                }
-            }
+    /**
+     * Copies this configuration
+     * @return an independent copy
+     */
+    @Override
+    public HoppersConfig copy() { return new HoppersConfig(this); }
+
+    /**
+     * The puzzle is solved once every green frog is gone
+     * @return true if no green frog is left
+     */
+    @Override
+    public boolean isGoal() { return greenCount==0; }
+
+    /**
+     * A bit per lily pad for the green frogs, followed by the red frog's pad
+     * plus one in as few bits as hold the pad count
+     *
+     * @return longs per encoded state
+     */
+    @Override
+    public int encodedLength() {
+        return (layout.getPadCount() + redBits() + 63) / 64;
+    }
+
+    /**
+     * Packs the green frog mask and the red frog's pad into dest
+     *
+     * @param dest array to write into
+     * @param offset first index to write
+     */
+    @Override
+    public void encode(long[] dest, int offset) {
+        pack(greens, red, dest, offset);
+    }
 
-            // Right
-            if (c + 2 <= col - 1 && board[r][c + 2] == 'G') {
-                if (c + 4 <= col - 1 && board[r][c + 4] == '.') {
-                    HoppersConfig config = new HoppersConfig(this);
-                    config.board[r][c] = '.';
-                    config.board[r][c + 2] = '.';
-                    config.board[r][c + 4] = current;
-                    configs.add(config);
+    /**
+     * Packs the smallest encoding among this board and its mirror images
+     * that keep the pads and hops, so every mirror image packs the same
+     *
+     * @param dest array to write into
+     * @param offset first index to write
+     */
+    @Override
+    public void encodeCanonical(long[] dest, int offset) {
+        pack(greens, red, dest, offset);
+        int length = encodedLength();
+        long[] mirrored = new long[greens.length];
+        long[] key = new long[length];
+        for(int mirror=0;mirror<layout.getMirrorCount();mirror++){
+            Arrays.fill(mirrored, 0);
+            for(int w=0;w<greens.length;w++){
+                for(long frogs=greens[w];frogs!=0;frogs&=frogs-1){
+                    int pad = layout.mirrorPad(mirror, (w<<6) + Long.numberOfTrailingZeros(frogs));
+                    mirrored[pad>>>6] |= 1L<<pad;
                 }
             }
+            pack(mirrored, red<0 ? -1 : layout.mirrorPad(mirror, red), key, 0);
+            if(Arrays.compareUnsigned(key, 0, length, dest, offset, offset+length) < 0){
+                System.arraycopy(key, 0, dest, offset, length);
+            }
         }
+    }
 
-        return configs;
+    /**
+     * Packs a green frog mask and a red frog's pad into dest
+     *
+     * @param greens green frog mask, a bit per pad
+     * @param red pad of the red frog, -1 if there is none
+     * @param dest array to write into
+     * @param offset first index to write
+     */
+    private void pack(long[] greens, int red, long[] dest, int offset) {
+        int length = encodedLength(), pads = layout.getPadCount();
+        for(int i=0;i<length;i++){ dest[offset+i] = i<greens.length ? greens[i] : 0; }
+        long value = red+1;
+        int shift = pads & 63;
+        dest[offset + (pads>>>6)] |= value << shift;
+        if(shift + redBits() > 64){ dest[offset + (pads>>>6) + 1] |= value >>> (64-shift); }
     }
 
+    /**
+     * Rebuilds a configuration of this board from a packed green frog mask and red frog pad
+     *
+     * @param src array holding the encoded state
+     * @param offset first index of the encoded state
+     * @return the decoded configuration
+     */
     @Override
-    public Collection<Configuration> getNeighbors() {
-        Collection<Configuration> configs = new ArrayList<>();
-        cursorRow = 0; cursorCol = 0;
-        while(cursorRow!=row-1 || cursorCol!=col-1){
-            if(board[cursorRow][cursorCol]=='R'|| board[cursorRow][cursorCol]=='G'){
-                configs.addAll(validHopHelper());
+    public HoppersConfig decode(long[] src, int offset) {
+        HoppersConfig config = new HoppersConfig(layout);
+        int pads = layout.getPadCount();
+        int shift = pads & 63;
+        for(int i=0;i<pads>>>6;i++){ config.greens[i] = src[offset+i]; }
+        if(shift!=0){ config.greens[pads>>>6] = src[offset + (pads>>>6)] & ((1L<<shift)-1); }
+        long value = src[offset + (pads>>>6)] >>> shift;
+        if(shift + redBits() > 64){ value |= src[offset + (pads>>>6) + 1] << (64-shift); }
+        config.red = (int) (value & ((1L<<redBits())-1)) - 1;
+        for(int w=0;w<config.greens.length;w++){
+            config.greenCount += Long.bitCount(config.greens[w]);
+            for(long frogs=config.greens[w];frogs!=0;frogs&=frogs-1){
+                config.zobrist ^= layout.zobristKey((w<<6) + Long.numberOfTrailingZeros(frogs), false);
             }
-            nextCell();
-        }
-        if(board[cursorRow][cursorCol]=='R'|| board[cursorRow][cursorCol]=='G'){
-            configs.addAll(validHopHelper());
         }
-        return configs;
+        if(config.red>=0){ config.zobrist ^= layout.zobristKey(config.red, true); }
+        return config;
     }
 
-    @Override
-    public boolean isGoal() {
-        for(int r=0;r<row;r++){ for(int c=0;c<col;c++){
-            if(board[r][c]=='G'){ return false; }
-        }}
-        return true;
+    /**
+     * gets the number of bits the red frog's pad plus one is packed in
+     */
+    private int redBits(){
+        return 32 - Integer.numberOfLeadingZeros(layout.getPadCount());
+    }
+
+    /**
+     * Is there a green frog on a pad?
+     */
+    private boolean hasGreen(int pad){
+        return (greens[pad>>>6] & (1L<<pad)) != 0;
+    }
+
+    /**
+     * Puts a green frog on a pad, updating the count and hash
+     */
+    private void addGreen(int pad){
+        greens[pad>>>6] |= 1L<<pad;
+        greenCount++;
+        zobrist ^= layout.zobristKey(pad, false);
+    }
+
+    /**
+     * Takes the green frog off a pad, updating the count and hash
+     */
+    private void removeGreen(int pad){
+        greens[pad>>>6] &= ~(1L<<pad);
+        greenCount--;
+        zobrist ^= layout.zobristKey(pad, false);
     }
 
     @Override
     public String toString(){
         StringBuilder display = new StringBuilder();
-        for(int r=0;r<row;r++){
-            for(int c=0;c<col;c++){
-                display.append(board[r][c]).append(" ");
+        for(int r=0;r<getRow();r++){
+            for(int c=0;c<getCol();c++){
+                display.append(getCell(r,c)).append(" ");
             }
-            if(r==row-1){break;}
+            if(r==getRow()-1){break;}
             display.append('\n');
         }
         return display.toString();
     }
 
+    /**
+     * Boards are equal when they are the same size and have the same frogs on the same pads
+     * @param other object to compare with
+     * @return true for an equal board
+     */
     @Override
     public boolean equals(Object other) {
-        if(other instanceof Configuration){
-            return other.hashCode()==this.hashCode();
+        if(other instanceof HoppersConfig){
+            HoppersConfig config = (HoppersConfig) other;
+            return config.zobrist==this.zobrist && config.red==this.red && Arrays.equals(config.greens,this.greens)
+                    && config.getRow()==this.getRow() && config.getCol()==this.getCol();
         }
         return false;
     }
 
     @Override
-    public int hashCode() {
-        int sum = 0;
-        for(int r=0;r<row;r++){
-            for(int c=0;c<col;c++){
-                char temp = board[r][c];
-                int tmp = String.valueOf(temp).hashCode();
-                sum += (tmp*(c+1));
-            }
-            sum = (sum * (r+1));
-        }
-        return sum + Arrays.deepHashCode(board);
-    }
+    public int hashCode() { return (int) (zobrist ^ (zobrist >>> 32)); }
+
+    /**
+     * gets the Zobrist hash of the frogs on the board
+     * @return the 64 bit hash
+     */
+    @Override
+    public long zobristHash() { return zobrist; }
 }
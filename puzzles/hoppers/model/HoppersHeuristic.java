@@ -0,0 +1,19 @@
+package puzzles.hoppers.model;
+
+import puzzles.common.solver.Heuristic;
+
+/**
+ * A* estimate for the Hoppers puzzle. Every hop removes exactly one green
+ * frog, so the green frogs left are exactly the hops still needed.
+ */
+public class HoppersHeuristic implements Heuristic<HoppersConfig> {
+    /**
+     * Gets the green frogs left on the board, which the config keeps count of
+     * @param config the configuration to estimate
+     * @return number of green frogs left
+     */
+    @Override
+    public int estimate(HoppersConfig config) {
+        return config.getGreenCount();
+    }
+}
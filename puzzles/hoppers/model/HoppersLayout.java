@@ -0,0 +1,231 @@
+package puzzles.hoppers.model;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * The parts of a Hoppers board that never change while it is played: its
+ * size, where the lily pads are and every hop the board allows. Pads are
+ * numbered row by row, so a configuration only has to hold which pads have
+ * a frog on them. Each hop is a (from, over, to) triple of pads, listed per
+ * starting pad in the order the directions are tried.
+ */
+public class HoppersLayout {
+    /** Row and column offsets of the frog jumped over for each hop direction:
+     * the four diagonals, then up, down, left and right (straight hops only from even rows) */
+    private static final int[] OVER_ROW = {1, 1, -1, -1, -2, 2, 0, 0};
+    private static final int[] OVER_COL = {1, -1, 1, -1, 0, 0, -2, 2};
+
+    /** Dimensions of board */
+    private final int row;
+    private final int col;
+
+    /** Pad number of every cell, row by row, -1 where there is no pad */
+    private final int[] padAt;
+
+    /** Cell (row * col count + column) of every pad */
+    private final int[] cellOf;
+
+    /** Hops from each pad are the entries from jumpStart[pad] up to jumpStart[pad + 1] */
+    private final int[] jumpStart;
+
+    /** Starting, jumped and landing pad of every hop */
+    private final int[] jumpFrom;
+    private final int[] jumpOver;
+    private final int[] jumpTo;
+
+    /** Random keys for a green and a red frog on every pad */
+    private final long[] zobristKeys;
+
+    /** Pad each pad lands on for every mirror image that keeps the pads and hops, the identity left out */
+    private final int[][] mirrors;
+
+    /**
+     * Works out the pads and hops of a board
+     * @param row number of rows
+     * @param col number of columns
+     * @param cells contents of each cell row by row, '*' where there is no pad
+     */
+    public HoppersLayout(int row, int col, char[][] cells){
+        this.row = row;
+        this.col = col;
+
+        // lily pads sit on even columns of even rows and odd columns of odd rows
+        this.padAt = new int[row*col];
+        Arrays.fill(padAt, -1);
+        int pads = 0;
+        for(int r=0;r<row;r++){ for(int c=r%2;c<col;c+=2){
+            if(cells[r][c]!='*'){ padAt[r*col+c] = pads++; }
+        }}
+        this.cellOf = new int[pads];
+        for(int cell=0;cell<padAt.length;cell++){ if(padAt[cell]>=0){ cellOf[padAt[cell]] = cell; } }
+
+        // every hop that stays on pads, pad by pad and direction by direction
+        int[] from = new int[8*pads], over = new int[8*pads], to = new int[8*pads];
+        this.jumpStart = new int[pads+1];
+        int jumps = 0;
+        for(int pad=0;pad<pads;pad++){
+            jumpStart[pad] = jumps;
+            int r = cellOf[pad]/col, c = cellOf[pad]%col;
+            for(int d=0;d<8;d++){
+                if(d>=4 && r%2!=0){ break; }
+                int overPad = pad(r+OVER_ROW[d], c+OVER_COL[d]);
+                int toPad = pad(r+2*OVER_ROW[d], c+2*OVER_COL[d]);
+                if(overPad>=0 && toPad>=0){
+                    from[jumps] = pad; over[jumps] = overPad; to[jumps] = toPad;
+                    jumps++;
+                }
+            }
+        }
+        jumpStart[pads] = jumps;
+        this.jumpFrom = Arrays.copyOf(from, jumps);
+        this.jumpOver = Arrays.copyOf(over, jumps);
+        this.jumpTo = Arrays.copyOf(to, jumps);
+
+        // a fixed seed keeps hashes the same from run to run
+        SplittableRandom random = new SplittableRandom(row * 31L + col);
+        this.zobristKeys = new long[2*pads];
+        for(int i=0;i<zobristKeys.length;i++){ zobristKeys[i] = random.nextLong(); }
+
+        // flipping the rows, the columns or both, wherever the board allows it
+        int[][] mirrors = new int[3][];
+        int count = 0;
+        for(int flip=1;flip<4;flip++){
+            int[] mirror = mirror((flip&1)!=0, (flip&2)!=0);
+            if(mirror!=null){ mirrors[count++] = mirror; }
+        }
+        this.mirrors = Arrays.copyOf(mirrors, count);
+    }
+
+    /**
+     * Works out where every pad goes when the board is flipped, if the
+     * flipped board has the very same pads and hops
+     * @param flipRows true to flip the rows, top to bottom
+     * @param flipCols true to flip the columns, left to right
+     * @return the pad each pad lands on, or null if the flip changes the board
+     */
+    private int[] mirror(boolean flipRows, boolean flipCols){
+        int pads = cellOf.length;
+        int[] mirror = new int[pads];
+        for(int pad=0;pad<pads;pad++){
+            mirror[pad] = pad(flipRows ? row-1-rowOf(pad) : rowOf(pad), flipCols ? col-1-colOf(pad) : colOf(pad));
+            if(mirror[pad]<0){ return null; }
+        }
+        // a flip can still move a straight hop onto a row that has none
+        for(int jump=0;jump<jumpFrom.length;jump++){
+            int from = mirror[jumpFrom[jump]], over = mirror[jumpOver[jump]], to = mirror[jumpTo[jump]];
+            boolean found = false;
+            for(int other=jumpStart[from];other<jumpStart[from+1] && !found;other++){
+                found = jumpOver[other]==over && jumpTo[other]==to;
+            }
+            if(!found){ return null; }
+        }
+        return mirror;
+    }
+
+    /**
+     * gets the number of columns
+     * @return returns column value
+     */
+    public int getCol() { return col; }
+
+    /**
+     * gets the number of rows
+     * @return returns row value
+     */
+    public int getRow() { return row; }
+
+    /**
+     * gets the number of lily pads
+     * @return pads on the board
+     */
+    public int getPadCount() { return cellOf.length; }
+
+    /**
+     * gets the number of hops the board allows
+     * @return hops over all pads and directions
+     */
+    public int getJumpCount() { return jumpFrom.length; }
+
+    /**
+     * Finds the pad at a cell
+     * @param r row of the cell
+     * @param c column of the cell
+     * @return the pad number, -1 if the cell is off the board or not a pad
+     */
+    public int pad(int r, int c){
+        if(r<0||r>=row||c<0||c>=col){ return -1; }
+        return padAt[r*col+c];
+    }
+
+    /**
+     * gets the row of a pad
+     * @param pad the pad number
+     * @return row of the pad
+     */
+    public int rowOf(int pad) { return cellOf[pad]/col; }
+
+    /**
+     * gets the column of a pad
+     * @param pad the pad number
+     * @return column of the pad
+     */
+    public int colOf(int pad) { return cellOf[pad]%col; }
+
+    /**
+     * gets the first hop from a pad
+     * @param pad the pad number
+     * @return index of the pad's first hop
+     */
+    public int firstJump(int pad) { return jumpStart[pad]; }
+
+    /**
+     * gets the index after the last hop from a pad
+     * @param pad the pad number
+     * @return index of the next pad's first hop
+     */
+    public int endJump(int pad) { return jumpStart[pad+1]; }
+
+    /**
+     * gets the pad a hop starts from
+     * @param jump index of the hop
+     * @return pad of the hopping frog
+     */
+    public int jumpFrom(int jump) { return jumpFrom[jump]; }
+
+    /**
+     * gets the pad a hop jumps over
+     * @param jump index of the hop
+     * @return pad of the green frog removed
+     */
+    public int jumpOver(int jump) { return jumpOver[jump]; }
+
+    /**
+     * gets the pad a hop lands on
+     * @param jump index of the hop
+     * @return pad the frog ends up on
+     */
+    public int jumpTo(int jump) { return jumpTo[jump]; }
+
+    /**
+     * gets the number of mirror images of the board that keep its pads and hops
+     * @return mirror images, not counting the board itself
+     */
+    public int getMirrorCount() { return mirrors.length; }
+
+    /**
+     * gets the pad a pad lands on in a mirror image of the board
+     * @param mirror index of the mirror image
+     * @param pad the pad number
+     * @return the mirrored pad number
+     */
+    public int mirrorPad(int mirror, int pad) { return mirrors[mirror][pad]; }
+
+    /**
+     * gets the key a frog on a pad adds to the Zobrist hash
+     * @param pad the pad number
+     * @param red true for the red frog, false for a green one
+     * @return the key
+     */
+    public long zobristKey(int pad, boolean red) { return zobristKeys[2*pad+(red?1:0)]; }
+}
@@ -2,13 +2,16 @@ package puzzles.hoppers.model;
 
 import puzzles.common.Observer;
 import puzzles.common.solver.Configuration;
-import puzzles.common.solver.Solver;
+import puzzles.common.solver.SolverBudget;
+import puzzles.common.solver.SolverTask;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Model used in PTUI and GUI
@@ -17,8 +20,32 @@ public class HoppersModel {
     /** the collection of observers of this model */
     private final List<Observer<HoppersModel, HoppersClientData>> observers = new LinkedList<>();
 
-    /** the current configuration */
-    private HoppersConfig currentConfig;
+    /** the current configuration, read by the GUI while a hint may be replacing it */
+    private volatile HoppersConfig currentConfig;
+
+    /** the default limits on the search behind a hint */
+    public static final SolverBudget DEFAULT_HINT_BUDGET = new SolverBudget(2_000, 5_000_000, 512L << 20);
+
+    /** the limits on the search behind a hint */
+    private SolverBudget hintBudget = DEFAULT_HINT_BUDGET;
+
+    /** the limits on working out every winning board of a puzzle in the background */
+    public static final SolverBudget TABLE_BUDGET = new SolverBudget(60_000, 20_000_000, 1L << 30);
+
+    /** winning boards of the loaded puzzle, null until the background search finishes or if it gave up */
+    private volatile HoppersTable table;
+
+    /** file the table is being built for */
+    private String tableFile;
+
+    /** thread building the table */
+    private Thread tableBuilder;
+
+    /** thread searching for the hint being worked out, null if there is none */
+    private volatile Thread hintSearcher;
+
+    /** runs the outcome of a hint on the thread the observers expect, null to search for hints on the caller's thread */
+    private Executor notifier;
 
     /** Space currently selected */
     private int currentRow;
@@ -32,6 +59,7 @@ public class HoppersModel {
     public HoppersModel(String filename) throws IOException {
         this.currentConfig = new HoppersConfig(filename);
         currentCol = -1; currentRow = -1;
+        buildTable(filename);
     }
 
     /**
@@ -57,7 +85,7 @@ public class HoppersModel {
             if(r<10){string.append(" ");}
             string.append(r).append("|").append(" ");
             for(int c=0;c<config.getCol();c++){
-                string.append(config.getBoard()[r][c]).append(" ");
+                string.append(config.getCell(r,c)).append(" ");
             }
             if(r==config.getRow()-1){break;}
             string.append('\n');
@@ -68,11 +96,63 @@ public class HoppersModel {
     /**
      * If the current configuration is solvable the hint method
      * takes the solution path and makes the current configuration
-     * the next configuration within the solution path
+     * the next configuration within the solution path. Until the winning
+     * boards are worked out the path is searched for, on a background thread
+     * with the observers told through the notifier once it is found if there
+     * is a notifier, and on the caller's thread if not
+     */
+    public synchronized void hint(){
+        HoppersTable table = this.table;
+        if(table!=null){
+            hintFromTable(table);
+            return;
+        }
+        if(hintSearcher!=null){
+            alertObservers(new HoppersClientData(display(currentConfig),"Still looking for a hint"+"\n"));
+            return;
+        }
+        // the search works on its own copy, since hops change the current board in place
+        HoppersConfig board = currentConfig.copy();
+        SolverBudget budget = hintBudget;
+        // a depth first search with dead boards remembered finds a full solution far quicker than BFS
+        HoppersSolver solver = new HoppersSolver(HoppersSolver.FEWEST_ISOLATED);
+        Executor notifier = this.notifier;
+        if(notifier==null){
+            showHint(solver, solver.solve(board, budget));
+            return;
+        }
+        Thread searcher = new Thread(() -> {
+            Collection<Configuration> solution = solver.solve(board, budget);
+            Thread self = Thread.currentThread();
+            notifier.execute(() -> finishHint(self, solver, solution));
+        }, "hoppers-hint");
+        searcher.setDaemon(true);
+        hintSearcher = searcher;
+        searcher.start();
+    }
+
+    /**
+     * Hands a hint found in the background to showHint, unless the board was
+     * changed since it was started. Locked with the hops, so a hop can't slip
+     * in between the check and the hint moving the board
+     * @param searcher thread the search ran on
+     * @param solver solver that searched
+     * @param solution path it found, null if none
      */
-    public void hint(){
-        Solver solver = new Solver();
-        Collection<Configuration> solution = solver.solve(currentConfig);
+    private synchronized void finishHint(Thread searcher, HoppersSolver solver, Collection<Configuration> solution){
+        // a hint that was cancelled, or started for a board since changed, is dropped
+        if(searcher!=hintSearcher){ return; }
+        hintSearcher = null;
+        showHint(solver, solution);
+    }
+
+    /**
+     * Moves the board one hop along the solution a hint found
+     * @param solver solver that searched
+     * @param solution path it found, null if none
+     */
+    private void showHint(HoppersSolver solver, Collection<Configuration> solution){
+        SolverTask.Status status = solver.getStatus();
         List<Configuration> last = (List<Configuration>) solution;
         if(currentConfig.isGoal()){
             alertObservers(new HoppersClientData(display(currentConfig),"Solution has been reached! Reset the board!" +"\n"));
@@ -81,20 +161,129 @@ public class HoppersModel {
             currentConfig = (HoppersConfig) last.get(1);
             alertObservers(new HoppersClientData(display(currentConfig),"Here's a Hint:" +"\n"));
         }
+        else if(status==SolverTask.Status.NO_SOLUTION){
+            alertObservers(new HoppersClientData(display(currentConfig),"No Solution from here, reset!"+"\n"));
+        }
         else{
+            // the search ran past its budget, so the board is left alone
+            alertObservers(new HoppersClientData(display(currentConfig),"No hint found after checking "+solver.getExpandedConfigs()+" boards ("+status+")"+"\n"));
+        }
+    }
+
+    /**
+     * Stops the hint being searched for, if any, so it never moves the board
+     */
+    private synchronized void cancelHint(){
+        Thread searcher = hintSearcher;
+        if(searcher!=null){
+            searcher.interrupt();
+            hintSearcher = null;
+        }
+    }
+
+    /**
+     * Sets where the outcome of a hint is handed to the observers, such as
+     * the GUI's application thread, so hints are searched for in the background
+     * @param notifier runs the code telling the observers, null to search for hints on the caller's thread
+     */
+    public synchronized void setNotifier(Executor notifier) {this.notifier = notifier;}
+
+    /**
+     * Gives a hint by looking up which hops keep the board winning
+     * @param table winning boards of the loaded puzzle
+     */
+    private void hintFromTable(HoppersTable table){
+        if(currentConfig.isGoal()){
+            alertObservers(new HoppersClientData(display(currentConfig),"Solution has been reached! Reset the board!" +"\n"));
+            return;
+        }
+        int[] moves = table.winningMoves(currentConfig);
+        if(moves.length==0){
+            alertObservers(new HoppersClientData(display(currentConfig),"No Solution from here, reset!"+"\n"));
+            return;
+        }
+        currentConfig.applyMove(moves[0]);
+        alertObservers(new HoppersClientData(display(currentConfig),"Here's a Hint:" +"\n"));
+    }
+
+    /**
+     * Lists every hop from the current board that still leads to a solution
+     * @return hops as {row, column, row landed on, column landed on}, or null while the winning boards are still being worked out
+     */
+    public List<int[]> getWinningMoves(){
+        HoppersTable table = this.table;
+        if(table==null){ return null; }
+        HoppersLayout layout = currentConfig.getLayout();
+        List<int[]> hops = new ArrayList<>();
+        for(int move : table.winningMoves(currentConfig)){
+            int from = layout.jumpFrom(move), to = layout.jumpTo(move);
+            hops.add(new int[]{layout.rowOf(from), layout.colOf(from), layout.rowOf(to), layout.colOf(to)});
+        }
+        return hops;
+    }
+
+    /**
+     * Tells the observers every hop from the current board that still leads to a solution
+     */
+    public synchronized void winningMoves(){
+        List<int[]> hops = getWinningMoves();
+        if(hops==null){
+            alertObservers(new HoppersClientData(display(currentConfig),"Still working out the winning moves, try a hint instead"+"\n"));
+        }
+        else if(currentConfig.isGoal()){
+            alertObservers(new HoppersClientData(display(currentConfig),"Solution has been reached! Reset the board!" +"\n"));
+        }
+        else if(hops.isEmpty()){
             alertObservers(new HoppersClientData(display(currentConfig),"No Solution from here, reset!"+"\n"));
         }
+        else{
+            StringBuilder string = new StringBuilder("Winning moves:");
+            for(int[] hop : hops){
+                string.append(" (").append(hop[0]).append(",").append(hop[1]).append(") -> (").append(hop[2]).append(",").append(hop[3]).append(")");
+            }
+            alertObservers(new HoppersClientData(display(currentConfig),string.append('\n').toString()));
+        }
     }
 
+    /**
+     * Starts working out every winning board of a puzzle in the background,
+     * unless it is the puzzle already being worked out. The table is only
+     * kept if the same puzzle is still loaded when the search finishes.
+     * @param filename name of the puzzle's file
+     */
+    private synchronized void buildTable(String filename){
+        if(filename.equals(tableFile)){ return; }
+        if(tableBuilder!=null){ tableBuilder.interrupt(); }
+        table = null;
+        tableFile = filename;
+        HoppersConfig start = currentConfig.copy();
+        tableBuilder = new Thread(() -> {
+            HoppersTable built = HoppersTable.build(start, TABLE_BUDGET);
+            synchronized(this){
+                if(built!=null && filename.equals(tableFile)){ table = built; }
+            }
+        }, "hoppers-table");
+        tableBuilder.setDaemon(true);
+        tableBuilder.start();
+    }
+
+    /**
+     * Sets the limits on the search behind a hint
+     * @param hintBudget time, node and memory limits for each hint
+     */
+    public void setHintBudget(SolverBudget hintBudget) {this.hintBudget = hintBudget;}
+
     /**
      * Loads up a new puzzle if the file is correct
      * @param filename name of the new file
      * @throws IOException exception thrown if file is messed up
      */
-    public void load(String filename) throws IOException {
+    public synchronized void load(String filename) throws IOException {
         File file = new File(filename);
         if(file.exists()){
             currentConfig = new HoppersConfig(filename);
+            cancelHint();
+            buildTable(filename);
             alertObservers(new HoppersClientData(display(currentConfig),"Loaded: " + filename + '\n',filename));
         }
         else{
@@ -107,8 +296,10 @@ public class HoppersModel {
      * @param filename name of the file
      * @throws IOException exception thrown if file is messed up
      */
-    public void reset(String filename) throws IOException {
+    public synchronized void reset(String filename) throws IOException {
         this.currentConfig = new HoppersConfig(filename);
+        cancelHint();
+        buildTable(filename);
         alertObservers(new HoppersClientData(display(currentConfig),"Game has been reset!"+"\n"));
     }
 
@@ -117,9 +308,9 @@ public class HoppersModel {
      * @param r initial position of the frog with respect to the row
      * @param c initial position of the frog with respect to the column
      */
-    public void select(int r, int c){
+    public synchronized void select(int r, int c){
         if(currentRow<0 && currentCol<0){if (r >= 0 && r < currentConfig.getRow()){if (c >= 0 && c < currentConfig.getCol()){
-                if (currentConfig.getBoard()[r][c] == 'G' || currentConfig.getBoard()[r][c] == 'R') {
+                if (currentConfig.getCell(r,c) == 'G' || currentConfig.getCell(r,c) == 'R') {
                     currentRow = r; currentCol = c;
                     alertObservers(new HoppersClientData(display(currentConfig), "Selected " + "(" + r + "," + c + ")" + '\n'));
                 } else {
@@ -127,6 +318,7 @@ public class HoppersModel {
                 }
         }}}
         else{
+            cancelHint();
             String temp = secondSelect(currentRow,currentCol,r,c);
             alertObservers(new HoppersClientData(display(currentConfig),temp));
             currentRow = -1; currentCol = -1;
@@ -141,94 +333,14 @@ public class HoppersModel {
      * @param c2 final position of the frog with respect to the column if move is valid
      * @return string output on whether or not the jump was successful or not
      */
-    public String secondSelect(int r, int c, int r2, int c2){
-        // check if the destination coordinates are within bounds and is free space
-        if(r2>=0&&r2<currentConfig.getRow()){if(c2>=0&&c2<currentConfig.getCol()){
-        if(currentConfig.getBoard()[r2][c2] == '.'){if(validMove(r,c,r2,c2)){
-            char temp = currentConfig.getBoard()[r][c];
-            currentConfig.getBoard()[r][c] = '.';
-            currentConfig.getBoard()[r2][c2] = temp;
+    public synchronized String secondSelect(int r, int c, int r2, int c2){
+        // the config only accepts hops it would generate itself
+        int move = currentConfig.findMove(r,c,r2,c2);
+        if(move>=0){
+            currentConfig.applyMove(move);
             return "Hopped from "+"("+r+","+c+")"+" to "+"("+r2+","+c2+")";
-        }}}}
-        return "Can't jump from "+"("+r+","+c+")"+" to "+"("+r2+","+c2+")";
-    }
-
-    /**
-     * Helper method which helps secondSelect method
-     * @param r initial position of the frog with respect to the row
-     * @param c initial position of the frog with respect to the column
-     * @param r2 final position of the frog with respect to the row if move is valid
-     * @param c2 final position of the frog with respect to the column if move is valid
-     * @return boolean stating whether or not the move is legal or not
-     */
-    private boolean validMove(int r, int c, int r2, int c2){
-        int r_temp = r2 - r;
-        int c_temp = c2 - c;
-        if(r_temp<0){
-            // up and left
-            if(c_temp<0){
-                if(currentConfig.getBoard()[r-1][c-1]=='G'&&r-r2==2&&c-c2==2){
-                    currentConfig.getBoard()[r-1][c-1]= '.';
-                    return true;
-                }
-                return false;
-            }
-            // straight up
-            else if(r%2==0&&c_temp==0){
-                if(currentConfig.getBoard()[r-2][c]=='G'&&r-r2==4){
-                    currentConfig.getBoard()[r-2][c]= '.';
-                    return true;
-                }
-                return false;
-            }
-            // up and right
-            else{
-                if(currentConfig.getBoard()[r-1][c+1]=='G'&&r-r2==2&&c2-c==2){
-                    currentConfig.getBoard()[r-1][c+1]='.';
-                    return true;
-                }
-                return false;
-            }
-        }
-        else if(r_temp>0){
-            // down and left
-            if(c_temp<0){
-                if(currentConfig.getBoard()[r+1][c-1]=='G'&&r2-r==2&&c-c2==2){
-                    currentConfig.getBoard()[r+1][c-1]= '.';
-                    return true;
-                }
-                return false;
-            }
-            // straight down
-            else if(r%2==0&&c_temp==0){
-                if(currentConfig.getBoard()[r+2][c]=='G'&&r2-r==4){
-                    currentConfig.getBoard()[r+2][c]= '.';
-                    return true;
-                }
-                return false;
-            }
-            // down and right
-            else{
-                if(currentConfig.getBoard()[r+1][c+1]=='G'&&r2-r==2&&c2-c==2){
-                    currentConfig.getBoard()[r+1][c+1]='.';
-                    return true;
-                }
-                return false;
-            }
-        }
-        else{
-            // straight left
-            if(r%2==0&&c_temp<0){if(currentConfig.getBoard()[r][c-2]=='G'&&c-c2==4){
-                    currentConfig.getBoard()[r][c-2]='.';
-                    return true;
-            }}
-            // straight right
-            else{if(r%2==0){if(currentConfig.getBoard()[r][c+2]=='G'&&c2-c==4){
-                    currentConfig.getBoard()[r][c+2]='.';
-                    return true;
-            }}}
-            return false;
         }
+        return "Can't jump from "+"("+r+","+c+")"+" to "+"("+r2+","+c2+")";
     }
 
     /**
@@ -0,0 +1,332 @@
+package puzzles.hoppers.model;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.LongStateTable;
+import puzzles.common.solver.SolverBudget;
+import puzzles.common.solver.SolverStats;
+import puzzles.common.solver.SolverTask;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.function.ToIntFunction;
+
+/**
+ * Depth first search made for Hoppers. Every hop removes one green frog, so
+ * no board can come back, every solution takes exactly as many hops as there
+ * are green frogs, and the first solution found is as short as any. Boards
+ * whose every line of play has been searched without a solution are dead, and
+ * are kept encoded in a primitive table so they are never searched again from
+ * another order of the same hops. A single working board is hopped and
+ * hopped back, so only the dead boards take memory.
+ *
+ * Hops can be tried in an order of the caller's choosing, by a score of the
+ * board each one leads to, lowest first.
+ */
+public class HoppersSolver {
+    /** scores a board by its green frogs with no frog next to them, which no hop can remove until one lands there */
+    public static final ToIntFunction<HoppersConfig> FEWEST_ISOLATED = HoppersSolver::isolatedGreens;
+
+    /** expansions between two checks of the clock */
+    private static final int TIME_CHECK_INTERVAL = 256;
+
+    /** counters for configs generated, dead boards met again and expansions */
+    private final SolverStats stats;
+
+    /** score of the board after each hop, lowest tried first, null for the board's own order */
+    private final ToIntFunction<HoppersConfig> order;
+
+    /** boards proven dead by the last search */
+    private LongStateTable dead;
+
+    /** how the last search ended */
+    private SolverTask.Status status;
+
+    /**
+     * Creates a solver trying hops in the board's own order
+     */
+    public HoppersSolver(){
+        this(null);
+    }
+
+    /**
+     * Creates a solver trying hops by a score of the board each leads to
+     * @param order score of a board, lowest tried first, or null for the board's own order
+     */
+    public HoppersSolver(ToIntFunction<HoppersConfig> order){
+        this.stats = new SolverStats();
+        this.order = order;
+        this.status = SolverTask.Status.RUNNING;
+    }
+
+    /**
+     * gets total number of configurations
+     * @return returns total number of configs
+     */
+    public long getTotalConfigs() {return stats.getGenerated();}
+
+    /**
+     * gets number of configurations expanded
+     * @return returns number of expanded configs
+     */
+    public long getExpandedConfigs() {return stats.getExpanded();}
+
+    /**
+     * gets number of boards proven dead
+     * @return dead boards remembered by the last search
+     */
+    public int getDeadConfigs() {return dead == null ? 0 : dead.size();}
+
+    /**
+     * gets how the last search ended
+     * @return SOLVED, NO_SOLUTION or the limit it ran past
+     */
+    public SolverTask.Status getStatus() {return status;}
+
+    /**
+     * gets the counters of the last search
+     * @return solver statistics
+     */
+    public SolverStats getStats() {return stats;}
+
+    /**
+     * Attempts to solve the puzzle without any limits
+     *
+     * @param start starting configuration, left unchanged
+     * @return A solution path, or null if no solution
+     */
+    public Collection<Configuration> solve(HoppersConfig start){
+        return solve(start, SolverBudget.UNLIMITED);
+    }
+
+    /**
+     * Attempts to solve the puzzle, stopping at the first solution found, once
+     * the budget runs out or once the thread is interrupted. Memory is counted
+     * as the dead board table.
+     *
+     * @param start starting configuration, left unchanged
+     * @param budget limits on the search
+     * @return A solution path, or null if there is none or the budget ran out, as getStatus tells
+     */
+    public Collection<Configuration> solve(HoppersConfig start, SolverBudget budget){
+        HoppersConfig config = start.copy();
+        LongStateTable dead = new LongStateTable(config.encodedLength());
+        this.dead = dead;
+        stats.start();
+        long deadline = budget.getTimeMillis() < Long.MAX_VALUE / 1_000_000 ? System.nanoTime() + budget.getTimeMillis() * 1_000_000 : Long.MAX_VALUE;
+        int maxDepth = config.getGreenCount();
+        int[][] moves = new int[maxDepth + 1][config.maxMoves()];
+        int[] scores = new int[config.maxMoves()];
+        int[] counts = new int[maxDepth + 1];
+        int[] cursors = new int[maxDepth + 1];
+        int[] path = new int[maxDepth];
+        long[] key = new long[config.encodedLength()];
+        stats.generated();
+        if(config.isGoal()){ return finish(SolverTask.Status.SOLVED, start, path, 0); }
+
+        int depth = 0;
+        long nodes = 1;
+        counts[0] = listMoves(config, moves[0], scores); cursors[0] = 0; stats.expanded();
+        while(depth >= 0){
+            // every hop from this board was tried, so it is dead and the search steps back up
+            if(cursors[depth] == counts[depth]){
+                config.encode(key, 0);
+                dead.add(key, 0, LongStateTable.NO_PARENT, LongStateTable.hash(config.zobristHash()));
+                depth--;
+                if(depth >= 0){ config.undoMove(path[depth]); }
+                continue;
+            }
+            int move = moves[depth][cursors[depth]++];
+            config.applyMove(move); stats.generated();
+            path[depth] = move;
+            if(config.isGoal()){ return finish(SolverTask.Status.SOLVED, start, path, depth + 1); }
+            config.encode(key, 0);
+            if(dead.indexOf(key, 0, LongStateTable.hash(config.zobristHash())) >= 0){
+                stats.duplicate();
+                config.undoMove(move);
+                continue;
+            }
+            if(nodes >= budget.getMaxNodes()){ return finish(SolverTask.Status.OUT_OF_NODES, start, path, -1); }
+            if(dead.memoryBytes() >= budget.getMaxBytes()){ return finish(SolverTask.Status.OUT_OF_MEMORY, start, path, -1); }
+            if(nodes % TIME_CHECK_INTERVAL == 0 && System.nanoTime() > deadline){ return finish(SolverTask.Status.OUT_OF_TIME, start, path, -1); }
+            if(nodes % TIME_CHECK_INTERVAL == 0 && Thread.currentThread().isInterrupted()){ return finish(SolverTask.Status.CANCELLED, start, path, -1); }
+            depth++;
+            nodes++;
+            counts[depth] = listMoves(config, moves[depth], scores); cursors[depth] = 0; stats.expanded();
+        }
+        return finish(SolverTask.Status.NO_SOLUTION, start, path, -1);
+    }
+
+    /**
+     * Counts the distinct lines of hops that solve the puzzle, stopping once
+     * the count reaches the limit. The count of every board met is kept, so a
+     * board reached by another order of the same hops is added in rather than
+     * searched again, and a board stops being searched once its own count
+     * reaches the limit. Memory is counted as the table of boards met.
+     *
+     * @param start starting configuration, left unchanged
+     * @param limit the largest count wanted
+     * @param budget limits on the search
+     * @return the number of solutions up to the limit, or -1 if the budget ran out, as getStatus tells
+     */
+    public long countSolutions(HoppersConfig start, long limit, SolverBudget budget){
+        HoppersConfig config = start.copy();
+        LongStateTable seen = new LongStateTable(config.encodedLength());
+        this.dead = null;
+        stats.start();
+        stats.generated();
+        if(config.isGoal()){ return finishCount(Math.min(1, limit), seen); }
+        long deadline = budget.getTimeMillis() < Long.MAX_VALUE / 1_000_000 ? System.nanoTime() + budget.getTimeMillis() * 1_000_000 : Long.MAX_VALUE;
+        int maxDepth = config.getGreenCount();
+        int[][] moves = new int[maxDepth + 1][config.maxMoves()];
+        int[] counts = new int[maxDepth + 1];
+        int[] cursors = new int[maxDepth + 1];
+        int[] indices = new int[maxDepth + 1];
+        long[] sums = new long[maxDepth + 1];
+        int[] path = new int[maxDepth];
+        long[] solutions = new long[1 << 10];
+        long[] key = new long[config.encodedLength()];
+
+        config.encode(key, 0);
+        indices[0] = seen.add(key, 0, LongStateTable.NO_PARENT, LongStateTable.hash(config.zobristHash()));
+        counts[0] = config.getMoves(moves[0]); cursors[0] = 0; stats.expanded();
+        int depth = 0;
+        long nodes = 1;
+        while(true){
+            // every hop from this board was counted, or enough were, so its count is known
+            if(cursors[depth] == counts[depth] || sums[depth] >= limit){
+                long count = Math.min(sums[depth], limit);
+                if(depth == 0){ return finishCount(count, seen); }
+                solutions[indices[depth]] = count;
+                depth--;
+                config.undoMove(path[depth]);
+                sums[depth] = Math.min(limit, sums[depth] + count);
+                continue;
+            }
+            int move = moves[depth][cursors[depth]++];
+            config.applyMove(move); stats.generated();
+            if(config.isGoal()){
+                sums[depth] = Math.min(limit, sums[depth] + 1);
+                config.undoMove(move);
+                continue;
+            }
+            config.encode(key, 0);
+            int hash = LongStateTable.hash(config.zobristHash());
+            int index = seen.add(key, 0, LongStateTable.NO_PARENT, hash);
+            if(index < 0){
+                // hops never lead back, so a board met before was counted to the end
+                stats.duplicate();
+                sums[depth] = Math.min(limit, sums[depth] + solutions[seen.indexOf(key, 0, hash)]);
+                config.undoMove(move);
+                continue;
+            }
+            if(nodes >= budget.getMaxNodes()){ return finishCount(-1, SolverTask.Status.OUT_OF_NODES, seen); }
+            if(seen.memoryBytes() >= budget.getMaxBytes()){ return finishCount(-1, SolverTask.Status.OUT_OF_MEMORY, seen); }
+            if(nodes % TIME_CHECK_INTERVAL == 0 && System.nanoTime() > deadline){ return finishCount(-1, SolverTask.Status.OUT_OF_TIME, seen); }
+            if(index >= solutions.length){ solutions = Arrays.copyOf(solutions, solutions.length * 2); }
+            path[depth] = move;
+            depth++;
+            nodes++;
+            indices[depth] = index;
+            sums[depth] = 0;
+            counts[depth] = config.getMoves(moves[depth]); cursors[depth] = 0; stats.expanded();
+        }
+    }
+
+    /**
+     * Records how a finished count ended
+     *
+     * @param count the number of solutions found
+     * @param seen the boards met
+     * @return the count
+     */
+    private long finishCount(long count, LongStateTable seen){
+        return finishCount(count, count > 0 ? SolverTask.Status.SOLVED : SolverTask.Status.NO_SOLUTION, seen);
+    }
+
+    /**
+     * Records how a count ended
+     *
+     * @param count the number of solutions found, -1 if the count was stopped
+     * @param status how the count ended
+     * @param seen the boards met
+     * @return the count
+     */
+    private long finishCount(long count, SolverTask.Status status, LongStateTable seen){
+        this.status = status;
+        stats.finish(seen.size(), seen.memoryBytes());
+        return count;
+    }
+
+    /**
+     * Lists the hops from a board, sorted by the score of the board each leads to when there is an order
+     *
+     * @param config the board, left as it was
+     * @param moves array to write the hops into
+     * @param scores scratch array for the scores
+     * @return number of hops
+     */
+    private int listMoves(HoppersConfig config, int[] moves, int[] scores){
+        int count = config.getMoves(moves);
+        if(order == null){ return count; }
+        // scores each hop, then insertion sorts, which keeps ties in the board's own order
+        for(int i = 0; i < count; i++){
+            config.applyMove(moves[i]);
+            int score = order.applyAsInt(config);
+            config.undoMove(moves[i]);
+            int move = moves[i];
+            int j = i;
+            for(; j > 0 && scores[j - 1] > score; j--){
+                scores[j] = scores[j - 1];
+                moves[j] = moves[j - 1];
+            }
+            scores[j] = score;
+            moves[j] = move;
+        }
+        return count;
+    }
+
+    /**
+     * Records how the search ended and replays the hops of a solution on copies of the start
+     *
+     * @param status how the search ended
+     * @param start starting configuration
+     * @param path hops taken at each depth
+     * @param length number of hops to the goal, -1 if none was reached
+     * @return the solution path, or null without one
+     */
+    private Collection<Configuration> finish(SolverTask.Status status, HoppersConfig start, int[] path, int length){
+        this.status = status;
+        stats.finish(dead.size(), dead.memoryBytes());
+        if(length < 0){ return null; }
+        LinkedList<Configuration> solution = new LinkedList<>();
+        HoppersConfig step = start.copy();
+        solution.add(step);
+        for(int i = 0; i < length; i++){
+            step = step.copy();
+            step.applyMove(path[i]);
+            solution.add(step);
+        }
+        return solution;
+    }
+
+    /**
+     * Counts the green frogs with no frog on any pad next to them along a hop line
+     *
+     * @param config the board
+     * @return isolated green frogs
+     */
+    private static int isolatedGreens(HoppersConfig config){
+        HoppersLayout layout = config.getLayout();
+        int isolated = 0;
+        for(int pad = 0; pad < layout.getPadCount(); pad++){
+            if(config.getFrog(pad) != 'G'){ continue; }
+            boolean alone = true;
+            for(int jump = layout.firstJump(pad); jump < layout.endJump(pad) && alone; jump++){
+                alone = config.getFrog(layout.jumpOver(jump)) == '.';
+            }
+            if(alone){ isolated++; }
+        }
+        return isolated;
+    }
+}
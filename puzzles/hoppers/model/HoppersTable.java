@@ -0,0 +1,154 @@
+package puzzles.hoppers.model;
+
+import puzzles.common.solver.LongStateTable;
+import puzzles.common.solver.SolverBudget;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Which boards reachable from a Hoppers puzzle can still be won. Every
+ * reachable board is searched once, depth first, and a board is winning if it
+ * is solved or one of its hops leads to a winning board. Only the winning
+ * boards are kept, encoded in a primitive table, so a board's win bit is
+ * whether the table holds it; every other board the puzzle can reach is lost.
+ * A hint is then a lookup of the board each hop leads to.
+ */
+public class HoppersTable {
+    /** expansions between two checks of the clock and of the thread being interrupted */
+    private static final int CHECK_INTERVAL = 4096;
+
+    /** the winning boards */
+    private final LongStateTable winners;
+
+    /** number of boards the puzzle can reach */
+    private final int reachable;
+
+    /**
+     * Keeps the result of a finished search
+     * @param winners the winning boards
+     * @param reachable number of boards the puzzle can reach
+     */
+    private HoppersTable(LongStateTable winners, int reachable){
+        this.winners = winners;
+        this.reachable = reachable;
+    }
+
+    /**
+     * Searches every board reachable from the start. Stops early, without a
+     * table, if the budget runs out or the thread is interrupted. Memory is
+     * counted as the table of every board reached.
+     *
+     * @param start starting configuration, left unchanged
+     * @param budget limits on the search
+     * @return the table, or null if the search was stopped
+     */
+    public static HoppersTable build(HoppersConfig start, SolverBudget budget){
+        HoppersConfig config = start.copy();
+        int width = config.encodedLength();
+        LongStateTable seen = new LongStateTable(width);
+        BitSet wins = new BitSet();
+        long deadline = budget.getTimeMillis() < Long.MAX_VALUE / 1_000_000 ? System.nanoTime() + budget.getTimeMillis() * 1_000_000 : Long.MAX_VALUE;
+        int maxDepth = config.getGreenCount();
+        int[][] moves = new int[maxDepth + 1][config.maxMoves()];
+        int[] counts = new int[maxDepth + 1];
+        int[] cursors = new int[maxDepth + 1];
+        int[] indices = new int[maxDepth + 1];
+        boolean[] winning = new boolean[maxDepth + 1];
+        int[] path = new int[maxDepth + 1];
+        long[] key = new long[width];
+
+        config.encode(key, 0);
+        indices[0] = seen.add(key, 0, LongStateTable.NO_PARENT, LongStateTable.hash(config.zobristHash()));
+        winning[0] = config.isGoal();
+        counts[0] = config.getMoves(moves[0]); cursors[0] = 0;
+        long nodes = 1;
+        int depth = 0;
+        while(depth >= 0){
+            // every hop from this board was searched, so whether it wins is known
+            if(cursors[depth] == counts[depth]){
+                if(winning[depth]){ wins.set(indices[depth]); }
+                depth--;
+                if(depth >= 0){
+                    config.undoMove(path[depth]);
+                    winning[depth] |= winning[depth + 1];
+                }
+                continue;
+            }
+            int move = moves[depth][cursors[depth]++];
+            config.applyMove(move);
+            config.encode(key, 0);
+            int hash = LongStateTable.hash(config.zobristHash());
+            int index = seen.add(key, 0, LongStateTable.NO_PARENT, hash);
+            if(index < 0){
+                // hops never lead back, so a board seen before was searched to the end
+                winning[depth] |= wins.get(seen.indexOf(key, 0, hash));
+                config.undoMove(move);
+                continue;
+            }
+            path[depth] = move;
+            depth++;
+            nodes++;
+            indices[depth] = index;
+            winning[depth] = config.isGoal();
+            counts[depth] = config.getMoves(moves[depth]); cursors[depth] = 0;
+            if(nodes >= budget.getMaxNodes() || seen.memoryBytes() >= budget.getMaxBytes()){ return null; }
+            if(nodes % CHECK_INTERVAL == 0 && (System.nanoTime() > deadline || Thread.currentThread().isInterrupted())){ return null; }
+        }
+
+        // only the winning boards are kept
+        LongStateTable winners = new LongStateTable(width, wins.cardinality());
+        for(int i = wins.nextSetBit(0); i >= 0; i = wins.nextSetBit(i + 1)){
+            seen.get(i, key, 0);
+            winners.add(key, 0, LongStateTable.NO_PARENT, LongStateTable.hash(start.decode(key, 0).zobristHash()));
+        }
+        return new HoppersTable(winners, seen.size());
+    }
+
+    /**
+     * Can a board still be won?
+     * @param config a board reachable from the puzzle the table was built for
+     * @return true if some line of hops solves it
+     */
+    public boolean isWinning(HoppersConfig config){
+        long[] key = new long[config.encodedLength()];
+        config.encode(key, 0);
+        return winners.indexOf(key, 0, LongStateTable.hash(config.zobristHash())) >= 0;
+    }
+
+    /**
+     * Lists every hop from a board that keeps it winning
+     * @param config a board reachable from the puzzle the table was built for, left unchanged
+     * @return the move codes, in the board's own order, empty if the board is lost or solved
+     */
+    public int[] winningMoves(HoppersConfig config){
+        HoppersConfig board = config.copy();
+        int[] moves = new int[board.maxMoves()];
+        int count = board.getMoves(moves);
+        int winning = 0;
+        for(int i = 0; i < count; i++){
+            board.applyMove(moves[i]);
+            if(isWinning(board)){ moves[winning++] = moves[i]; }
+            board.undoMove(moves[i]);
+        }
+        return Arrays.copyOf(moves, winning);
+    }
+
+    /**
+     * gets the number of boards the puzzle can reach
+     * @return reachable boards
+     */
+    public int getReachableCount() { return reachable; }
+
+    /**
+     * gets the number of reachable boards that can still be won
+     * @return winning boards
+     */
+    public int getWinningCount() { return winners.size(); }
+
+    /**
+     * Estimated number of bytes held by the table
+     * @return bytes used by the winning boards
+     */
+    public long memoryBytes() { return winners.memoryBytes(); }
+}
@@ -37,7 +37,8 @@ public class HoppersPTUI implements Observer<HoppersModel, HoppersClientData> {
         System.out.println("l(oad) filename*   -- load a new puzzle" );
         System.out.println("q(uit)             -- quit the game" );
         System.out.println("r(eset)            -- start a new game" );
-        System.out.println("h(int)             -- shows next move" + "\n");
+        System.out.println("h(int)             -- shows next move" );
+        System.out.println("m(oves)            -- lists every move that can still win" + "\n");
         System.out.println("filename* = file format should be: data/hoppers/hoppers-4.txt");
         System.out.println("  the number can be replaced with any number between 0 to 9  ");
         System.out.println("-----------------------------------------------------------------");
@@ -65,6 +66,9 @@ public class HoppersPTUI implements Observer<HoppersModel, HoppersClientData> {
                 else if(words[0].startsWith("h")){
                     model.hint();
                 }
+                else if(words[0].startsWith("m")){
+                    model.winningMoves();
+                }
                 else if(words[0].startsWith("l")){
                     if(words.length==2){model.load(words[1]);}
                     else{displayHelp();}
@@ -1,8 +1,12 @@
 package puzzles.hoppers.solver;
 
+import puzzles.common.solver.AStarSolver;
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.ParallelSolver;
 import puzzles.common.solver.Solver;
 import puzzles.hoppers.model.HoppersConfig;
+import puzzles.hoppers.model.HoppersHeuristic;
+import puzzles.hoppers.model.HoppersSolver;
 
 import java.io.IOException;
 import java.util.Collection;
@@ -12,32 +16,71 @@ import java.util.List;
  * Puzzle Implementation to check if BFS solves correctly
  */
 public class Hoppers {
+    /** printed when the arguments can't be made sense of */
+    private static final String USAGE = "Usage: java Hoppers filename [threads|astar [compare]|dfs]";
 
     /**
      * Main method of Hoppers Solver which Java calls
-     * @param args command line arguments
+     * @param args command line arguments (filename, optional thread count, astar [compare] or dfs)
      * @throws IOException exception thrown if file is messed up
      */
     public static void main(String[] args) throws IOException {
-        if (args.length != 1) {
-            System.out.println("Usage: java Hoppers filename");
+        boolean compare = args.length == 3 && args[1].equals("astar") && args[2].equals("compare");
+        if (args.length != 1 && args.length != 2 && !compare) {
+            System.out.println(USAGE);
         }
         else{
             // construct the initial configuration
-            Configuration init = new HoppersConfig(args[0]);
+            HoppersConfig init = new HoppersConfig(args[0]);
             Solver solver = new Solver();
 
             // Print out starting message:
             System.out.println("File: "+args[0]);
             System.out.println(init);
 
-            // Attempt to solve puzzle
-            Collection<Configuration> solution = solver.solve(init);
-            List<Configuration> last = (List<Configuration>) solution;
+            // Attempt to solve puzzle, with A*, depth first or spreading the search over threads if asked to
+            Collection<Configuration> solution;
+            if(args.length >= 2 && args[1].equals("astar")){
+                AStarSolver<HoppersConfig> aStarSolver = new AStarSolver<>(new HoppersHeuristic());
+                solution = aStarSolver.solve(init);
+                System.out.println("Total configurations: " + aStarSolver.getTotalConfigs());
+                System.out.println("Unique configurations: " + aStarSolver.getUniqueConfigs());
+                System.out.println("Expanded configurations: " + aStarSolver.getExpandedConfigs());
+                if(compare){
+                    // a full breadth first search, only run when asked for since it can take far longer
+                    solver.solveCompact(init);
+                    System.out.println("Expanded configurations by BFS: " + solver.getExpandedConfigs());
+                }
+            }
+            else if(args.length == 2 && args[1].equals("dfs")){
+                // every hop removes a frog, so the first solution found is as short as any
+                HoppersSolver hoppersSolver = new HoppersSolver(HoppersSolver.FEWEST_ISOLATED);
+                solution = hoppersSolver.solve(init);
+                System.out.println("Total configurations: " + hoppersSolver.getTotalConfigs());
+                System.out.println("Dead configurations: " + hoppersSolver.getDeadConfigs());
+            }
+            else if(args.length == 2){
+                // anything else is taken as a thread count, so a mistyped mode ends up here
+                ParallelSolver parallelSolver;
+                try{
+                    parallelSolver = new ParallelSolver(Integer.parseInt(args[1]));
+                }
+                catch(IllegalArgumentException e){
+                    System.out.println(USAGE);
+                    return;
+                }
+                solution = parallelSolver.solve(init);
+                System.out.println("Total configurations: " + parallelSolver.getTotalConfigs());
+                System.out.println("Unique configurations: " + parallelSolver.getUniqueConfigs());
+            }
+            else{
+                solution = solver.solveCompact(init);
 
-            // Output total number of configurations and unique configurations
-            System.out.println("Total configurations: " + solver.getTotalConfigs());
-            System.out.println("Unique configurations: " + solver.getUniqueConfigs());
+                // Output total number of configurations and unique configurations
+                System.out.println("Total configurations: " + solver.getTotalConfigs());
+                System.out.println("Unique configurations: " + solver.getUniqueConfigs());
+            }
+            List<Configuration> last = (List<Configuration>) solution;
 
             // Output for solution depending if it's present
             if(solution!=null){
@@ -0,0 +1,255 @@
+package puzzles.hoppers.solver;
+
+import puzzles.common.solver.SolverBudget;
+import puzzles.hoppers.model.HoppersConfig;
+import puzzles.hoppers.model.HoppersSolver;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates Hoppers puzzles with a chosen number of green frogs and of
+ * solutions. Puzzles are built backwards: starting from a solved board with
+ * the red frog alone on a random pad, hops are taken back one at a time, each
+ * putting a green frog on the pad it jumped over, so every board built can be
+ * solved by playing them forwards again. Worker threads build boards at once,
+ * sharing a set of the puzzles found so none is handed out twice.
+ *
+ * After every hop taken back, the board's distinct lines of hops to a
+ * solution are counted with HoppersSolver, which stops as soon as the count
+ * passes the target. Taking a hop back keeps every solution the board had, so
+ * a board with too many solutions is dropped on the spot for another hop, and
+ * the walk backtracks when none is left. A finished board is kept if its
+ * count matches exactly.
+ */
+public class HoppersGenerator {
+    /** limits on counting the solutions of a single board */
+    private static final SolverBudget COUNT_BUDGET = new SolverBudget(10_000, 2_000_000, 128L << 20);
+
+    /** solution counts a single walk may make before it gives up */
+    private static final int WALK_COUNTS = 1000;
+
+    /** board whose size and pads the puzzles use, its frogs are ignored */
+    private final HoppersConfig template;
+
+    /** puzzles already found, by any worker */
+    private final Set<HoppersConfig> tried;
+
+    /** walks started so far */
+    private final AtomicLong attempts;
+
+    /** boards that could not be counted within the budget */
+    private final AtomicLong skipped;
+
+    /**
+     * Creates a generator for the pads of a puzzle
+     * @param template puzzle giving the board size and pads, its frogs are ignored
+     */
+    public HoppersGenerator(HoppersConfig template){
+        this.template = template;
+        this.tried = ConcurrentHashMap.newKeySet();
+        this.attempts = new AtomicLong();
+        this.skipped = new AtomicLong();
+    }
+
+    /**
+     * Main method
+     * @param args command line arguments (filename greens [solutions] [puzzles] [threads] [folder])
+     */
+    public static void main(String[] args){
+        if(args.length < 2 || args.length > 6){
+            System.out.println("Usage: java HoppersGenerator filename greens [solutions] [puzzles] [threads] [folder]");
+            System.exit(-1);
+        }
+        HoppersConfig template = null;
+        try{
+            template = new HoppersConfig(args[0]);
+        }
+        catch(IOException e){
+            System.out.println("Invalid file. Please try again");
+            System.exit(-1);
+        }
+        int greens = Integer.parseInt(args[1]);
+        long solutions = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        int puzzles = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+        HoppersGenerator generator = new HoppersGenerator(template);
+        long start = System.currentTimeMillis();
+        List<HoppersConfig> found = generator.generate(greens, solutions, puzzles, 1_000_000, threads, start);
+        System.out.println("Walks: " + generator.getAttempts() + " (" + generator.getSkipped() + " too large to count)");
+        System.out.println("Time: " + (System.currentTimeMillis() - start) + " ms");
+
+        for(int i = 0; i < found.size(); i++){
+            String text = toFileText(found.get(i));
+            System.out.println("Puzzle " + (i + 1) + ": " + greens + " green frogs, " + solutions + " solutions");
+            System.out.print(text);
+            if(args.length > 5){
+                String filename = args[5] + "/puzzle-" + (i + 1) + ".txt";
+                try(PrintWriter writer = new PrintWriter(new FileWriter(filename))){
+                    writer.print(text);
+                }
+                catch(IOException e){
+                    System.out.println("Could not write " + filename);
+                }
+            }
+        }
+    }
+
+    /**
+     * gets the number of random walks started so far
+     * @return walks started, failed ones included
+     */
+    public long getAttempts(){
+        return attempts.get();
+    }
+
+    /**
+     * gets the number of boards whose solutions could not be counted within the budget
+     * @return boards skipped
+     */
+    public long getSkipped(){
+        return skipped.get();
+    }
+
+    /**
+     * Builds boards on several threads until enough puzzles are found or the
+     * attempts run out
+     * @param greens green frogs on each puzzle
+     * @param solutions distinct solutions each puzzle must have
+     * @param puzzles number of puzzles wanted
+     * @param maxAttempts number of random walks to start at most
+     * @param threads worker threads
+     * @param seed seed of the random walks
+     * @return the puzzles found, at most the number wanted
+     */
+    public List<HoppersConfig> generate(int greens, long solutions, int puzzles, long maxAttempts, int threads, long seed){
+        List<HoppersConfig> found = new ArrayList<>();
+        SplittableRandom random = new SplittableRandom(seed);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try{
+            List<Future<?>> workers = new ArrayList<>();
+            for(int i = 0; i < threads; i++){
+                SplittableRandom workerRandom = random.split();
+                workers.add(pool.submit(() -> work(greens, solutions, puzzles, maxAttempts, workerRandom, found)));
+            }
+            for(Future<?> worker : workers){
+                worker.get();
+            }
+        }
+        catch(Exception e){
+            throw new IllegalStateException("Generating puzzles failed", e);
+        }
+        finally{
+            pool.shutdown();
+        }
+        return found.subList(0, Math.min(puzzles, found.size()));
+    }
+
+    /**
+     * Builds and checks boards on one thread until enough puzzles are found
+     * by all the threads together or the attempts run out
+     * @param greens green frogs on each puzzle
+     * @param solutions distinct solutions each puzzle must have
+     * @param puzzles number of puzzles wanted
+     * @param maxAttempts number of random walks to start at most
+     * @param random this thread's random numbers
+     * @param found puzzles found by every thread, locked while used
+     */
+    private void work(int greens, long solutions, int puzzles, long maxAttempts, SplittableRandom random, List<HoppersConfig> found){
+        HoppersSolver solver = new HoppersSolver();
+        while(attempts.incrementAndGet() <= maxAttempts){
+            synchronized(found){
+                if(found.size() >= puzzles){
+                    return;
+                }
+            }
+            HoppersConfig board = walkBack(greens, solutions, random, solver);
+            if(board != null && tried.add(board)){
+                synchronized(found){
+                    found.add(board);
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes random hops back from a random solved board
+     * @param greens green frogs to put on the board
+     * @param solutions distinct solutions the board must have
+     * @param random random numbers to use
+     * @param solver solver counting the solutions
+     * @return the board, or null if the walk gave up
+     */
+    private HoppersConfig walkBack(int greens, long solutions, SplittableRandom random, HoppersSolver solver){
+        HoppersConfig board = template.solvedBoard(random.nextInt(template.getLayout().getPadCount()));
+        int[] counts = {WALK_COUNTS};
+        return takeBack(board, greens, 1, solutions, random, solver, counts) ? board : null;
+    }
+
+    /**
+     * Takes hops back from a board in a random order, depth first. Taking a
+     * hop back never loses a solution, so a board with more solutions than
+     * wanted is given up at once and the next hop tried instead.
+     * @param board the board, left with the hops taken back if it succeeds and as it was if not
+     * @param left green frogs still to put on the board
+     * @param count solutions of the board as it is
+     * @param solutions distinct solutions the board must have
+     * @param random random numbers to use
+     * @param solver solver counting the solutions
+     * @param counts solution counts the walk may still make, shared by every depth
+     * @return true if the board ended up with the frogs and solutions wanted
+     */
+    private boolean takeBack(HoppersConfig board, int left, long count, long solutions, SplittableRandom random, HoppersSolver solver, int[] counts){
+        if(left == 0){
+            return count == solutions;
+        }
+        int[] moves = new int[board.maxMoves()];
+        int moveCount = board.getReverseMoves(moves);
+        for(int i = moveCount - 1; i > 0; i--){
+            int j = random.nextInt(i + 1);
+            int move = moves[i];
+            moves[i] = moves[j];
+            moves[j] = move;
+        }
+        for(int i = 0; i < moveCount && counts[0]-- > 0; i++){
+            board.undoMove(moves[i]);
+            // one more than wanted is enough to turn a board down
+            long taken = solver.countSolutions(board, solutions + 1, COUNT_BUDGET);
+            if(taken < 0){
+                skipped.incrementAndGet();
+            }
+            else if(taken <= solutions && takeBack(board, left - 1, taken, solutions, random, solver, counts)){
+                return true;
+            }
+            board.applyMove(moves[i]);
+        }
+        return false;
+    }
+
+    /**
+     * Writes a board in the puzzle file format read by HoppersConfig
+     * @param board the board
+     * @return the file contents
+     */
+    public static String toFileText(HoppersConfig board){
+        StringBuilder text = new StringBuilder();
+        text.append(board.getRow()).append(" ").append(board.getCol()).append("\n");
+        for(int r = 0; r < board.getRow(); r++){
+            for(int c = 0; c < board.getCol(); c++){
+                text.append(c > 0 ? " " : "").append(board.getCell(r, c));
+            }
+            text.append("\n");
+        }
+        return text.toString();
+    }
+}
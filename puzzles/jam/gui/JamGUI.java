@@ -1,6 +1,7 @@
 package puzzles.jam.gui;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
@@ -23,6 +24,9 @@ public class JamGUI extends Application  implements Observer<JamModel, JamClient
     private final static String X_CAR_COLOR = "#DF0101";
     private final static int BUTTON_FONT_SIZE = 20;
     private final static int ICON_SIZE = 75;
+    // Larger boards shrink their cells to fit about this many pixels, down to the smallest cell
+    private final static int BOARD_SIZE = 600;
+    private final static int MIN_ICON_SIZE = 12;
 
     private JamModel model;
     private String currentFile;
@@ -41,6 +45,7 @@ public class JamGUI extends Application  implements Observer<JamModel, JamClient
             this.boardArray = config.getBoard();
             this.model = new JamModel(config);
             this.model.addObserver(this);
+            this.model.setNotifier(Platform::runLater);
         } catch (IOException e) {
             System.out.println("Please input a valid file");
         }
@@ -115,19 +120,24 @@ public class JamGUI extends Application  implements Observer<JamModel, JamClient
      * Destructively updates a grid to match the boardArray. Also changes the size of the window
      * */
     private void setGridByArray(GridPane grid) {
+        int cells = Math.max(boardArray.length, boardArray[0].length);
+        int iconSize = Math.max(MIN_ICON_SIZE, Math.min(ICON_SIZE, BOARD_SIZE / cells));
+        int fontSize = Math.max(1, BUTTON_FONT_SIZE * iconSize / ICON_SIZE);
+        int[][] carIds = model.getCarIdArray();
         for (int row = 0; row < boardArray.length; ++row) {
             for (int col = 0; col < boardArray[row].length; ++col) {
                 Button button = new Button(boardArray[row][col]);
-                button.setMinSize(ICON_SIZE, ICON_SIZE);
-                button.setMaxSize(ICON_SIZE, ICON_SIZE);
-                String style = "-fx-font-size: " + BUTTON_FONT_SIZE + ";" + "-fx-font-weight: bold;";
+                button.setMinSize(iconSize, iconSize);
+                button.setMaxSize(iconSize, iconSize);
+                String style = "-fx-font-size: " + fontSize + ";" + "-fx-font-weight: bold;" + "-fx-padding: 0;";
                 if (boardArray[row][col].equals("X")) {
                     style += "-fx-background-color: " + X_CAR_COLOR + ";";
                 } else if (boardArray[row][col].equals(".")) {
                     style += "-fx-background-color: gray;";
                 } else {
-                    int hash = boardArray[row][col].hashCode();
-                    style += "-fx-background-color: rgb(" + (hash + 31) % 360 + "," + (hash * 100000 + 31) % 360 + "," + (hash * 300000 - 31) % 360 + ")"  + ";";
+                    // Stepping the hue by the golden angle keeps hundreds of cars apart
+                    int hue = carIds[row][col] * 137 % 360;
+                    style += "-fx-background-color: hsb(" + hue + ", 55%, 90%);";
                 }
                 button.setStyle(style);
                 int finalRow = row;
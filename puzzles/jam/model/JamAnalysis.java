@@ -0,0 +1,185 @@
+package puzzles.jam.model;
+
+import java.util.Arrays;
+
+/**
+ * Looks at a Traffic Jam board before any search runs. Finds the cars that can
+ * never move, because each end of the car is against the edge of the board or
+ * another car that never moves, and the boards that can be seen to have no
+ * solution without searching them.
+ * */
+public class JamAnalysis {
+    // The board that was analysed
+    private final JamConfig jamConfig;
+    // Cars that can never move, in the layout's order
+    private final boolean[] fixed;
+    // Why the board can't be solved, or null if no reason was found
+    private final String reason;
+
+    /**
+     * Analyses a board
+     * @param jamConfig the board to analyse
+     * */
+    public JamAnalysis(JamConfig jamConfig) {
+        this.jamConfig = jamConfig;
+        JamLayout layout = jamConfig.getLayout();
+        // Index of the car on each cell, row by row, -1 for an empty cell
+        int[] board = new int[layout.getRows() * layout.getCols()];
+        Arrays.fill(board, -1);
+        for (int i = 0; i < layout.getCarCount(); ++i) {
+            for (int j = 0; j < layout.getLength(i); ++j) {
+                board[layout.cell(i, jamConfig.getPosition(i), j)] = i;
+            }
+        }
+        this.fixed = findFixed(layout, board);
+        this.reason = findReason(layout, board);
+    }
+
+    /**
+     * Finds the cars that can never move. Every car starts out fixed, and a car
+     * is freed when the cell past either of its ends is on the board and empty or
+     * holds a freed car, until no more cars are freed. The cars left can't move
+     * first, since each is held in place by the edge or by cars that can't move.
+     * @param layout the layout of the board
+     * @param board index of the car on each cell, -1 for an empty cell
+     * @return one entry per car, true for a car that never moves
+     * */
+    private boolean[] findFixed(JamLayout layout, int[] board) {
+        boolean[] fixed = new boolean[layout.getCarCount()];
+        Arrays.fill(fixed, true);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < fixed.length; ++i) {
+                int position = jamConfig.getPosition(i);
+                if (fixed[i] && (canEnter(layout, board, fixed, i, position - 1) || canEnter(layout, board, fixed, i, position + layout.getLength(i)))) {
+                    fixed[i] = false;
+                    changed = true;
+                }
+            }
+        }
+        return fixed;
+    }
+
+    /**
+     * Could a car ever slide into a cell of its lane?
+     * @param car index of the car
+     * @param position the cell along the car's lane
+     * @return true if the cell is on the board and empty or held by a car that isn't fixed
+     * */
+    private static boolean canEnter(JamLayout layout, int[] board, boolean[] fixed, int car, int position) {
+        if (position < 0 || position >= layout.getLaneLength(car)) {
+            return false;
+        }
+        int owner = board[layout.cell(car, position, 0)];
+        return owner < 0 || !fixed[owner];
+    }
+
+    /**
+     * Is a cell of a car's lane held by a car that never moves?
+     * @param car index of the car
+     * @param position the cell along the car's lane
+     * */
+    private boolean isFixedAt(JamLayout layout, int[] board, int car, int position) {
+        int owner = board[layout.cell(car, position, 0)];
+        return owner >= 0 && fixed[owner];
+    }
+
+    /**
+     * Looks for a reason the board can never be solved
+     * @param layout the layout of the board
+     * @param board index of the car on each cell, -1 for an empty cell
+     * @return the reason, or null if none was found
+     * */
+    private String findReason(JamLayout layout, int[] board) {
+        int redCar = layout.getRedCar();
+        if (redCar < 0) {
+            return "There is no red car X";
+        }
+        if (jamConfig.isGoal()) {
+            return null;
+        }
+        if (fixed[redCar]) {
+            return "The red car X can never move";
+        }
+        if (!layout.isHorizontal(redCar)) {
+            return null;
+        }
+        // Every car in X's way has to be able to leave its row for good
+        int row = layout.row(redCar, jamConfig.getPosition(redCar), 0);
+        for (int col = jamConfig.getPosition(redCar) + layout.getLength(redCar); col < layout.getCols(); ++col) {
+            int owner = board[row * layout.getCols() + col];
+            if (owner < 0) {
+                continue;
+            }
+            String name = layout.getName(owner);
+            if (layout.isHorizontal(owner)) {
+                return "Car " + name + " is in the red car's row, between it and the exit";
+            }
+            if (fixed[owner]) {
+                return "Car " + name + " blocks the red car and can never move";
+            }
+            // The car only slides between the edges and fixed cars nearest to it
+            int first = jamConfig.getPosition(owner);
+            while (first > 0 && !isFixedAt(layout, board, owner, first - 1)) {
+                --first;
+            }
+            int last = jamConfig.getPosition(owner);
+            while (last + layout.getLength(owner) < layout.getLaneLength(owner) && !isFixedAt(layout, board, owner, last + layout.getLength(owner))) {
+                ++last;
+            }
+            if (last <= row && row < first + layout.getLength(owner)) {
+                return "Car " + name + " blocks the red car wherever it slides";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Was the board found to have no solution?
+     * @return true if no sequence of moves can solve the board
+     * */
+    public boolean isUnsolvable() {
+        return reason != null;
+    }
+
+    /**
+     * Getter for why the board has no solution
+     * @return the reason, or null if the board was not found unsolvable
+     * */
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * Can a car never move?
+     * @param car index of the car in the layout
+     * @return true if the car is held in place for good
+     * */
+    public boolean isFixed(int car) {
+        return fixed[car];
+    }
+
+    /**
+     * Getter for the number of cars that can never move
+     * @return the number of fixed cars
+     * */
+    public int getFixedCount() {
+        int count = 0;
+        for (boolean wall : fixed) {
+            if (wall) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the analysed board on a layout where the fixed cars are walls, so
+     * they are never tried as moves and stay out of every encoded state
+     * @return the board to search
+     * */
+    public JamConfig getPrunedConfig() {
+        return jamConfig.withLayout(jamConfig.getLayout().withFixed(fixed));
+    }
+}
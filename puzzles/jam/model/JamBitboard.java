@@ -0,0 +1,488 @@
+package puzzles.jam.model;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.EncodableConfiguration;
+import puzzles.common.solver.ZobristConfiguration;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * A configuration of the Traffic Jam game for boards up to 8x8, kept as bitboards.
+ * Cell (row, col) is bit row * 8 + col, so a car slides sideways with a shift by
+ * one and up or down with a shift by eight. The board is one occupancy mask and
+ * each car one mask of the cells it covers.
+ * */
+public class JamBitboard implements EncodableConfiguration, ZobristConfiguration {
+    // Bits in a row of the bitboard, whatever the width of the puzzle
+    private static final int STRIDE = 8;
+    // Cells of the first column and the first row
+    private static final long FIRST_COL = 0x0101010101010101L;
+    private static final long FIRST_ROW = 0xFFL;
+
+    // Dimensions of the puzzle
+    private final int rows;
+    private final int cols;
+    // Car names in a fixed order, shared by every copy. The index of a name is the car's index everywhere else.
+    private final String[] carNames;
+    // Whether each car slides left and right, shared by every copy
+    private final boolean[] horizontal;
+    // Mask of each car placed at bit 0, shared by every copy
+    private final long[] shapes;
+    // Cells a car must not cover to slide right or down, and to slide left or up, shared by every copy
+    private final long[] forwardEdges;
+    private final long[] backwardEdges;
+    // Index of the red car, -1 if there is none, and the cell it covers once it touches the right edge
+    private final int redCar;
+    private final long goalMask;
+    // Random key for each car at each bit, shared by every copy
+    private final long[][] zobristKeys;
+    // Furthest a single move slides a car, more than one in whole slide mode
+    private final int span;
+    // Indices of the cars that can move, shared by every copy. Fixed cars never leave their cells.
+    private final int[] moving;
+
+    // Cells covered by each car
+    private final long[] cars;
+    // Cells covered by any car
+    private long occupied;
+    // XOR of the keys of every car's current position
+    private long zobrist;
+
+    /**
+     * Builds the bitboard form of a configuration, in whole slide mode if the configuration is
+     * @rit.pre The board is at most 8x8, see fits
+     * @param jamConfig the configuration to convert
+     * */
+    public JamBitboard(JamConfig jamConfig) {
+        String[][] board = jamConfig.getBoard();
+        this.rows = board.length;
+        this.cols = board[0].length;
+        List<JamCar> jamCars = jamConfig.getCars();
+        int count = jamCars.size();
+        this.carNames = new String[count];
+        this.horizontal = new boolean[count];
+        this.shapes = new long[count];
+        this.forwardEdges = new long[count];
+        this.backwardEdges = new long[count];
+        this.cars = new long[count];
+
+        long lastCol = FIRST_COL << (cols - 1);
+        long lastRow = FIRST_ROW << (STRIDE * (rows - 1));
+        int redCar = -1;
+        for (int i = 0; i < count; ++i) {
+            JamCar jamCar = jamCars.get(i);
+            carNames[i] = jamCar.getName();
+            horizontal[i] = jamCar.getIsHorizontal();
+            int length = horizontal[i] ? jamCar.getEndCol() - jamCar.getStartCol() + 1 : jamCar.getEndRow() - jamCar.getStartRow() + 1;
+            for (int j = 0; j < length; ++j) {
+                shapes[i] |= 1L << (horizontal[i] ? j : STRIDE * j);
+            }
+            forwardEdges[i] = horizontal[i] ? lastCol : lastRow;
+            backwardEdges[i] = horizontal[i] ? FIRST_COL : FIRST_ROW;
+            cars[i] = shapes[i] << bit(jamCar.getStartRow(), jamCar.getStartCol());
+            occupied |= cars[i];
+            if (carNames[i].equals("X")) {
+                redCar = i;
+            }
+        }
+        this.redCar = redCar;
+        // Without a red car no board is ever solved, as for JamConfig
+        this.goalMask = redCar >= 0 ? 1L << bit(jamCars.get(redCar).getStartRow(), cols - 1) : 0;
+        this.span = jamConfig.hasWholeSlides() ? Math.max(rows, cols) - 1 : 1;
+        JamLayout layout = jamConfig.getLayout();
+        this.moving = new int[layout.getMovingCount()];
+        for (int i = 0, slot = 0; i < count; ++i) {
+            if (!layout.isFixed(i)) {
+                moving[slot++] = i;
+            }
+        }
+
+        // A fixed seed keeps hashes the same from run to run
+        SplittableRandom random = new SplittableRandom(count);
+        this.zobristKeys = new long[count][64];
+        for (int i = 0; i < count; ++i) {
+            for (int j = 0; j < 64; ++j) {
+                zobristKeys[i][j] = random.nextLong();
+            }
+            zobrist ^= zobristKeys[i][Long.numberOfTrailingZeros(cars[i])];
+        }
+    }
+
+    /**
+     * Copy constructor for JamBitboard
+     * @param other The JamBitboard to be copied
+     * */
+    private JamBitboard(JamBitboard other) {
+        this.rows = other.rows;
+        this.cols = other.cols;
+        this.carNames = other.carNames;
+        this.horizontal = other.horizontal;
+        this.shapes = other.shapes;
+        this.forwardEdges = other.forwardEdges;
+        this.backwardEdges = other.backwardEdges;
+        this.redCar = other.redCar;
+        this.goalMask = other.goalMask;
+        this.zobristKeys = other.zobristKeys;
+        this.span = other.span;
+        this.moving = other.moving;
+        this.cars = other.cars.clone();
+        this.occupied = other.occupied;
+        this.zobrist = other.zobrist;
+    }
+
+    /**
+     * Can a configuration be held as a bitboard?
+     * @param jamConfig the configuration to check
+     * @return true if its board is at most 8x8 with at most 255 cars
+     * */
+    public static boolean fits(JamConfig jamConfig) {
+        String[][] board = jamConfig.getBoard();
+        return board.length <= STRIDE && board[0].length <= STRIDE && jamConfig.getCars().size() <= 255;
+    }
+
+    /**
+     * Gets the bit of a cell
+     * */
+    private static int bit(int row, int col) {
+        return row * STRIDE + col;
+    }
+
+    /**
+     * Gets the cells a car would cover after sliding one more space, or 0 if the slide is blocked
+     * @param index index of the car
+     * @param forward true for right or down, false for left or up
+     * @param from cells the car covers before this space, its own cells or where earlier spaces of the slide took it
+     * */
+    private long slid(int index, boolean forward, long from) {
+        int step = horizontal[index] ? 1 : STRIDE;
+        long next;
+        if (forward) {
+            if ((from & forwardEdges[index]) != 0) {
+                return 0;
+            }
+            next = from << step;
+        } else {
+            if ((from & backwardEdges[index]) != 0) {
+                return 0;
+            }
+            next = from >>> step;
+        }
+        return (next & ~cars[index] & occupied) == 0 ? next : 0;
+    }
+
+    /**
+     * Moves a car to the cells it slides into, updating the occupancy and the hash
+     * */
+    private void place(int index, long next) {
+        long car = cars[index];
+        occupied ^= car ^ next;
+        zobrist ^= zobristKeys[index][Long.numberOfTrailingZeros(car)] ^ zobristKeys[index][Long.numberOfTrailingZeros(next)];
+        cars[index] = next;
+    }
+
+    /**
+     * Gets the index of the car covering a cell
+     * @return the car index, or -1 for an empty cell
+     * */
+    private int carAt(int row, int col) {
+        long cell = 1L << bit(row, col);
+        if ((occupied & cell) == 0) {
+            return -1;
+        }
+        int index = 0;
+        while ((cars[index] & cell) == 0) {
+            ++index;
+        }
+        return index;
+    }
+
+    /**
+     * Gets a collection of the successors from current one.
+     *
+     * @return all successors
+     */
+    @Override
+    public Collection<Configuration> getNeighbors() {
+        Collection<Configuration> neighbors = new ArrayList<>();
+        forEachNeighbor(neighbors::add);
+        return neighbors;
+    }
+
+    /**
+     * Hands each successor to action without collecting them first. Each car
+     * is tried left or up first, then right or down, nearest first in whole slide mode.
+     * Fixed cars are skipped.
+     *
+     * @param action called with each successor, returns false to stop
+     * @return true if every successor was handed over
+     */
+    @Override
+    public boolean forEachNeighbor(Predicate<? super Configuration> action) {
+        for (int i : moving) {
+            for (int direction = 0; direction < 2; ++direction) {
+                long next = cars[i];
+                for (int distance = 1; distance <= span && (next = slid(i, direction == 1, next)) != 0; ++distance) {
+                    JamBitboard neighbor = new JamBitboard(this);
+                    neighbor.place(i, next);
+                    if (!action.test(neighbor)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Has the goal been reached?
+     *
+     * @return true if the red car is in the furthest-right column, false otherwise or if there is no red car
+     */
+    @Override
+    public boolean isGoal() {
+        return redCar >= 0 && (cars[redCar] & goalMask) != 0;
+    }
+
+    /**
+     * Each car that can move takes one byte holding the bit of its first cell.
+     * Fixed cars are the same in every state and left out.
+     *
+     * @return longs per encoded state
+     */
+    @Override
+    public int encodedLength() {
+        return (moving.length + 7) / 8;
+    }
+
+    /**
+     * Packs the position of every car into dest
+     *
+     * @param dest array to write into
+     * @param offset first index to write
+     */
+    @Override
+    public void encode(long[] dest, int offset) {
+        for (int i = 0; i < encodedLength(); ++i) {
+            dest[offset + i] = 0;
+        }
+        for (int i = 0; i < moving.length; ++i) {
+            dest[offset + i / 8] |= (long) Long.numberOfTrailingZeros(cars[moving[i]]) << (8 * (i % 8));
+        }
+    }
+
+    /**
+     * Rebuilds a configuration of this puzzle from packed car positions
+     *
+     * @param src array holding the encoded state
+     * @param offset first index of the encoded state
+     * @return the decoded configuration
+     */
+    @Override
+    public JamBitboard decode(long[] src, int offset) {
+        JamBitboard config = new JamBitboard(this);
+        for (int i = 0; i < moving.length; ++i) {
+            int position = (int) ((src[offset + i / 8] >>> (8 * (i % 8))) & 0xFF);
+            config.cars[moving[i]] = shapes[moving[i]] << position;
+        }
+        config.occupied = 0;
+        config.zobrist = 0;
+        for (int i = 0; i < cars.length; ++i) {
+            config.occupied |= config.cars[i];
+            config.zobrist ^= zobristKeys[i][Long.numberOfTrailingZeros(config.cars[i])];
+        }
+        return config;
+    }
+
+    /**
+     * Each car can slide one space either way, or up to the length of its lane in whole slide mode
+     * @return the largest number of moves getMoves can list
+     * */
+    @Override
+    public int maxMoves() {
+        return 2 * cars.length * span;
+    }
+
+    /**
+     * Lists every legal slide, with the same codes JamConfig uses: the car's index
+     * times the longest slide plus the distance less one, all times two, plus one
+     * for right or down and zero for left or up.
+     * @param moves array to write the move codes into
+     * @return number of moves written
+     * */
+    @Override
+    public int getMoves(int[] moves) {
+        int count = 0;
+        for (int i : moving) {
+            for (int direction = 0; direction < 2; ++direction) {
+                long next = cars[i];
+                for (int distance = 1; distance <= span && (next = slid(i, direction == 1, next)) != 0; ++distance) {
+                    moves[count++] = 2 * (i * span + distance - 1) + direction;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Slides a car in place
+     * @param move a code returned by getMoves
+     * */
+    @Override
+    public void applyMove(int move) {
+        int index = move / 2 / span;
+        int shift = (move / 2 % span + 1) * (horizontal[index] ? 1 : STRIDE);
+        place(index, move % 2 == 1 ? cars[index] << shift : cars[index] >>> shift);
+    }
+
+    /**
+     * Slides a car back in place
+     * @param move the move most recently applied
+     * */
+    @Override
+    public void undoMove(int move) {
+        applyMove(move ^ 1);
+    }
+
+    /**
+     * The opposite slide of the same car over the same distance
+     * @param move a move code
+     * @return the move code with its direction flipped
+     * */
+    @Override
+    public int inverseMove(int move) {
+        return move ^ 1;
+    }
+
+    /**
+     * Copies this configuration
+     * @return an independent copy
+     * */
+    @Override
+    public JamBitboard copy() {
+        return new JamBitboard(this);
+    }
+
+    /**
+     * Gets the Zobrist hash of the car positions
+     * @return the 64 bit hash
+     * */
+    @Override
+    public long zobristHash() {
+        return zobrist;
+    }
+
+    /*
+     * Checks whether two JamBitboards are equal
+     * @return true if they're equal, false otherwise
+     * */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        JamBitboard jamBitboard = (JamBitboard) o;
+        return occupied == jamBitboard.occupied && Arrays.equals(cars, jamBitboard.cars);
+    }
+
+    /*
+     * Returns a hashcode of this jamBitboard
+     * @return A hashcode of this jamBitboard
+     * */
+    @Override
+    public int hashCode() {
+        return (int) (zobrist ^ (zobrist >>> 32));
+    }
+
+    /**
+     * Builds the board the way JamConfig holds it, letters for cars and periods for blank spaces
+     * @return a new board array
+     * */
+    public String[][] getBoard() {
+        String[][] board = new String[rows][cols];
+        for (int row = 0; row < rows; ++row) {
+            for (int col = 0; col < cols; ++col) {
+                int index = carAt(row, col);
+                board[row][col] = index < 0 ? "." : carNames[index];
+            }
+        }
+        return board;
+    }
+
+    @Override
+    public String toString() {
+        return JamConfig.format(getBoard());
+    }
+
+    /**
+     * Is the space at the given row and col taken up by a car?
+     * */
+    public String isACar(int row, int col) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols) {
+            return "IndexOutOfBounds";
+        }
+        return carAt(row, col) >= 0 ? "yes" : "no";
+    }
+
+    /**
+     * Moves a car in the specified row and column by 1 in the direction of the endRow and endCol if they're valid
+     * @param carRow The row of the car
+     * @param carCol the column of the car
+     * @param endRow The destination row of the car
+     * @param endCol The destination column of the car
+     * @return indicator string for the PTUI
+     * */
+    public String moveCar(int carRow, int carCol, int endRow, int endCol) {
+        if (carRow < 0 || carRow >= rows || carCol < 0 || carCol >= cols) {
+            return "Please select a car within the bounds of the board";
+        }
+        int index = carAt(carRow, carCol);
+        if (index < 0) {
+            return "Starting position doesn't have a corresponding car";
+        }
+        String name = carNames[index];
+        int head = Long.numberOfTrailingZeros(cars[index]);
+        int rear = 63 - Long.numberOfLeadingZeros(cars[index]);
+        int headRow = head / STRIDE, headCol = head % STRIDE;
+        int rearRow = rear / STRIDE, rearCol = rear % STRIDE;
+        if (horizontal[index]) {
+            if (headRow != endRow) {
+                return "Can't move a horizontal piece vertically";
+            }
+            if (endCol > rearCol) {
+                return slide(index, true, rearCol + 1 < cols, "to the right 1 space");
+            } else if (endCol < headCol) {
+                return slide(index, false, headCol - 1 >= 0, "to the left 1 space");
+            }
+            return "To move a horizontal piece, select a space to the right or left of it";
+        }
+        if (headCol != endCol) {
+            return "Can't move a vertical piece horizontally";
+        }
+        if (endRow > rearRow) {
+            return slide(index, true, rearRow + 1 < rows, "down 1 space");
+        } else if (endRow < headRow) {
+            return slide(index, false, headRow - 1 >= 0, "up 1 space");
+        }
+        return "To move a vertical piece, select a space above or below your current selection";
+    }
+
+    /**
+     * Slides a car for moveCar if the cell it moves into is on the board and free
+     * @param index index of the car
+     * @param forward true for right or down, false for left or up
+     * @param onBoard whether the cell the car moves into is on the board
+     * @param direction how the move is described in the message
+     * @return indicator string for the PTUI
+     * */
+    private String slide(int index, boolean forward, boolean onBoard, String direction) {
+        if (!onBoard) {
+            return "Please select a location within the board";
+        }
+        long next = slid(index, forward, cars[index]);
+        if (next == 0) {
+            return "Can't move " + carNames[index] + " " + direction;
+        }
+        place(index, next);
+        return "Moved " + carNames[index] + " " + direction;
+    }
+}
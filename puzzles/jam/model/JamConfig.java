@@ -2,19 +2,28 @@ package puzzles.jam.model;
 
 // TODO: implement your JamConfig for the common solver
 
+import puzzles.common.solver.BidirectionalConfiguration;
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.EncodableConfiguration;
+import puzzles.common.solver.RankedConfiguration;
+import puzzles.common.solver.ZobristConfiguration;
 
 import java.io.*;
 import java.util.*;
+import java.util.function.Predicate;
 
 /**
  * A configuration of the Traffic Jam game
  * */
-public class JamConfig implements Configuration {
-    // 2-D representation of the game. Uses letters for cars and periods for blank spaces
-    private String[][] board;
-    // HashMap of JamCars. Useful for moving them and generating the board.
-    private HashMap<String,JamCar> jamCarMap;
+public class JamConfig implements EncodableConfiguration, BidirectionalConfiguration, ZobristConfiguration, RankedConfiguration {
+    // Board size and the name, direction, length and lane of every car, shared by every copy
+    private JamLayout layout;
+    // First row (vertical) or column (horizontal) of each car, in the layout's car order
+    private byte[] positions;
+    // XOR of the keys of every car's current position, kept up to date by each slide
+    private long zobrist;
+    // Whether a move slides a car any free distance instead of one space
+    private boolean wholeSlides;
 
     /**
      * Constructor for the initial configuration
@@ -29,63 +38,136 @@ public class JamConfig implements Configuration {
      * @param jamConfig The JamConfig to be copied
      * */
     public JamConfig(JamConfig jamConfig) {
-        this.board = new String[jamConfig.board.length][jamConfig.board[0].length];
-        for (int i = 0; i < this.board.length; ++i) {
-            this.board[i] = jamConfig.board[i].clone();
-        }
+        this.layout = jamConfig.layout;
+        this.positions = jamConfig.positions.clone();
+        this.zobrist = jamConfig.zobrist;
+        this.wholeSlides = jamConfig.wholeSlides;
+    }
 
-        this.jamCarMap = new HashMap<>();
-        for (JamCar jamCar : jamConfig.jamCarMap.values()) {
-            this.jamCarMap.put(jamCar.getName(), new JamCar(jamCar));
-        }
+    /**
+     * Gets a copy of this configuration whose moves slide a car any free distance
+     * in one go, so a solution is counted in the standard Rush Hour move metric
+     * @return the copy, and every config reached from it, in whole slide mode
+     * */
+    public JamConfig withWholeSlides() {
+        JamConfig jamConfig = new JamConfig(this);
+        jamConfig.wholeSlides = true;
+        return jamConfig;
+    }
+
+    /**
+     * Gets a copy of this configuration played on another layout of the same puzzle,
+     * such as one marking the cars that never move
+     * @param layout the layout to use, with the same board and cars
+     * @return the copy
+     * */
+    JamConfig withLayout(JamLayout layout) {
+        JamConfig jamConfig = new JamConfig(this);
+        jamConfig.layout = layout;
+        return jamConfig;
+    }
+
+    /**
+     * Does a move slide a car any free distance instead of one space?
+     * @return true in whole slide mode
+     * */
+    public boolean hasWholeSlides() {
+        return wholeSlides;
+    }
+
+    /**
+     * Gets the furthest a single move can slide a car
+     * */
+    private int span() {
+        return wholeSlides ? Math.max(layout.getRows(), layout.getCols()) - 1 : 1;
     }
 
     /**
-     * Creates an initial state for the board and jamCarMap using a starting file
+     * Creates an initial state for the layout and car positions using a starting file
      * @rit.pre The file has a valid starting configuration
      * @param filename The name of the file with the starting information
      * */
     public void prepareByFile(String filename) throws IOException {
         BufferedReader reader = new BufferedReader(new FileReader(filename));
-        jamCarMap = new HashMap<>();
+        ArrayList<JamCar> jamCars = new ArrayList<>();
 
         // The first line of the file has the dimensions of the board
         String[] splitLine = reader.readLine().split(" ");
-        this.board = new String[Integer.parseInt(splitLine[0])][Integer.parseInt(splitLine[1])];
+        int rows = Integer.parseInt(splitLine[0]);
+        int cols = Integer.parseInt(splitLine[1]);
 
         // The second line tells the number of cars to follow
         int numberOfCars = Integer.parseInt(reader.readLine());
         for (int i = 0; i < numberOfCars; ++i) {
-            // Creates a new JamCar based on the file's description, then adds it to the map.
+            // Creates a new JamCar based on the file's description, then adds it to the list.
             splitLine = reader.readLine().split(" ");
-            JamCar jamCar = new JamCar(splitLine[0], Integer.parseInt(splitLine[1]), Integer.parseInt(splitLine[2]), Integer.parseInt(splitLine[3]), Integer.parseInt(splitLine[4]));
-            jamCarMap.put(jamCar.getName(), jamCar);
+            jamCars.add(new JamCar(splitLine[0], Integer.parseInt(splitLine[1]), Integer.parseInt(splitLine[2]), Integer.parseInt(splitLine[3]), Integer.parseInt(splitLine[4])));
+        }
+        this.layout = new JamLayout(rows, cols, jamCars);
+        this.positions = new byte[numberOfCars];
+        for (JamCar jamCar : jamCars) {
+            positions[layout.indexOf(jamCar.getName())] = (byte) (jamCar.getIsHorizontal() ? jamCar.getStartCol() : jamCar.getStartRow());
         }
-        setBoardFromMap();
+        rehash();
+    }
 
+    /**
+     * Recomputes the hash from the car positions
+     * */
+    private void rehash() {
+        zobrist = 0;
+        for (int i = 0; i < positions.length; ++i) {
+            zobrist ^= layout.zobristKey(i, positions[i]);
+        }
     }
 
     /**
-     * Updates the board so that it matches the jamCarMap
+     * Gets the car on every cell of the board
+     * @return one entry per cell, row by row, the index of the car there or -1 for an empty cell
      * */
-    public void setBoardFromMap() {
-        // Fills the board with periods to be used as blank spaces
-        for (String[] strings : board) {
-            Arrays.fill(strings, ".");
+    int[] getCarIds() {
+        int[] ids = new int[layout.getRows() * layout.getCols()];
+        Arrays.fill(ids, -1);
+        for (int i = 0; i < positions.length; ++i) {
+            for (int j = 0; j < layout.getLength(i); ++j) {
+                ids[layout.cell(i, positions[i], j)] = i;
+            }
         }
-        // Replaces the empty spaces with cars
-        for (JamCar jamCar : jamCarMap.values()) {
-            board[jamCar.getStartRow()][jamCar.getStartCol()] = jamCar.getName();
-            if (jamCar.getIsHorizontal()) {
-                for (int i = jamCar.getStartCol() + 1; i <= jamCar.getEndCol(); ++i) {
-                    board[jamCar.getStartRow()][i] = jamCar.getName();
-                }
-            } else {
-                for (int i = jamCar.getStartRow() + 1; i <= jamCar.getEndRow(); ++i) {
-                    board[i][jamCar.getStartCol()] = jamCar.getName();
-                }
+        return ids;
+    }
+
+    /**
+     * Can a car slide without leaving the board or running into another car?
+     * @param index index of the car
+     * @param amount spaces to slide, positive for right or down, negative for left or up
+     * @param ids the car on every cell, see getCarIds
+     * */
+    private boolean canSlide(int index, int amount, int[] ids) {
+        int position = positions[index];
+        int length = layout.getLength(index);
+        if (position + amount < 0 || position + amount + length > layout.getLaneLength(index)) {
+            return false;
+        }
+        // Every cell the car passes through has to be free
+        for (int i = 1; i <= Math.abs(amount); ++i) {
+            if (ids[layout.cell(index, position, amount < 0 ? -i : length - 1 + i)] >= 0) {
+                return false;
             }
         }
+        return true;
+    }
+
+    /**
+     * Gets the index of the car covering a cell, the same id the layout gives the car
+     * @param row row of the cell
+     * @param col column of the cell
+     * @return the car index, or -1 for an empty cell
+     * */
+    public int getCarId(int row, int col) {
+        if (row < 0 || row >= layout.getRows() || col < 0 || col >= layout.getCols()) {
+            return -1;
+        }
+        return getCarIds()[row * layout.getCols() + col];
     }
 
     /*
@@ -97,39 +179,46 @@ public class JamConfig implements Configuration {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         JamConfig jamConfig = (JamConfig) o;
-        for (int i = 0; i < board.length; i++) {
-            for (int j = 0; j < board[i].length; j++) {
-                if (!board[i][j].equals(jamConfig.board[i][j])) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return zobrist == jamConfig.zobrist && Arrays.equals(positions, jamConfig.positions);
     }
 
     @Override
     public String toString() {
-        String output = "   ";
-        for (int i = 0; i < board[0].length; ++i) {
-            output += i + " ";
+        return format(getBoard());
+    }
+
+    /**
+     * Draws a board with row and column numbers. Cells are as wide as the longest
+     * car name or column number, so large boards with long names stay lined up.
+     * @param board the board array, see getBoard
+     * @return the drawing
+     * */
+    static String format(String[][] board) {
+        int width = String.valueOf(board[0].length - 1).length();
+        for (String[] row : board) {
+            for (String cell : row) {
+                width = Math.max(width, cell.length());
+            }
         }
-        output += "\n ";
-        for (int i = 0; i < 2.5 * board[0].length; ++i) {
-            output += "-";
+        int labelWidth = String.valueOf(board.length - 1).length();
+        String cellFormat = "%-" + width + "s ";
+        String labelFormat = "%" + labelWidth + "d| ";
+
+        StringBuilder output = new StringBuilder(" ".repeat(labelWidth + 2));
+        for (int i = 0; i < board[0].length; ++i) {
+            output.append(String.format(cellFormat, i));
         }
-        output += "\n";
+        String rule = " ".repeat(labelWidth) + "-".repeat((int) Math.ceil((width + 1.5) * board[0].length));
+        output.append("\n").append(rule).append("\n");
         for (int i = 0; i < board.length; ++i) {
-            output += i + "| ";
+            output.append(String.format(labelFormat, i));
             for (int col = 0; col < board[i].length; ++col) {
-                output += board[i][col] + " ";
+                output.append(String.format(cellFormat, board[i][col]));
             }
-            output += "|\n";
+            output.append("|\n");
         }
-        output += " ";
-        for (int i = 0; i < 2.5 * board[0].length; ++i) {
-            output += "-";
-        }
-        return output;
+        output.append(rule);
+        return output.toString();
     }
 
     /*
@@ -138,7 +227,16 @@ public class JamConfig implements Configuration {
     * */
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(board);
+        return (int) (zobrist ^ (zobrist >>> 32));
+    }
+
+    /**
+     * Gets the Zobrist hash of the car positions
+     * @return the 64 bit hash
+     * */
+    @Override
+    public long zobristHash() {
+        return zobrist;
     }
 
     /**
@@ -149,40 +247,410 @@ public class JamConfig implements Configuration {
     @Override
     public Collection<Configuration> getNeighbors() {
         Collection<Configuration> neighbors = new ArrayList<>();
-        for (JamCar jamCar : jamCarMap.values()) {
-            if (jamCar.getIsHorizontal()) {
-                // Config where this piece is moved left
-                if (jamCar.getStartCol() != 0 && board[jamCar.getStartRow()][jamCar.getStartCol() - 1].equals(".")) {
+        forEachNeighbor(neighbors::add);
+        return neighbors;
+    }
+
+    /**
+     * Hands each successor to action without collecting them first. Each car
+     * is tried left or up first, then right or down, nearest first in whole slide mode.
+     * Fixed cars are skipped.
+     *
+     * @param action called with each successor, returns false to stop
+     * @return true if every successor was handed over
+     */
+    @Override
+    public boolean forEachNeighbor(Predicate<? super Configuration> action) {
+        int[] ids = getCarIds();
+        int span = span();
+        for (int i = 0; i < positions.length; ++i) {
+            if (layout.isFixed(i)) {
+                continue;
+            }
+            for (int direction = -1; direction <= 1; direction += 2) {
+                for (int distance = 1; distance <= span && canSlide(i, direction * distance, ids); ++distance) {
                     JamConfig neighbor = new JamConfig(this);
-                    neighbor.jamCarMap.replace(jamCar.getName(), jamCar.moveHorizontally(-1));
-                    neighbor.setBoardFromMap();
-                    neighbors.add(neighbor);
+                    neighbor.slide(i, direction * distance);
+                    if (!action.test(neighbor)) {
+                        return false;
+                    }
                 }
-                // Config where this piece is moved right
-                if (jamCar.getEndCol() != board[jamCar.getStartRow()].length - 1 && board[jamCar.getStartRow()][jamCar.getEndCol() + 1].equals(".")) {
-                    JamConfig neighbor = new JamConfig(this);
-                    neighbor.jamCarMap.replace(jamCar.getName(), jamCar.moveHorizontally(1));
-                    neighbor.setBoardFromMap();
-                    neighbors.add(neighbor);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets every legal board where the red car touches the right edge that
+     * could be reached from this one. Slides can always be undone, so the
+     * default predecessors apply. Fixed cars stay where they are, no car gets
+     * past a cell held by a fixed car, and cars sharing a lane keep their
+     * order, since none of that can change by sliding.
+     *
+     * @return collection of goal configurations
+     */
+    @Override
+    public Collection<Configuration> getGoals() {
+        return getGoals(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets the goal boards reachable from this one, as getGoals does, giving
+     * up as soon as there are more than a limit of them
+     *
+     * @param limit the most goals wanted
+     * @return collection of goal configurations, or null if there are more than limit
+     */
+    @Override
+    public Collection<Configuration> getGoals(int limit) {
+        Collection<Configuration> goals = new ArrayList<>();
+        JamConfig goal = new JamConfig(this);
+        boolean[] taken = new boolean[layout.getRows() * layout.getCols()];
+        for (int i = 0; i < positions.length; ++i) {
+            if (layout.isFixed(i)) {
+                setTaken(i, positions[i], taken, true);
+            }
+        }
+        // Each car only slides between the fixed cells nearest to it
+        int[] first = new int[positions.length];
+        int[] last = new int[positions.length];
+        for (int i = 0; i < positions.length; ++i) {
+            first[i] = positions[i];
+            while (first[i] > 0 && !taken[layout.cell(i, first[i] - 1, 0)]) {
+                --first[i];
+            }
+            last[i] = positions[i];
+            while (last[i] + layout.getLength(i) < layout.getLaneLength(i) && !taken[layout.cell(i, last[i] + layout.getLength(i), 0)]) {
+                ++last[i];
+            }
+        }
+        return placeCars(goal, 0, taken, first, last, goals, limit) ? goals : null;
+    }
+
+    /**
+     * Places the cars from index onwards at every free spot of their lanes,
+     * adding a copy of the finished board to goals once all cars are placed.
+     * Fixed cars stay where they are, their cells already taken
+     * @param goal config being filled in, its positions are overwritten as cars are placed
+     * @param index index of the next car to place
+     * @param taken cells already covered by placed cars
+     * @param first lowest position each car can reach
+     * @param last highest position each car can reach
+     * @param goals collection the finished boards are added to
+     * @param limit the most goals wanted
+     * @return false once there are more than limit goals
+     * */
+    private boolean placeCars(JamConfig goal, int index, boolean[] taken, int[] first, int[] last, Collection<Configuration> goals, int limit) {
+        if (index == positions.length) {
+            JamConfig finished = new JamConfig(goal);
+            finished.rehash();
+            goals.add(finished);
+            return goals.size() <= limit;
+        }
+        if (layout.isFixed(index)) {
+            return placeCars(goal, index + 1, taken, first, last, goals, limit);
+        }
+        int length = layout.getLength(index);
+        // The red car stays put at the right edge
+        int from = index == layout.getRedCar() ? layout.getCols() - length : first[index];
+        for (int position = from; position <= last[index]; ++position) {
+            boolean free = true;
+            for (int i = 0; i < length && free; ++i) {
+                free = !taken[layout.cell(index, position, i)];
+            }
+            if (free && keepsOrder(goal, index, position)) {
+                setTaken(index, position, taken, true);
+                goal.positions[index] = (byte) position;
+                boolean more = placeCars(goal, index + 1, taken, first, last, goals, limit);
+                setTaken(index, position, taken, false);
+                if (!more) {
+                    return false;
                 }
-            } else {
-                // Config where this piece is moved up
-                if (jamCar.getStartRow() != 0 && board[jamCar.getStartRow() - 1][jamCar.getStartCol()].equals(".")) {
-                    JamConfig neighbor = new JamConfig(this);
-                    neighbor.jamCarMap.replace(jamCar.getName(), jamCar.moveVertically(-1));
-                    neighbor.setBoardFromMap();
-                    neighbors.add(neighbor);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Does a car placed at a position stay on the same side of every car
+     * already placed in its lane as it is on this board?
+     * @param goal config being filled in, cars before index already placed
+     * @param index index of the car being placed
+     * @param position the car's position on the goal board
+     * */
+    private boolean keepsOrder(JamConfig goal, int index, int position) {
+        for (int j = 0; j < index; ++j) {
+            if (!layout.isFixed(j) && sharesLane(index, j)
+                    && (positions[j] < positions[index]) != (goal.positions[j] < position)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Do two cars slide along the same row or column?
+     * */
+    private boolean sharesLane(int a, int b) {
+        if (layout.isHorizontal(a) != layout.isHorizontal(b)) {
+            return false;
+        }
+        return layout.isHorizontal(a) ? layout.row(a, 0, 0) == layout.row(b, 0, 0) : layout.col(a, 0, 0) == layout.col(b, 0, 0);
+    }
+
+    /**
+     * Marks or clears the cells covered by a car
+     * */
+    private void setTaken(int index, int position, boolean[] taken, boolean value) {
+        for (int i = 0; i < layout.getLength(index); ++i) {
+            taken[layout.cell(index, position, i)] = value;
+        }
+    }
+
+    /**
+     * Each car that can move takes one byte holding its first row (vertical) or
+     * column (horizontal). Fixed cars are the same in every state and left out.
+     *
+     * @return longs per encoded state
+     */
+    @Override
+    public int encodedLength() {
+        return (layout.getMovingCount() + 7) / 8;
+    }
+
+    /**
+     * Packs the position of every car into dest
+     *
+     * @param dest array to write into
+     * @param offset first index to write
+     */
+    @Override
+    public void encode(long[] dest, int offset) {
+        for (int i = 0; i < encodedLength(); ++i) {
+            dest[offset + i] = 0;
+        }
+        int slot = 0;
+        for (int i = 0; i < positions.length; ++i) {
+            if (!layout.isFixed(i)) {
+                dest[offset + slot / 8] |= (long) (positions[i] & 0xFF) << (8 * (slot % 8));
+                ++slot;
+            }
+        }
+    }
+
+    /**
+     * Rebuilds a configuration of this puzzle from packed car positions
+     *
+     * @param src array holding the encoded state
+     * @param offset first index of the encoded state
+     * @return the decoded configuration
+     */
+    @Override
+    public JamConfig decode(long[] src, int offset) {
+        JamConfig config = new JamConfig(this);
+        int slot = 0;
+        for (int i = 0; i < positions.length; ++i) {
+            if (!layout.isFixed(i)) {
+                config.positions[i] = (byte) (src[offset + slot / 8] >>> (8 * (slot % 8)));
+                ++slot;
+            }
+        }
+        config.rehash();
+        return config;
+    }
+
+    /**
+     * Every car that can move may sit at any position along its lane, overlapping
+     * or not, so most ranks of a crowded board are never reached
+     *
+     * @return product of the positions of every moving car, Long.MAX_VALUE if it overflows
+     */
+    @Override
+    public long stateCount() {
+        long count = 1;
+        for (int i = 0; i < positions.length; ++i) {
+            if (!layout.isFixed(i)) {
+                int radix = layout.getLaneLength(i) - layout.getLength(i) + 1;
+                if (count > Long.MAX_VALUE / radix) {
+                    return Long.MAX_VALUE;
                 }
-                // Config where this piece is moved down
-                if (jamCar.getEndRow() != board.length - 1 && board[jamCar.getEndRow() + 1][jamCar.getStartCol()].equals(".")) {
-                    JamConfig neighbor = new JamConfig(this);
-                    neighbor.jamCarMap.replace(jamCar.getName(), jamCar.moveVertically(1));
-                    neighbor.setBoardFromMap();
-                    neighbors.add(neighbor);
+                count *= radix;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reads the positions of the moving cars as the digits of a number, the first car most significant
+     *
+     * @return the rank of this configuration
+     */
+    @Override
+    public long rank() {
+        long rank = 0;
+        for (int i = 0; i < positions.length; ++i) {
+            if (!layout.isFixed(i)) {
+                rank = rank * (layout.getLaneLength(i) - layout.getLength(i) + 1) + positions[i];
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Rebuilds a configuration of this puzzle from a rank, fixed cars staying where they are
+     *
+     * @param rank a rank returned by rank
+     * @return the configuration with that rank
+     */
+    @Override
+    public JamConfig unrank(long rank) {
+        JamConfig config = new JamConfig(this);
+        for (int i = positions.length - 1; i >= 0; --i) {
+            if (!layout.isFixed(i)) {
+                int radix = layout.getLaneLength(i) - layout.getLength(i) + 1;
+                config.positions[i] = (byte) (rank % radix);
+                rank /= radix;
+            }
+        }
+        config.rehash();
+        return config;
+    }
+
+    /**
+     * A slide is undone by sliding the same car back as far
+     *
+     * @return true
+     */
+    @Override
+    public boolean isReversible() {
+        return true;
+    }
+
+    /**
+     * Each car can slide one space either way, or up to the length of its lane in whole slide mode
+     * @return the largest number of moves getMoves can list
+     * */
+    @Override
+    public int maxMoves() {
+        return 2 * positions.length * span();
+    }
+
+    /**
+     * Lists every legal slide. A move is the car's index in the layout times the
+     * longest slide plus the distance less one, all times two, plus one for right
+     * or down and zero for left or up. Outside whole slide mode that is the car's
+     * index times two plus the direction.
+     * @param moves array to write the move codes into
+     * @return number of moves written
+     * */
+    @Override
+    public int getMoves(int[] moves) {
+        int[] ids = getCarIds();
+        int span = span();
+        int count = 0;
+        for (int i = 0; i < positions.length; ++i) {
+            if (layout.isFixed(i)) {
+                continue;
+            }
+            for (int distance = 1; distance <= span && canSlide(i, -distance, ids); ++distance) {
+                moves[count++] = 2 * (i * span + distance - 1);
+            }
+            for (int distance = 1; distance <= span && canSlide(i, distance, ids); ++distance) {
+                moves[count++] = 2 * (i * span + distance - 1) + 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Slides a car in place
+     * @param move a code returned by getMoves
+     * */
+    @Override
+    public void applyMove(int move) {
+        int span = span();
+        int distance = move / 2 % span + 1;
+        slide(move / 2 / span, move % 2 == 1 ? distance : -distance);
+    }
+
+    /**
+     * Slides a car back in place
+     * @param move the move most recently applied
+     * */
+    @Override
+    public void undoMove(int move) {
+        applyMove(move ^ 1);
+    }
+
+    /**
+     * The opposite slide of the same car over the same distance
+     * @param move a move code
+     * @return the move code with its direction flipped
+     * */
+    @Override
+    public int inverseMove(int move) {
+        return move ^ 1;
+    }
+
+    /**
+     * Copies this configuration
+     * @return an independent copy
+     * */
+    @Override
+    public JamConfig copy() {
+        return new JamConfig(this);
+    }
+
+    /**
+     * Moves a car along its direction, updating the hash
+     * @param index index of the car
+     * @param amount spaces to move, positive for right or down, negative for left or up
+     * */
+    private void slide(int index, int amount) {
+        zobrist ^= layout.zobristKey(index, positions[index]) ^ layout.zobristKey(index, positions[index] + amount);
+        positions[index] = (byte) (positions[index] + amount);
+    }
+
+    /**
+     * Turns a solution of one space slides into whole slides, merging each run of
+     * steps that moves the same car the same way into a single step. Works on
+     * paths of JamConfig or JamBitboard, since both encode one byte per car that
+     * can move, growing as the car moves right or down.
+     * @param path consecutive configurations, each one slide from the last
+     * @return the configurations left after merging, starting and ending as path does
+     * */
+    public static List<Configuration> toWholeSlides(List<? extends Configuration> path) {
+        List<Configuration> slides = new ArrayList<>();
+        if (path.isEmpty()) {
+            return slides;
+        }
+        int width = ((EncodableConfiguration) path.get(0)).encodedLength();
+        long[] before = new long[width];
+        long[] after = new long[width];
+        slides.add(path.get(0));
+        int lastCar = -1, lastDirection = 0;
+        for (int i = 1; i < path.size(); ++i) {
+            ((EncodableConfiguration) path.get(i - 1)).encode(before, 0);
+            ((EncodableConfiguration) path.get(i)).encode(after, 0);
+            // The one byte that changed names the car, its sign the direction
+            int car = -1, direction = 0;
+            for (int j = 0; j < width * 8 && car < 0; ++j) {
+                int from = (int) (before[j / 8] >>> (8 * (j % 8))) & 0xFF;
+                int to = (int) (after[j / 8] >>> (8 * (j % 8))) & 0xFF;
+                if (from != to) {
+                    car = j;
+                    direction = Integer.signum(to - from);
                 }
             }
+            if (car == lastCar && direction == lastDirection) {
+                slides.set(slides.size() - 1, path.get(i));
+            } else {
+                slides.add(path.get(i));
+            }
+            lastCar = car;
+            lastDirection = direction;
         }
-        return neighbors;
+        return slides;
     }
 
     /**
@@ -192,30 +660,64 @@ public class JamConfig implements Configuration {
      */
     @Override
     public boolean isGoal() {
-        JamCar redCar = jamCarMap.get("X");
-        return redCar.getEndCol() == board[redCar.getStartRow()].length - 1;
+        int redCar = layout.getRedCar();
+        return redCar >= 0 && positions[redCar] + layout.getLength(redCar) == layout.getCols();
     }
 
     /**
      * Is the space at the given row and col taken up by a car?
      * */
     public String isACar(int row, int col) {
-        try {
-            if (jamCarMap.containsKey(board[row][col])) {
-                return "yes";
-            } else {
-                return "no";
-            }
-        } catch (IndexOutOfBoundsException e) {
+        if (row < 0 || row >= layout.getRows() || col < 0 || col >= layout.getCols()) {
             return "IndexOutOfBounds";
         }
+        return getCarId(row, col) >= 0 ? "yes" : "no";
     }
 
     /**
-     * Getter for the board array
-     * @return the board array
+     * Getter for the layout shared by every configuration of this puzzle
+     * @return the layout
+     * */
+    public JamLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Gets where a car sits along its lane
+     * @param car index of the car
+     * @return first row (vertical) or column (horizontal) of the car
+     * */
+    int getPosition(int car) {
+        return positions[car];
+    }
+
+    /**
+     * Gets the cars in the layout's order, placed where they currently are
+     * @return the cars of this configuration
+     * */
+    List<JamCar> getCars() {
+        List<JamCar> cars = new ArrayList<>();
+        for (int i = 0; i < positions.length; ++i) {
+            int length = layout.getLength(i) - 1;
+            cars.add(new JamCar(layout.getName(i), layout.row(i, positions[i], 0), layout.col(i, positions[i], 0), layout.row(i, positions[i], length), layout.col(i, positions[i], length)));
+        }
+        return cars;
+    }
+
+    /**
+     * Builds the board array. Uses letters for cars and periods for blank spaces
+     * @return a new board array
      * */
     public String[][] getBoard() {
+        String[][] board = new String[layout.getRows()][layout.getCols()];
+        for (String[] strings : board) {
+            Arrays.fill(strings, ".");
+        }
+        for (int i = 0; i < positions.length; ++i) {
+            for (int j = 0; j < layout.getLength(i); ++j) {
+                board[layout.row(i, positions[i], j)][layout.col(i, positions[i], j)] = layout.getName(i);
+            }
+        }
         return board;
     }
 
@@ -228,70 +730,61 @@ public class JamConfig implements Configuration {
      * @return indicator string for the PTUI
      * */
     public String moveCar(int carRow, int carCol, int endRow, int endCol) {
-        try {
-            if (!jamCarMap.containsKey(board[carRow][carCol])) {
-                return "Starting position doesn't have a corresponding car";
-            }
-        } catch (IndexOutOfBoundsException e) {
+        if (carRow < 0 || carRow >= layout.getRows() || carCol < 0 || carCol >= layout.getCols()) {
             return "Please select a car within the bounds of the board";
         }
-        JamCar movingCar = jamCarMap.get(board[carRow][carCol]);
-        int headRow = movingCar.getStartRow();
-        int headCol = movingCar.getStartCol();
-        int rearRow = movingCar.getEndRow();
-        int rearCol = movingCar.getEndCol();
-        try {
-            if (movingCar.getIsHorizontal()) {
-                if (headRow == endRow) {
-                    if (endCol > rearCol) {
-                        if (board[headRow][rearCol + 1].equals(".")) {
-                            jamCarMap.replace(board[carRow][carCol], movingCar.moveHorizontally(1));
-                            this.setBoardFromMap();
-                            return "Moved " + movingCar.getName() + " to the right 1 space";
-                        } else {
-                            return "Can't move " + movingCar.getName() + " to the right 1 space";
-                        }
-                    } else if (endCol < headCol) {
-                        if (board[headRow][headCol - 1].equals(".")) {
-                            jamCarMap.replace(board[carRow][carCol], movingCar.moveHorizontally(-1));
-                            this.setBoardFromMap();
-                            return "Moved " + movingCar.getName() + " to the left 1 space";
-                        } else {
-                            return "Can't move " + movingCar.getName() + " to the left 1 space";
-                        }
-                    } else {
-                        return "To move a horizontal piece, select a space to the right or left of it";
-                    }
+        int index = getCarId(carRow, carCol);
+        if (index < 0) {
+            return "Starting position doesn't have a corresponding car";
+        }
+        int rear = layout.getLength(index) - 1;
+        int headRow = layout.row(index, positions[index], 0);
+        int headCol = layout.col(index, positions[index], 0);
+        int rearRow = layout.row(index, positions[index], rear);
+        int rearCol = layout.col(index, positions[index], rear);
+        if (layout.isHorizontal(index)) {
+            if (headRow == endRow) {
+                if (endCol > rearCol) {
+                    return moveCarOneSpace(index, 1, rearCol + 1 < layout.getCols(), "to the right 1 space");
+                } else if (endCol < headCol) {
+                    return moveCarOneSpace(index, -1, headCol - 1 >= 0, "to the left 1 space");
                 } else {
-                    return "Can't move a horizontal piece vertically";
+                    return "To move a horizontal piece, select a space to the right or left of it";
                 }
             } else {
-                if (headCol == endCol) {
-                    if (endRow > rearRow) {
-                        if (board[rearRow + 1][carCol].equals(".")) {
-                            jamCarMap.replace(board[carRow][carCol], movingCar.moveVertically(1));
-                            this.setBoardFromMap();
-                            return "Moved " + movingCar.getName() + " down 1 space";
-                        } else {
-                            return "Can't move " + movingCar.getName() + " down 1 space";
-                        }
-                    } else if (endRow < headRow) {
-                        if (board[headRow - 1][carCol].equals(".")) {
-                            jamCarMap.replace(board[carRow][carCol], movingCar.moveVertically(-1));
-                            this.setBoardFromMap();
-                            return "Moved " + movingCar.getName() + " up 1 space";
-                        } else {
-                            return "Can't move " + movingCar.getName() + " up 1 space";
-                        }
-                    } else {
-                        return "To move a vertical piece, select a space above or below your current selection";
-                    }
+                return "Can't move a horizontal piece vertically";
+            }
+        } else {
+            if (headCol == endCol) {
+                if (endRow > rearRow) {
+                    return moveCarOneSpace(index, 1, rearRow + 1 < layout.getRows(), "down 1 space");
+                } else if (endRow < headRow) {
+                    return moveCarOneSpace(index, -1, headRow - 1 >= 0, "up 1 space");
                 } else {
-                    return "Can't move a vertical piece horizontally";
+                    return "To move a vertical piece, select a space above or below your current selection";
                 }
+            } else {
+                return "Can't move a vertical piece horizontally";
             }
-        } catch (IndexOutOfBoundsException e) {
+        }
+    }
+
+    /**
+     * Slides a car for moveCar if the cell it moves into is on the board and free
+     * @param index index of the car
+     * @param amount 1 for right or down, -1 for left or up
+     * @param onBoard whether the cell the car moves into is on the board
+     * @param direction how the move is described in the message
+     * @return indicator string for the PTUI
+     * */
+    private String moveCarOneSpace(int index, int amount, boolean onBoard, String direction) {
+        if (!onBoard) {
             return "Please select a location within the board";
         }
+        if (!canSlide(index, amount, getCarIds())) {
+            return "Can't move " + layout.getName(index) + " " + direction;
+        }
+        slide(index, amount);
+        return "Moved " + layout.getName(index) + " " + direction;
     }
 }
@@ -0,0 +1,48 @@
+package puzzles.jam.model;
+
+import puzzles.common.solver.Heuristic;
+
+/**
+ * A* estimate for the Traffic Jam game. The red car needs one move per cell
+ * between it and the right edge, and every other car in those cells needs at
+ * least one move of its own to get out of the way. When cars slide any free
+ * distance in one move the red car may cross all those cells at once, so it
+ * counts for one move instead, keeping the estimate admissible either way.
+ * */
+public class JamHeuristic implements Heuristic<JamConfig> {
+    /**
+     * Estimates the moves left to free the red car
+     * @param config the configuration to estimate
+     * @return cells in front of the red car, or one if there are any and cars
+     * slide whole distances, plus the number of cars blocking them
+     * */
+    @Override
+    public int estimate(JamConfig config) {
+        JamLayout layout = config.getLayout();
+        int redCar = layout.getRedCar();
+        if (redCar < 0) {
+            return 0;
+        }
+        // The red car's last cell in the first row it covers
+        int position = config.getPosition(redCar);
+        int row = layout.row(redCar, position, 0);
+        int end = layout.col(redCar, position, layout.getLength(redCar) - 1);
+        int cols = layout.getCols();
+        int[] ids = config.getCarIds();
+        // A car covers a run of cells in a row, so each new id is one more blocker
+        int blockers = 0;
+        int last = -1;
+        for (int col = end + 1; col < cols; ++col) {
+            int id = ids[row * cols + col];
+            if (id >= 0 && id != last) {
+                ++blockers;
+            }
+            last = id;
+        }
+        int front = cols - 1 - end;
+        if (config.hasWholeSlides()) {
+            return (front > 0 ? 1 : 0) + blockers;
+        }
+        return front + blockers;
+    }
+}
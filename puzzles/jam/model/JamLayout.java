@@ -0,0 +1,240 @@
+package puzzles.jam.model;
+
+import java.util.*;
+
+/**
+ * The parts of a Traffic Jam puzzle that never change while it is played: the
+ * board size and, for every car, its name, direction, length and the lane it
+ * slides along. One layout is shared by every configuration of a puzzle, so a
+ * configuration only has to hold where each car sits within its lane.
+ * Cars are numbered in the order of their names.
+ * */
+public class JamLayout {
+    // Dimensions of the board
+    private final int rows;
+    private final int cols;
+    // Per car, in name order: the name, whether it slides left and right, the cells it covers,
+    // and its row (horizontal) or column (vertical)
+    private final String[] names;
+    private final boolean[] horizontal;
+    private final int[] lengths;
+    private final int[] lanes;
+    // Index of the red car, -1 if the puzzle has none
+    private final int redCar;
+    // Random key for each car at each position along its lane
+    private final long[][] zobristKeys;
+    // Cars that can never move, which stay out of the encoded state
+    private final boolean[] fixed;
+    private final int movingCount;
+
+    /**
+     * Creates the layout of a puzzle
+     * @param rows number of rows of the board
+     * @param cols number of columns of the board
+     * @param jamCars the cars of the puzzle, in any order
+     * */
+    public JamLayout(int rows, int cols, Collection<JamCar> jamCars) {
+        this.rows = rows;
+        this.cols = cols;
+        List<JamCar> sorted = new ArrayList<>(jamCars);
+        sorted.sort(Comparator.comparing(JamCar::getName));
+        int count = sorted.size();
+        this.names = new String[count];
+        this.horizontal = new boolean[count];
+        this.lengths = new int[count];
+        this.lanes = new int[count];
+        int redCar = -1;
+        for (int i = 0; i < count; ++i) {
+            JamCar jamCar = sorted.get(i);
+            names[i] = jamCar.getName();
+            horizontal[i] = jamCar.getIsHorizontal();
+            lengths[i] = horizontal[i] ? jamCar.getEndCol() - jamCar.getStartCol() + 1 : jamCar.getEndRow() - jamCar.getStartRow() + 1;
+            lanes[i] = horizontal[i] ? jamCar.getStartRow() : jamCar.getStartCol();
+            if (names[i].equals("X")) {
+                redCar = i;
+            }
+        }
+        this.redCar = redCar;
+
+        // A fixed seed keeps hashes the same from run to run
+        SplittableRandom random = new SplittableRandom(count);
+        this.zobristKeys = new long[count][Math.max(rows, cols)];
+        for (long[] keys : zobristKeys) {
+            for (int i = 0; i < keys.length; ++i) {
+                keys[i] = random.nextLong();
+            }
+        }
+        this.fixed = new boolean[count];
+        this.movingCount = count;
+    }
+
+    /**
+     * Copies a layout, marking the cars that can never move
+     * @param other the layout to copy
+     * @param fixed one entry per car, true for a car that never moves
+     * */
+    private JamLayout(JamLayout other, boolean[] fixed) {
+        this.rows = other.rows;
+        this.cols = other.cols;
+        this.names = other.names;
+        this.horizontal = other.horizontal;
+        this.lengths = other.lengths;
+        this.lanes = other.lanes;
+        this.redCar = other.redCar;
+        this.zobristKeys = other.zobristKeys;
+        this.fixed = fixed.clone();
+        int movingCount = 0;
+        for (boolean wall : fixed) {
+            if (!wall) {
+                ++movingCount;
+            }
+        }
+        this.movingCount = movingCount;
+    }
+
+    /**
+     * Gets a copy of this layout where some cars are walls that never move
+     * @param fixed one entry per car, true for a car that never moves
+     * @return the new layout
+     * */
+    public JamLayout withFixed(boolean[] fixed) {
+        return new JamLayout(this, fixed);
+    }
+
+    /**
+     * Getter for the number of rows
+     * @return rows of the board
+     * */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Getter for the number of columns
+     * @return columns of the board
+     * */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Getter for the number of cars
+     * @return cars on the board
+     * */
+    public int getCarCount() {
+        return names.length;
+    }
+
+    /**
+     * Getter for the name of a car
+     * @param car index of the car
+     * @return the letter shown on the car
+     * */
+    public String getName(int car) {
+        return names[car];
+    }
+
+    /**
+     * Finds a car by name
+     * @param name the letter shown on the car
+     * @return index of the car, negative if there is none
+     * */
+    public int indexOf(String name) {
+        return Arrays.binarySearch(names, name);
+    }
+
+    /**
+     * Does a car slide left and right?
+     * @param car index of the car
+     * @return true for a horizontal car
+     * */
+    public boolean isHorizontal(int car) {
+        return horizontal[car];
+    }
+
+    /**
+     * Getter for the length of a car
+     * @param car index of the car
+     * @return number of cells the car covers
+     * */
+    public int getLength(int car) {
+        return lengths[car];
+    }
+
+    /**
+     * Getter for the number of positions along a car's lane
+     * @param car index of the car
+     * @return columns for a horizontal car, rows for a vertical one
+     * */
+    public int getLaneLength(int car) {
+        return horizontal[car] ? cols : rows;
+    }
+
+    /**
+     * Can a car never move, so that it is left out of the encoded state?
+     * @param car index of the car
+     * @return true for a car marked fixed
+     * */
+    public boolean isFixed(int car) {
+        return fixed[car];
+    }
+
+    /**
+     * Getter for the number of cars that can move
+     * @return cars not marked fixed
+     * */
+    public int getMovingCount() {
+        return movingCount;
+    }
+
+    /**
+     * Getter for the index of the red car
+     * @return index of the car named X, -1 if there is none
+     * */
+    public int getRedCar() {
+        return redCar;
+    }
+
+    /**
+     * Gets the row of one cell of a car
+     * @param car index of the car
+     * @param position first row (vertical) or column (horizontal) of the car
+     * @param offset cell of the car, 0 for its first
+     * @return the row of the cell
+     * */
+    public int row(int car, int position, int offset) {
+        return horizontal[car] ? lanes[car] : position + offset;
+    }
+
+    /**
+     * Gets the column of one cell of a car
+     * @param car index of the car
+     * @param position first row (vertical) or column (horizontal) of the car
+     * @param offset cell of the car, 0 for its first
+     * @return the column of the cell
+     * */
+    public int col(int car, int position, int offset) {
+        return horizontal[car] ? position + offset : lanes[car];
+    }
+
+    /**
+     * Gets the index of one cell of a car in a row by row array of the board
+     * @param car index of the car
+     * @param position first row (vertical) or column (horizontal) of the car
+     * @param offset cell of the car, 0 for its first
+     * @return row * columns + column of the cell
+     * */
+    public int cell(int car, int position, int offset) {
+        return row(car, position, offset) * cols + col(car, position, offset);
+    }
+
+    /**
+     * Gets the random key of a car at a position, used for Zobrist hashing
+     * @param car index of the car
+     * @param position first row (vertical) or column (horizontal) of the car
+     * @return the key
+     * */
+    public long zobristKey(int car, int position) {
+        return zobristKeys[car][position];
+    }
+}
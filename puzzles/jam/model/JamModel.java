@@ -2,20 +2,34 @@ package puzzles.jam.model;
 
 import puzzles.common.Observer;
 import puzzles.common.solver.Configuration;
-import puzzles.common.solver.Solver;
+import puzzles.common.solver.SolverBudget;
+import puzzles.common.solver.SolverTask;
 import puzzles.jam.solver.Jam;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 public class JamModel {
     /** the collection of observers of this model */
     private final List<Observer<JamModel, JamClientData>> observers = new LinkedList<>();
 
-    /** the current configuration */
-    private JamConfig currentConfig;
+    /** the current configuration, read by the GUI while a hint may be replacing it */
+    private volatile JamConfig currentConfig;
+
+    /** the default limits on the search behind a hint */
+    public static final SolverBudget DEFAULT_HINT_BUDGET = new SolverBudget(2_000, 5_000_000, 512L << 20);
+
+    /** the limits on the search behind a hint */
+    private SolverBudget hintBudget = DEFAULT_HINT_BUDGET;
+
+    /** the search behind the hint being worked out, null if there is none */
+    private volatile SolverTask hintTask;
+
+    /** runs the outcome of a hint on the thread the observers expect, null to work out hints on the caller's thread */
+    private Executor notifier;
 
     /** the coordinates of the current selection*/
     private int selectedRow = -1;
@@ -44,9 +58,10 @@ public class JamModel {
      * Loads a new file into this model
      * @param filename The name of the file to be loaded
      * */
-    public void load(String filename) {
+    public synchronized void load(String filename) {
         try {
             JamConfig jamConfig = new JamConfig(filename);
+            cancelHint();
             this.currentConfig = jamConfig;
             alertObservers(new JamClientData(currentConfig.toString(), "Loaded: " + filename, filename));
         } catch (IOException e) {
@@ -62,15 +77,30 @@ public class JamModel {
         return this.currentConfig.getBoard();
     }
 
+    /**
+     * Getter function for the ids of the cars on the cells of the current config
+     * @return The car's index in the puzzle's layout on every cell, -1 for an empty cell
+     * */
+    public int[][] getCarIdArray() {
+        int[] ids = this.currentConfig.getCarIds();
+        String[][] board = getBoardArray();
+        int[][] grid = new int[board.length][];
+        for (int row = 0; row < board.length; ++row) {
+            grid[row] = Arrays.copyOfRange(ids, row * board[row].length, (row + 1) * board[row].length);
+        }
+        return grid;
+    }
+
     /**
      * Loads the current file back into the model, resetting it. ONLY CALL WITH THE CURRENT FILE
      * Ignores any potential error because the file should have already been verified
      * @rit.pre The filename is the same as the file used to load this model already
      * @param filename The current file that this model is based on
      * */
-    public void reset(String filename) {
+    public synchronized void reset(String filename) {
         try {
             JamConfig jamConfig = new JamConfig(filename);
+            cancelHint();
             this.currentConfig = jamConfig;
             alertObservers(new JamClientData(currentConfig.toString(), "Puzzle Reset"));
         } catch (IOException ignored) {}
@@ -83,7 +113,7 @@ public class JamModel {
      * @param row The row selected
      * @param col The column selected
      * */
-    public void select(int row, int col) {
+    public synchronized void select(int row, int col) {
         if (selectedCol < 0 && selectedRow < 0) {
             if (this.currentConfig.isACar(row, col).equals("yes")) {
                 this.selectedRow = row;
@@ -95,6 +125,7 @@ public class JamModel {
                 alertObservers(new JamClientData(currentConfig.toString(), "Please select a space within the array"));
             }
         } else {
+            cancelHint();
             String indicator = this.currentConfig.moveCar(this.selectedRow, this.selectedCol, row, col);
             alertObservers(new JamClientData(currentConfig.toString(), indicator));
             this.selectedRow = -1;
@@ -103,22 +134,96 @@ public class JamModel {
     }
 
     /**
-     * Moves the board one more step towards the solution if there is one
+     * Looks for the next step towards the solution and moves the board one
+     * step. With a notifier the search runs on a background thread, the board
+     * is only moved if it wasn't changed in the meantime, and the observers are
+     * told through the notifier. Without one, the search runs on the caller's
+     * thread, which waits for it
+     * */
+    public synchronized void hint() {
+        if (hintTask != null) {
+            alertObservers(new JamClientData(this.currentConfig.toString(), "Still looking for a hint"));
+            return;
+        }
+        // The search works on its own copy, since moves change the current board in place
+        SolverTask task = new SolverTask(new JamConfig(this.currentConfig), hintBudget);
+        Executor notifier = this.notifier;
+        if (notifier == null) {
+            showHint(task, task.run());
+            return;
+        }
+        this.hintTask = task;
+        Thread searcher = new Thread(() -> {
+            SolverTask.Status status = task.run();
+            notifier.execute(() -> finishHint(task, status));
+        }, "jam-hint");
+        searcher.setDaemon(true);
+        searcher.start();
+    }
+
+    /**
+     * Hands a hint found in the background to showHint, unless the board was
+     * changed since it was started. Locked with the moves, so a move can't
+     * slip in between the check and the hint moving the board
+     * @param task the search behind the hint
+     * @param status how the search ended
      * */
-    public void hint() {
-        Solver solver = new Solver();
-        List<Configuration> path = (List<Configuration>) solver.solve(this.currentConfig);
-        if (path == null) {
+    private synchronized void finishHint(SolverTask task, SolverTask.Status status) {
+        // A hint that was cancelled, or started for a board since changed, is dropped
+        if (task != hintTask) {
+            return;
+        }
+        this.hintTask = null;
+        showHint(task, status);
+    }
+
+    /**
+     * Moves the board one step along the path a hint found
+     * @param task the search behind the hint
+     * @param status how the search ended
+     * */
+    private void showHint(SolverTask task, SolverTask.Status status) {
+        List<Configuration> path = (List<Configuration>) task.getPath();
+        if (status == SolverTask.Status.NO_SOLUTION) {
             alertObservers(new JamClientData(this.currentConfig.toString(), "Unsolvable"));
+        } else if (path == null) {
+            // The search ran past its budget, so the board is left alone
+            alertObservers(new JamClientData(this.currentConfig.toString(), "No hint found after checking " + task.getExpandedConfigs() + " boards (" + status + ")"));
         } else if (path.size() >= 2) {
             this.currentConfig = (JamConfig) path.get(1);
             alertObservers(new JamClientData(this.currentConfig.toString(), "Next Step!"));
         } else if (path.size() == 1) {
             alertObservers(new JamClientData(this.currentConfig.toString(), "Already Solved!"));
         }
+    }
 
+    /**
+     * Stops the hint being worked out, if any, so it never moves the board
+     * */
+    private synchronized void cancelHint() {
+        SolverTask task = this.hintTask;
+        if (task != null) {
+            task.cancel();
+            this.hintTask = null;
+        }
     }
 
+    /**
+     * Sets where the outcome of a hint is handed to the observers, such as
+     * the GUI's application thread, so hints are worked out in the background
+     * @param notifier runs the code telling the observers, null to work out hints on the caller's thread
+     * */
+    public synchronized void setNotifier(Executor notifier) {
+        this.notifier = notifier;
+    }
+
+    /**
+     * Sets the limits on the search behind a hint
+     * @param hintBudget time, node and memory limits for each hint
+     * */
+    public void setHintBudget(SolverBudget hintBudget) {
+        this.hintBudget = hintBudget;
+    }
 
     /**
      * Constructor for the JamModel class
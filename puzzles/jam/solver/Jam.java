@@ -1,17 +1,32 @@
 package puzzles.jam.solver;
 
+import puzzles.common.solver.AStarSolver;
+import puzzles.common.solver.BidirectionalSolver;
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.DepthFirstSolver;
+import puzzles.common.solver.EncodableConfiguration;
+import puzzles.common.solver.ExternalSolver;
+import puzzles.common.solver.ParallelSolver;
 import puzzles.common.solver.Solver;
+import puzzles.jam.model.JamAnalysis;
+import puzzles.jam.model.JamBitboard;
 import puzzles.jam.model.JamConfig;
+import puzzles.jam.model.JamHeuristic;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collection;
 import java.util.List;
 
 public class Jam {
+    // Printed when the arguments can't be made sense of
+    private static final String USAGE = "Usage: java Jam filename [threads|astar [compare]|slides [compare]|external|bidir|iddfs]";
+
     public static void main(String[] args) {
-        if (args.length != 1) {
-            System.out.println("Usage: java Jam filename");
+        boolean compare = args.length == 3 && (args[1].equals("astar") || args[1].equals("slides")) && args[2].equals("compare");
+        if (args.length != 1 && args.length != 2 && !compare) {
+            System.out.println(USAGE);
             System.exit(-1);
         } else {
             Solver solver = new Solver();
@@ -28,12 +43,100 @@ public class Jam {
             System.out.println("File: " + args[0]);
             System.out.println(startConfig.toString());
 
-            // Attempt to solve puzzle
-            List<Configuration> solution = (List<Configuration>) solver.solve(startConfig);
+            // Boards that can be seen to have no solution are turned away before searching
+            JamAnalysis analysis = new JamAnalysis(startConfig);
+            if (analysis.isUnsolvable()) {
+                System.out.println(analysis.getReason());
+                System.out.println("No Solution!");
+                return;
+            }
+            // Cars that can never move are walls from here on, and stay out of every state
+            startConfig = analysis.getPrunedConfig();
+
+            // Boards up to 8x8 are searched as bitboards, which print the same
+            EncodableConfiguration searchConfig = JamBitboard.fits(startConfig) ? new JamBitboard(startConfig) : startConfig;
+
+            // Attempt to solve puzzle, with A* or spreading the search over threads if asked to
+            List<Configuration> solution;
+            if (args.length >= 2 && args[1].equals("astar")) {
+                AStarSolver<JamConfig> aStarSolver = new AStarSolver<>(new JamHeuristic());
+                solution = (List<Configuration>) aStarSolver.solve(startConfig);
+                System.out.println("Total configurations: " + aStarSolver.getTotalConfigs());
+                System.out.println("Unique configurations: " + aStarSolver.getUniqueConfigs());
+                System.out.println("Expanded configurations: " + aStarSolver.getExpandedConfigs());
+                if (compare) {
+                    // A full breadth first search, only run when asked for since it can take far longer
+                    solver.solveCompact(searchConfig);
+                    System.out.println("Expanded configurations by BFS: " + solver.getExpandedConfigs());
+                }
+            } else if (args.length >= 2 && args[1].equals("slides")) {
+                // Each move slides a car any free distance, the usual Rush Hour move count
+                JamConfig slideConfig = startConfig.withWholeSlides();
+                solution = (List<Configuration>) solver.solveCompact(JamBitboard.fits(slideConfig) ? new JamBitboard(slideConfig) : slideConfig);
+                System.out.println("Total configurations: " + solver.getTotalConfigs());
+                System.out.println("Unique configurations: " + solver.getUniqueConfigs());
+                if (solution != null) {
+                    System.out.println("Moves: " + (solution.size() - 1));
+                    if (compare) {
+                        // A one space breadth first search as well, only run when asked for since it can take far longer
+                        List<Configuration> cells = (List<Configuration>) new Solver().solveCompact(searchConfig);
+                        System.out.println("Moves by one space BFS merged into slides: " + (JamConfig.toWholeSlides(cells).size() - 1));
+                    }
+                }
+            } else if (args.length == 2 && args[1].equals("external")) {
+                // Levels are kept in a temporary folder on disk, within a 256 MB buffer
+                Path directory;
+                try {
+                    directory = Files.createTempDirectory("jam");
+                } catch (IOException e) {
+                    System.out.println("Could not create a folder for the search");
+                    return;
+                }
+                ExternalSolver externalSolver = new ExternalSolver(directory, 256L << 20);
+                try {
+                    solution = (List<Configuration>) externalSolver.solve(searchConfig, true);
+                } finally {
+                    // The solver deletes its own level files, even if writing one fails
+                    try {
+                        Files.deleteIfExists(directory);
+                    } catch (IOException e) {
+                        System.out.println("Could not delete the search folder " + directory);
+                    }
+                }
+                System.out.println("Total configurations: " + externalSolver.getTotalConfigs());
+                System.out.println("Unique configurations: " + externalSolver.getUniqueConfigs());
+            } else if (args.length == 2 && args[1].equals("bidir")) {
+                // Grows the search from the goal boards as well once they are fewer than the start's frontier
+                BidirectionalSolver bidirectionalSolver = new BidirectionalSolver();
+                solution = (List<Configuration>) bidirectionalSolver.solve(startConfig);
+                System.out.println("Total configurations: " + bidirectionalSolver.getTotalConfigs());
+                System.out.println("Unique configurations: " + bidirectionalSolver.getUniqueConfigs()
+                        + " (from start: " + bidirectionalSolver.getForwardUniqueConfigs() + ", from goals: " + bidirectionalSolver.getBackwardUniqueConfigs() + ")");
+            } else if (args.length == 2 && args[1].equals("iddfs")) {
+                // Iterative deepening up to 1000 moves, skipping boards met again through a 64 MB table
+                DepthFirstSolver depthFirstSolver = new DepthFirstSolver(64L << 20);
+                solution = (List<Configuration>) depthFirstSolver.solve(JamBitboard.fits(startConfig) ? new JamBitboard(startConfig) : startConfig, 1000);
+                System.out.println("Total configurations: " + depthFirstSolver.getTotalConfigs());
+                System.out.println("Expanded configurations: " + depthFirstSolver.getExpandedConfigs());
+            } else if (args.length == 2) {
+                // Anything else is taken as a thread count, so a mistyped mode ends up here
+                ParallelSolver parallelSolver = null;
+                try {
+                    parallelSolver = new ParallelSolver(Integer.parseInt(args[1]));
+                } catch (IllegalArgumentException e) {
+                    System.out.println(USAGE);
+                    System.exit(-1);
+                }
+                solution = (List<Configuration>) parallelSolver.solve(searchConfig);
+                System.out.println("Total configurations: " + parallelSolver.getTotalConfigs());
+                System.out.println("Unique configurations: " + parallelSolver.getUniqueConfigs());
+            } else {
+                solution = (List<Configuration>) solver.solveCompact(searchConfig);
 
-            // Output the total number of configurations and unique configuraitons
-            System.out.println("Total configurations: " + solver.getTotalConfigs());
-            System.out.println("Unique configurations: " + solver.getUniqueConfigs());
+                // Output the total number of configurations and unique configuraitons
+                System.out.println("Total configurations: " + solver.getTotalConfigs());
+                System.out.println("Unique configurations: " + solver.getUniqueConfigs());
+            }
 
             // Output for solution if it's present and "No solution" otherwise
             if (solution != null) {
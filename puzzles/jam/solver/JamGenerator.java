@@ -0,0 +1,347 @@
+package puzzles.jam.solver;
+
+import puzzles.common.solver.IntRingBuffer;
+import puzzles.jam.model.JamConfig;
+import puzzles.jam.model.JamLayout;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Generates the hardest Traffic Jam puzzles for a board and a set of cars.
+ * Every car keeps the lane, direction and length it has in the given puzzle
+ * file, but may sit anywhere along its lane. Every legal placement of the
+ * cars is listed, and a breadth first search run backwards from all the
+ * solved placements at once labels each one with its distance to a solution.
+ * Placements that can reach each other form a cluster, and the furthest
+ * placement of each cluster is the hardest puzzle it holds.
+ *
+ * A placement is numbered by reading the car positions as the digits of a
+ * mixed radix number, so sliding a car by one space adds or subtracts that
+ * car's digit weight. The legal numbers are kept sorted, and a binary search
+ * turns a number into the index of the placement.
+ * */
+public class JamGenerator {
+    // Distance of a placement that has not been reached
+    private static final byte UNSEEN = -1;
+    // Frontier placements looked at by a single task
+    private static final int CHUNK = 1 << 14;
+
+    // Board size and the lane, direction and length of every car
+    private final JamLayout layout;
+    // Per car, the number of positions along its lane and the weight of its digit
+    private final int[] radix;
+    private final long[] weight;
+    // Per car and position, the cells it covers as bits of row * columns + column
+    private final long[][] shapes;
+    // Number of every legal placement, in increasing order
+    private long[] ranks;
+    // Moves from each placement to the nearest solved one, UNSEEN if it can't be solved
+    private byte[] distances;
+
+    /**
+     * Creates a generator for the cars of a puzzle
+     * @rit.pre The board has at most 64 cells and the red car is horizontal
+     * @param startConfig puzzle giving the board size and the cars, its car positions are ignored
+     * */
+    public JamGenerator(JamConfig startConfig) {
+        this.layout = startConfig.getLayout();
+        int count = layout.getCarCount();
+        if (layout.getRows() * layout.getCols() > Long.SIZE) {
+            throw new IllegalArgumentException("Boards can have at most " + Long.SIZE + " cells");
+        }
+        if (layout.getRedCar() < 0 || !layout.isHorizontal(layout.getRedCar())) {
+            throw new IllegalArgumentException("The puzzle needs a horizontal red car X");
+        }
+        this.radix = new int[count];
+        this.weight = new long[count];
+        this.shapes = new long[count][];
+        long total = 1;
+        for (int i = count - 1; i >= 0; --i) {
+            radix[i] = layout.getLaneLength(i) - layout.getLength(i) + 1;
+            weight[i] = total;
+            total = Math.multiplyExact(total, radix[i]);
+            shapes[i] = new long[radix[i]];
+            for (int position = 0; position < radix[i]; ++position) {
+                for (int j = 0; j < layout.getLength(i); ++j) {
+                    shapes[i][position] |= 1L << layout.cell(i, position, j);
+                }
+            }
+        }
+    }
+
+    /**
+     * Main method
+     * @param args command line arguments (filename [threads] [puzzles] [folder])
+     * */
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 4) {
+            System.out.println("Usage: java JamGenerator filename [threads] [puzzles] [folder]");
+            System.exit(-1);
+        }
+        JamConfig startConfig = null;
+        try {
+            startConfig = new JamConfig(args[0]);
+        } catch (IOException e) {
+            System.out.println("Invalid file. Please try again");
+            System.exit(-1);
+        }
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int puzzles = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        JamGenerator generator = new JamGenerator(startConfig);
+        long start = System.currentTimeMillis();
+        System.out.println("Placements: " + generator.enumerate());
+        int[] levels = generator.label(threads);
+        for (int i = 0; i < levels.length; ++i) {
+            System.out.println("Distance " + i + ": " + levels[i]);
+        }
+        List<long[]> clusters = generator.clusters();
+        System.out.println("Solvable clusters: " + clusters.size());
+        System.out.println("Time: " + (System.currentTimeMillis() - start) + " ms");
+
+        // Hardest clusters first, largest first among equally hard ones
+        clusters.sort(Comparator.comparingLong((long[] cluster) -> -cluster[1]).thenComparingLong(cluster -> -cluster[2]));
+        for (int i = 0; i < Math.min(puzzles, clusters.size()); ++i) {
+            long[] cluster = clusters.get(i);
+            String text = generator.toFileText((int) cluster[0]);
+            System.out.println("Puzzle " + (i + 1) + ": " + cluster[1] + " moves, cluster of " + cluster[2] + " placements");
+            System.out.print(text);
+            if (args.length > 3) {
+                String filename = args[3] + "/puzzle-" + (i + 1) + ".txt";
+                try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
+                    writer.print(text);
+                } catch (IOException e) {
+                    System.out.println("Could not write " + filename);
+                }
+            }
+        }
+    }
+
+    /**
+     * Lists every placement of the cars where no two of them overlap
+     * @return the number of legal placements
+     * */
+    public int enumerate() {
+        long count = place(0, 0, 0, null, 0);
+        if (count > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Too many placements to label: " + count);
+        }
+        ranks = new long[(int) count];
+        place(0, 0, 0, ranks, 0);
+        distances = new byte[ranks.length];
+        return ranks.length;
+    }
+
+    /**
+     * Places the cars from index onwards at every free spot of their lanes, lowest
+     * position first, so the finished placements come out in increasing order
+     * @param index index of the next car to place
+     * @param taken cells covered by the cars already placed
+     * @param rank number of the placement so far
+     * @param into array the numbers are written to, or null to only count them
+     * @param next index in into of the first placement found by this call
+     * @return the number of placements found by this call
+     * */
+    private long place(int index, long taken, long rank, long[] into, long next) {
+        if (index == radix.length) {
+            if (into != null) {
+                into[(int) next] = rank;
+            }
+            return 1;
+        }
+        long found = 0;
+        for (int position = 0; position < radix[index]; ++position) {
+            if ((shapes[index][position] & taken) == 0) {
+                found += place(index + 1, taken | shapes[index][position], rank + position * weight[index], into, next + found);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Labels every placement with its distance to the nearest solved placement,
+     * working outwards from the solved ones one distance at a time
+     * @param threads worker threads each distance is spread over
+     * @return the number of placements at each distance
+     * */
+    public int[] label(int threads) {
+        int redCar = layout.getRedCar();
+        int goal = radix[redCar] - 1;
+        Arrays.fill(distances, UNSEEN);
+        for (int i = 0; i < ranks.length; ++i) {
+            if (ranks[i] / weight[redCar] % radix[redCar] == goal) {
+                distances[i] = 0;
+            }
+        }
+
+        List<Integer> levels = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            for (int level = 0; ; ++level) {
+                if (level == Byte.MAX_VALUE) {
+                    throw new IllegalStateException("Distances of " + Byte.MAX_VALUE + " or more are not supported");
+                }
+                int expanded = pool.invoke(new Expand(level, 0, ranks.length));
+                if (expanded == 0) {
+                    break;
+                }
+                levels.add(expanded);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return levels.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Splits the solvable placements into clusters that can reach each other
+     * @return per cluster, the index of its hardest placement, that placement's distance and the cluster size
+     * */
+    public List<long[]> clusters() {
+        List<long[]> clusters = new ArrayList<>();
+        BitSet seen = new BitSet(ranks.length);
+        IntRingBuffer queue = new IntRingBuffer();
+        int[] positions = new int[radix.length];
+        int[] neighbors = new int[2 * radix.length];
+        for (int i = 0; i < ranks.length; ++i) {
+            if (distances[i] == UNSEEN || seen.get(i)) {
+                continue;
+            }
+            long[] cluster = {i, distances[i], 0};
+            seen.set(i);
+            queue.add(i);
+            while (!queue.isEmpty()) {
+                int index = queue.remove();
+                ++cluster[2];
+                if (distances[index] > cluster[1]) {
+                    cluster[0] = index;
+                    cluster[1] = distances[index];
+                }
+                int count = neighbors(index, positions, neighbors);
+                for (int j = 0; j < count; ++j) {
+                    if (!seen.get(neighbors[j])) {
+                        seen.set(neighbors[j]);
+                        queue.add(neighbors[j]);
+                    }
+                }
+            }
+            clusters.add(cluster);
+        }
+        return clusters;
+    }
+
+    /**
+     * Finds the placements one slide away from a placement
+     * @param index index of the placement
+     * @param positions scratch array with room for one position per car
+     * @param into array the indices of the neighbors are written to, with room for two per car
+     * @return the number of neighbors
+     * */
+    private int neighbors(int index, int[] positions, int[] into) {
+        long rank = ranks[index];
+        long taken = 0;
+        for (int i = 0; i < radix.length; ++i) {
+            positions[i] = (int) (rank / weight[i] % radix[i]);
+            taken |= shapes[i][positions[i]];
+        }
+        int count = 0;
+        for (int i = 0; i < radix.length; ++i) {
+            long[] shape = shapes[i];
+            int position = positions[i];
+            if (position > 0 && (shape[position - 1] & ~shape[position] & taken) == 0) {
+                into[count++] = Arrays.binarySearch(ranks, rank - weight[i]);
+            }
+            if (position + 1 < radix[i] && (shape[position + 1] & ~shape[position] & taken) == 0) {
+                into[count++] = Arrays.binarySearch(ranks, rank + weight[i]);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Writes a placement in the puzzle file format read by JamConfig
+     * @param index index of the placement
+     * @return the file contents
+     * */
+    public String toFileText(int index) {
+        StringBuilder text = new StringBuilder();
+        text.append(layout.getRows()).append(" ").append(layout.getCols()).append("\n");
+        text.append(radix.length).append("\n");
+        for (int i = 0; i < radix.length; ++i) {
+            int position = (int) (ranks[index] / weight[i] % radix[i]);
+            int rear = layout.getLength(i) - 1;
+            text.append(layout.getName(i)).append(" ")
+                    .append(layout.row(i, position, 0)).append(" ").append(layout.col(i, position, 0)).append(" ")
+                    .append(layout.row(i, position, rear)).append(" ").append(layout.col(i, position, rear)).append("\n");
+        }
+        return text.toString();
+    }
+
+    /**
+     * Expands the placements at one distance in a slice of the index range,
+     * splitting the slice while it is large. Unreached neighbors get the next
+     * distance; two tasks can only ever write the same value to a placement,
+     * so the writes need no locking.
+     * */
+    private class Expand extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        // Distance being expanded
+        private final int level;
+        // Slice of placement indices, from inclusive and to exclusive
+        private final int from;
+        private final int to;
+
+        /**
+         * Creates a task for a slice of the placements
+         * @param level distance being expanded
+         * @param from first index of the slice
+         * @param to index after the slice
+         * */
+        Expand(int level, int from, int to) {
+            this.level = level;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Expands the slice
+         * @return the number of placements at the distance in the slice
+         * */
+        @Override
+        protected Integer compute() {
+            if (to - from > CHUNK) {
+                int middle = (from + to) >>> 1;
+                Expand left = new Expand(level, from, middle);
+                left.fork();
+                int right = new Expand(level, middle, to).compute();
+                return left.join() + right;
+            }
+            int expanded = 0;
+            int[] positions = new int[radix.length];
+            int[] neighbors = new int[2 * radix.length];
+            for (int i = from; i < to; ++i) {
+                if (distances[i] != level) {
+                    continue;
+                }
+                ++expanded;
+                int count = neighbors(i, positions, neighbors);
+                for (int j = 0; j < count; ++j) {
+                    if (distances[neighbors[j]] == UNSEEN) {
+                        distances[neighbors[j]] = (byte) (level + 1);
+                    }
+                }
+            }
+            return expanded;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package puzzles.jam.solver;
+
+import puzzles.common.solver.BitstateSolver;
+import puzzles.common.solver.EncodableConfiguration;
+import puzzles.jam.model.JamAnalysis;
+import puzzles.jam.model.JamBitboard;
+import puzzles.jam.model.JamConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sweeps many Traffic Jam puzzles quickly, printing one line for each: whether
+ * it can be solved, in how many moves, and about how many states it has. Every
+ * puzzle is explored in full with a bitstate visited set, so the counts are
+ * estimates, printed together with their coverage and omission probability.
+ * States on the shortest path may be dropped as already seen, so the move
+ * count is only an upper bound.
+ * */
+public class JamTriage {
+    // Bits set in the visited set for each state
+    private static final int HASHES = 3;
+
+    /**
+     * Main method
+     * @param args command line arguments (log2Bits file|folder ...)
+     * */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: java JamTriage log2Bits file|folder ...");
+            System.exit(-1);
+        }
+        BitstateSolver solver = new BitstateSolver(Integer.parseInt(args[0]), HASHES);
+        List<File> files = new ArrayList<>();
+        for (String arg : Arrays.copyOfRange(args, 1, args.length)) {
+            File file = new File(arg);
+            File[] contents = file.listFiles((folder, name) -> name.endsWith(".txt"));
+            if (contents != null) {
+                Arrays.sort(contents);
+                files.addAll(Arrays.asList(contents));
+            } else {
+                files.add(file);
+            }
+        }
+
+        for (File file : files) {
+            JamConfig startConfig;
+            try {
+                startConfig = new JamConfig(file.getPath());
+            } catch (IOException | RuntimeException e) {
+                System.out.println(file + ": invalid file");
+                continue;
+            }
+            JamAnalysis analysis = new JamAnalysis(startConfig);
+            if (analysis.isUnsolvable()) {
+                System.out.println(file + ": no solution (" + analysis.getReason() + ")");
+                continue;
+            }
+            JamConfig pruned = analysis.getPrunedConfig();
+            EncodableConfiguration searchConfig = JamBitboard.fits(pruned) ? new JamBitboard(pruned) : pruned;
+            boolean solvable = solver.explore(searchConfig, false);
+            System.out.printf("%s: %s, ~%d states, coverage %.6f, omission probability %.2e%n", file,
+                    solvable ? "solvable in <= " + solver.getGoalDepth() + " moves" : "no solution found",
+                    solver.getEstimatedStates(), solver.getCoverage(), solver.getOmissionProbability());
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package puzzles.water;
 
+import puzzles.common.solver.BidirectionalSolver;
 import puzzles.common.solver.Configuration;
 import puzzles.common.solver.Solver;
 
@@ -10,34 +11,45 @@ import java.util.List;
 public class Water {
     /**
      *  Main method
-     * @param args command line arguments (amount,bucket(s))
+     * @param args command line arguments ([bidir],amount,bucket(s))
      */
     public static void main(String[] args) {
-        if (args.length < 2) {
-            System.out.println(("Usage: java Water amount bucket1 bucket2 ..."));
+        boolean bidir = args.length > 0 && args[0].equals("bidir");
+        if (args.length < (bidir ? 3 : 2)) {
+            System.out.println(("Usage: java Water [bidir] amount bucket1 bucket2 ..."));
         }
         else {
             ArrayList<Integer> buckets = new ArrayList<>();
-            for (String arg : args) {
-                int tmp = Integer.parseInt(arg);
+            for (int i = bidir ? 1 : 0; i < args.length; i++) {
+                int tmp = Integer.parseInt(args[i]);
                 buckets.add(tmp);
             }
             int amount = buckets.get(0); buckets.remove(0);
 
             // construct the initial configuration
-            Configuration init = new WaterConfig(amount,buckets);
+            WaterConfig init = new WaterConfig(amount,buckets);
             Solver solver = new Solver();
 
             // Print out starting message
             System.out.println("Amount: "+amount+", Buckets: "+buckets);
 
-            // Attempt to solve puzzle
-            Collection<Configuration> solution = solver.solve(init);
-            List<Configuration> last = (List<Configuration>) solution;
+            // Attempt to solve puzzle, from the goals as well if asked to
+            Collection<Configuration> solution;
+            if(bidir){
+                BidirectionalSolver bidirectionalSolver = new BidirectionalSolver();
+                solution = bidirectionalSolver.solve(init);
+                System.out.println("Total configurations: " + bidirectionalSolver.getTotalConfigs());
+                System.out.println("Unique configurations: " + bidirectionalSolver.getUniqueConfigs()
+                        + " (from start: " + bidirectionalSolver.getForwardUniqueConfigs() + ", from goals: " + bidirectionalSolver.getBackwardUniqueConfigs() + ")");
+            }
+            else{
+                solution = solver.solveCompact(init);
 
-            // Output total number of configurations and unique configurations
-            System.out.println("Total configurations: " + solver.getTotalConfigs());
-            System.out.println("Unique configurations: " + solver.getUniqueConfigs());
+                // Output total number of configurations and unique configurations
+                System.out.println("Total configurations: " + solver.getTotalConfigs());
+                System.out.println("Unique configurations: " + solver.getUniqueConfigs());
+            }
+            List<Configuration> last = (List<Configuration>) solution;
 
             // Output for solution depending if it's present
             if(solution!=null){
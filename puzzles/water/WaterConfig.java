@@ -1,11 +1,15 @@
 package puzzles.water;
 
+import puzzles.common.solver.BidirectionalConfiguration;
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.RankedConfiguration;
+import puzzles.common.solver.SymmetricConfiguration;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.function.Predicate;
 
-public class WaterConfig implements Configuration {
+public class WaterConfig implements SymmetricConfiguration, BidirectionalConfiguration, RankedConfiguration {
     /** amount of water needed */
     private final int amount;
 
@@ -52,15 +56,29 @@ public class WaterConfig implements Configuration {
     @Override
     public Collection<Configuration> getNeighbors() {
         Collection<Configuration> configs = new ArrayList<>();
+        forEachNeighbor(configs::add);
+        return configs;
+    }
+
+    /**
+     * Hands every dump, fill and pour neighbor to action
+     *
+     * @param action called with each neighbor, returns false to stop
+     * @return true if every neighbor was handed over
+     */
+    @Override
+    public boolean forEachNeighbor(Predicate<? super Configuration> action) {
         for(int i = 0; i< bucketSizes.size(); i++){
 
             // Dump bucket config
             WaterConfig configDump = new WaterConfig(this);
-            configDump.current.set(i,0); configs.add(configDump);
+            configDump.current.set(i,0);
+            if(!action.test(configDump)){ return false; }
 
             // Fill bucket config
             WaterConfig configFill = new WaterConfig(this);
-            configFill.current.set(i, bucketSizes.get(i)); configs.add(configFill);
+            configFill.current.set(i, bucketSizes.get(i));
+            if(!action.test(configFill)){ return false; }
 
             // For buckets not the one above fill other buckets up
             for(int j = 0; j< bucketSizes.size(); j++){
@@ -82,14 +100,243 @@ public class WaterConfig implements Configuration {
                         configPour.current.set(i, poured - bucketSizes.get(j));
                     }
 
-                    // add the configuration to the list of configs
-                    configs.add(configPour);
+                    // hand the configuration over
+                    if(!action.test(configPour)){ return false; }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets every combination of bucket levels where some bucket holds the amount
+     *
+     * @return collection of goal configurations
+     */
+    @Override
+    public Collection<Configuration> getGoals() {
+        return getGoals(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets every combination of bucket levels where some bucket holds the
+     * amount, giving up as soon as there are more than a limit of them
+     *
+     * @param limit the most goals wanted
+     * @return collection of goal configurations, or null if there are more than limit
+     */
+    @Override
+    public Collection<Configuration> getGoals(int limit) {
+        Collection<Configuration> goals = new ArrayList<>();
+        WaterConfig levels = new WaterConfig(this);
+
+        // bucket i is the first holding the amount, the others count through their levels like an odometer
+        for(int i = 0; i< bucketSizes.size(); i++){
+            if(bucketSizes.get(i) < amount){ continue; }
+            for(int j = 0; j< bucketSizes.size(); j++){ levels.current.set(j, 0); }
+            levels.current.set(i, amount);
+            while(true){
+                boolean first = true;
+                for(int j = 0; j < i && first; j++){ first = levels.current.get(j) != amount; }
+                if(first){
+                    goals.add(new WaterConfig(levels));
+                    if(goals.size() > limit){ return null; }
+                }
+                int j = 0;
+                while(j < bucketSizes.size() && (j == i || levels.current.get(j).equals(bucketSizes.get(j)))){
+                    if(j != i){ levels.current.set(j,0); }
+                    j++;
+                }
+                if(j == bucketSizes.size()){ break; }
+                levels.current.set(j, levels.current.get(j) + 1);
+            }
+        }
+        return goals;
+    }
+
+    /**
+     * Gets the configurations that reach this one in a single dump, fill or pour.
+     * Those moves lose information, so they can't simply be run backwards.
+     *
+     * @return collection of predecessors
+     */
+    @Override
+    public Collection<Configuration> getPredecessors() {
+        Collection<Configuration> configs = new ArrayList<>();
+        for(int i = 0; i< bucketSizes.size(); i++){
+
+            // an empty bucket could have been dumped, a full one filled, from any level
+            if(current.get(i) == 0 || current.get(i).equals(bucketSizes.get(i))){
+                for(int level = 0; level <= bucketSizes.get(i); level++){
+                    WaterConfig config = new WaterConfig(this);
+                    config.current.set(i, level); configs.add(config);
+                }
+            }
+
+            // bucket i was poured into bucket j
+            for(int j = 0; j< bucketSizes.size(); j++){
+                if(i!=j){
+                    // everything fit, so bucket j holds the sum of both
+                    if(current.get(i) == 0){
+                        for(int before = 0; before <= current.get(j); before++){
+                            int poured = current.get(j) - before;
+                            if(poured <= bucketSizes.get(i)){
+                                WaterConfig config = new WaterConfig(this);
+                                config.current.set(i, poured);
+                                config.current.set(j, before);
+                                configs.add(config);
+                            }
+                        }
+                    }
+
+                    // bucket j overflowed and bucket i kept the rest
+                    if(current.get(j).equals(bucketSizes.get(j)) && current.get(i) > 0){
+                        for(int before = 0; before <= bucketSizes.get(j); before++){
+                            int poured = current.get(i) + bucketSizes.get(j) - before;
+                            if(poured <= bucketSizes.get(i)){
+                                WaterConfig config = new WaterConfig(this);
+                                config.current.set(i, poured);
+                                config.current.set(j, before);
+                                configs.add(config);
+                            }
+                        }
+                    }
                 }
             }
         }
         return configs;
     }
 
+    /**
+     * Number of bits needed to store the level of a bucket
+     *
+     * @param i index of the bucket
+     * @return bits for levels 0 through the bucket's capacity
+     */
+    private int levelBits(int i) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(bucketSizes.get(i)));
+    }
+
+    /**
+     * Bucket levels are packed back to back, a level never straddles two longs
+     *
+     * @return longs per encoded state
+     */
+    @Override
+    public int encodedLength() {
+        int longs = 1; int used = 0;
+        for (int i = 0; i < bucketSizes.size(); i++) {
+            int bits = levelBits(i);
+            if (used + bits > Long.SIZE) { longs++; used = 0; }
+            used += bits;
+        }
+        return longs;
+    }
+
+    /**
+     * Packs the bucket levels into dest
+     *
+     * @param dest array to write into
+     * @param offset first index to write
+     */
+    @Override
+    public void encode(long[] dest, int offset) {
+        int longs = encodedLength();
+        for (int i = 0; i < longs; i++) { dest[offset + i] = 0; }
+        int word = offset; int used = 0;
+        for (int i = 0; i < current.size(); i++) {
+            int bits = levelBits(i);
+            if (used + bits > Long.SIZE) { word++; used = 0; }
+            dest[word] |= (long) current.get(i) << used;
+            used += bits;
+        }
+    }
+
+    /**
+     * Buckets of the same capacity can stand in for each other, so their
+     * levels are packed in increasing order
+     *
+     * @param dest array to write into
+     * @param offset first index to write
+     */
+    @Override
+    public void encodeCanonical(long[] dest, int offset) {
+        WaterConfig sorted = new WaterConfig(this);
+        for (int i = 0; i < bucketSizes.size(); i++) {
+            for (int j = i + 1; j < bucketSizes.size(); j++) {
+                if (bucketSizes.get(i).equals(bucketSizes.get(j)) && sorted.current.get(j) < sorted.current.get(i)) {
+                    sorted.current.set(j, sorted.current.set(i, sorted.current.get(j)));
+                }
+            }
+        }
+        sorted.encode(dest, offset);
+    }
+
+    /**
+     * Rebuilds a configuration with these buckets from packed levels
+     *
+     * @param src array holding the encoded state
+     * @param offset first index of the encoded state
+     * @return the decoded configuration
+     */
+    @Override
+    public WaterConfig decode(long[] src, int offset) {
+        WaterConfig config = new WaterConfig(this);
+        int word = offset; int used = 0;
+        for (int i = 0; i < bucketSizes.size(); i++) {
+            int bits = levelBits(i);
+            if (used + bits > Long.SIZE) { word++; used = 0; }
+            config.current.set(i, (int) ((src[word] >>> used) & ((1L << bits) - 1)));
+            used += bits;
+        }
+        return config;
+    }
+
+    /**
+     * Every bucket can hold any level from empty to full
+     *
+     * @return product of the capacities plus one, Long.MAX_VALUE if it overflows
+     */
+    @Override
+    public long stateCount() {
+        long count = 1;
+        for (int size : bucketSizes) {
+            if (count > Long.MAX_VALUE / (size + 1)) { return Long.MAX_VALUE; }
+            count *= size + 1;
+        }
+        return count;
+    }
+
+    /**
+     * Reads the bucket levels as the digits of a number, the first bucket most significant
+     *
+     * @return the rank of this configuration
+     */
+    @Override
+    public long rank() {
+        long rank = 0;
+        for (int i = 0; i < current.size(); i++) {
+            rank = rank * (bucketSizes.get(i) + 1) + current.get(i);
+        }
+        return rank;
+    }
+
+    /**
+     * Rebuilds a configuration with these buckets from a rank
+     *
+     * @param rank a rank returned by rank
+     * @return the configuration with that rank
+     */
+    @Override
+    public WaterConfig unrank(long rank) {
+        WaterConfig config = new WaterConfig(this);
+        for (int i = bucketSizes.size() - 1; i >= 0; i--) {
+            config.current.set(i, (int) (rank % (bucketSizes.get(i) + 1)));
+            rank /= bucketSizes.get(i) + 1;
+        }
+        return config;
+    }
+
     /**
      * Does current configuration contain desired amount?
      *
@@ -130,15 +377,15 @@ public class WaterConfig implements Configuration {
     }
 
     /**
-     * utilizes hashcode to compare 2 configurations
+     * compares the bucket levels of 2 configurations
      *
      * @param other configuration comparing current one to
      * @return true or false based on if configuration is the same
      */
     @Override
     public boolean equals(Object other) {
-        if(other instanceof Configuration){
-            return other.hashCode()==this.hashCode();
+        if(other instanceof WaterConfig){
+            return ((WaterConfig) other).current.equals(this.current);
         }
         return false;
     }
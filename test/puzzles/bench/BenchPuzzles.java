@@ -0,0 +1,139 @@
+package puzzles.bench;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.LevelStats;
+import puzzles.common.solver.Solver;
+import puzzles.common.solver.SolverListener;
+import puzzles.hoppers.model.HoppersConfig;
+import puzzles.jam.model.JamConfig;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The puzzles of puzzles/bench/data small enough to search in a test, and
+ * the answers Solver.solve gives for them, which every other search is held
+ * to. Tests are run from the root of the repository.
+ */
+public final class BenchPuzzles {
+    /** folder holding the puzzle files */
+    public static final String DATA = "puzzles/bench/data/";
+
+    /** Jam puzzles searched by the tests */
+    public static final String[] JAM = {"jam-easy", "jam-medium", "jam-hard"};
+
+    /** Hoppers puzzles searched by the tests */
+    public static final String[] HOPPERS = {"hoppers-easy", "hoppers-medium"};
+
+    private BenchPuzzles(){}
+
+    /**
+     * What Solver.solve found for a puzzle
+     * @param path the solution path
+     * @param unique configurations it kept
+     * @param levels configurations kept after each level it finished
+     */
+    public record Answer(List<Configuration> path, int unique, List<Long> levels){
+        /**
+         * gets the number of configurations on the solution path, the start included
+         * @return path length
+         */
+        public int length(){ return path.size(); }
+    }
+
+    /**
+     * Collects the configurations kept after each level of a search
+     */
+    public static class LevelRecorder implements SolverListener {
+        /** configurations kept, one entry per finished level */
+        public final List<Long> levels = new ArrayList<>();
+
+        @Override
+        public void levelCompleted(LevelStats level){ levels.add(level.getUniqueConfigs()); }
+    }
+
+    /**
+     * Reads a Jam puzzle
+     * @param name file name without the folder or .txt
+     * @return the puzzle
+     */
+    public static JamConfig jam(String name) throws IOException {
+        return new JamConfig(DATA + name + ".txt");
+    }
+
+    /**
+     * Reads a Hoppers puzzle
+     * @param name file name without the folder or .txt
+     * @return the puzzle
+     */
+    public static HoppersConfig hoppers(String name) throws IOException {
+        return new HoppersConfig(DATA + name + ".txt");
+    }
+
+    /**
+     * Solves a puzzle with Solver.solve
+     * @param start starting configuration
+     * @return what it found
+     */
+    public static Answer solve(Configuration start){
+        Solver solver = new Solver();
+        LevelRecorder recorder = new LevelRecorder();
+        solver.addListener(recorder);
+        Collection<Configuration> path = solver.solve(start);
+        assertNotNull(path, "Solver.solve found no solution");
+        return new Answer(new ArrayList<>(path), solver.getUniqueConfigs(), recorder.levels);
+    }
+
+    /**
+     * Lists the configurations reachable from the start, breadth first
+     * @param start starting configuration
+     * @param limit most configurations to list
+     * @return the configurations, the start first
+     */
+    public static Set<Configuration> reachable(Configuration start, int limit){
+        Set<Configuration> seen = new LinkedHashSet<>();
+        ArrayDeque<Configuration> queue = new ArrayDeque<>();
+        seen.add(start);
+        queue.add(start);
+        while(!queue.isEmpty() && seen.size() < limit){
+            for(Configuration neighbor : queue.poll().getNeighbors()){
+                if(seen.size() < limit && seen.add(neighbor)){ queue.add(neighbor); }
+            }
+        }
+        return seen;
+    }
+
+    /**
+     * Checks that a search kept as many configurations after each level as
+     * Solver.solve did. Either may have stopped inside the goal's level
+     * without finishing it, so one more level is allowed on either side.
+     * @param answer what Solver.solve found
+     * @param levels configurations the search kept after each level it finished
+     * @param name name of the puzzle
+     */
+    public static void assertSameLevels(Answer answer, List<Long> levels, String name){
+        int common = Math.min(answer.levels().size(), levels.size());
+        assertTrue(Math.abs(answer.levels().size() - levels.size()) <= 1, name + ": " + levels + " against " + answer.levels());
+        assertEquals(answer.levels().subList(0, common), levels.subList(0, common), name);
+    }
+
+    /**
+     * Checks that a path runs from the start to a goal one move at a time
+     * @param start starting configuration
+     * @param path the path found
+     * @param length the number of configurations it should hold, the start included
+     */
+    public static void assertSolution(Configuration start, Collection<Configuration> path, int length){
+        assertNotNull(path, "no solution found");
+        assertEquals(length, path.size(), "path length");
+        Configuration previous = null;
+        for(Configuration config : path){
+            if(previous == null){ assertEquals(start, config, "path does not begin at the start"); }
+            else{ assertTrue(previous.getNeighbors().contains(config), "path takes a step that is not a move"); }
+            previous = config;
+        }
+        assertTrue(previous.isGoal(), "path does not end at a goal");
+    }
+}
@@ -0,0 +1,39 @@
+package puzzles.clock;
+
+import org.junit.jupiter.api.Test;
+import puzzles.bench.BenchPuzzles;
+import puzzles.common.solver.Configuration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round trips of the Clock state encoding and ranks.
+ */
+class ClockConfigTest {
+    @Test
+    void decodeUndoesEncode(){
+        ClockConfig start = new ClockConfig(12, 3, 9);
+        long[] key = new long[start.encodedLength()];
+        int hours = 0;
+        for(Configuration config : BenchPuzzles.reachable(start, Integer.MAX_VALUE)){
+            ((ClockConfig) config).encode(key, 0);
+            ClockConfig decoded = start.decode(key, 0);
+            assertEquals(config, decoded);
+            assertEquals(config.isGoal(), decoded.isGoal());
+            hours++;
+        }
+        assertEquals(12, hours);
+    }
+
+    @Test
+    void everyRankRoundTrips(){
+        ClockConfig start = new ClockConfig(12, 3, 9);
+        assertEquals(12, start.stateCount());
+        assertEquals(2, start.rank());
+        for(long rank = 0; rank < start.stateCount(); rank++){
+            ClockConfig config = start.unrank(rank);
+            assertEquals(rank, config.rank());
+            assertEquals(rank == 8, config.isGoal());
+        }
+    }
+}
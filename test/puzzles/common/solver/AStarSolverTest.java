@@ -0,0 +1,49 @@
+package puzzles.common.solver;
+
+import org.junit.jupiter.api.Test;
+import puzzles.bench.BenchPuzzles;
+import puzzles.hoppers.model.HoppersConfig;
+import puzzles.hoppers.model.HoppersHeuristic;
+import puzzles.jam.model.JamConfig;
+import puzzles.jam.model.JamHeuristic;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AStarSolver held to what Solver.solve finds on the bench puzzles.
+ */
+class AStarSolverTest {
+    @Test
+    void matchesSolveOnJam() throws IOException {
+        for(String name : BenchPuzzles.JAM){
+            JamConfig start = BenchPuzzles.jam(name);
+            BenchPuzzles.Answer answer = BenchPuzzles.solve(start);
+            AStarSolver<JamConfig> solver = new AStarSolver<>(new JamHeuristic());
+            BenchPuzzles.assertSolution(start, solver.solve(start), answer.length());
+            assertTrue(solver.getUniqueConfigs() <= answer.unique(), name + ": " + solver.getUniqueConfigs() + " kept, Solver.solve kept " + answer.unique());
+        }
+    }
+
+    @Test
+    void matchesSolveOnJamSlides() throws IOException {
+        for(String name : BenchPuzzles.JAM){
+            JamConfig start = BenchPuzzles.jam(name).withWholeSlides();
+            BenchPuzzles.Answer answer = BenchPuzzles.solve(start);
+            AStarSolver<JamConfig> solver = new AStarSolver<>(new JamHeuristic());
+            BenchPuzzles.assertSolution(start, solver.solve(start), answer.length());
+        }
+    }
+
+    @Test
+    void matchesSolveOnHoppers() throws IOException {
+        for(String name : BenchPuzzles.HOPPERS){
+            HoppersConfig start = BenchPuzzles.hoppers(name);
+            BenchPuzzles.Answer answer = BenchPuzzles.solve(start);
+            AStarSolver<HoppersConfig> solver = new AStarSolver<>(new HoppersHeuristic());
+            BenchPuzzles.assertSolution(start, solver.solve(start), answer.length());
+            assertTrue(solver.getUniqueConfigs() <= answer.unique(), name + ": " + solver.getUniqueConfigs() + " kept, Solver.solve kept " + answer.unique());
+        }
+    }
+}
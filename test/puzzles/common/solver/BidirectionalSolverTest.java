@@ -0,0 +1,40 @@
+package puzzles.common.solver;
+
+import org.junit.jupiter.api.Test;
+import puzzles.bench.BenchPuzzles;
+import puzzles.jam.model.JamConfig;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BidirectionalSolver held to what Solver.solve finds on the bench puzzles.
+ */
+class BidirectionalSolverTest {
+    @Test
+    void matchesSolve() throws IOException {
+        for(String name : BenchPuzzles.JAM){
+            JamConfig start = BenchPuzzles.jam(name);
+            BenchPuzzles.Answer answer = BenchPuzzles.solve(start);
+            BidirectionalSolver solver = new BidirectionalSolver();
+            BenchPuzzles.assertSolution(start, solver.solve(start), answer.length());
+            // meeting in the middle never keeps more than searching from one side
+            assertTrue(solver.getUniqueConfigs() <= answer.unique(), name + ": " + solver.getUniqueConfigs() + " kept, Solver.solve kept " + answer.unique());
+            assertEquals(solver.getUniqueConfigs(), solver.getForwardUniqueConfigs() + solver.getBackwardUniqueConfigs(), name);
+        }
+    }
+
+    @Test
+    void solvedStartIsItsOwnPath() throws IOException {
+        JamConfig start = BenchPuzzles.jam("jam-easy");
+        for(Configuration config : BenchPuzzles.reachable(start, Integer.MAX_VALUE)){
+            if(config.isGoal()){
+                JamConfig goal = (JamConfig) config;
+                BenchPuzzles.assertSolution(goal, new BidirectionalSolver().solve(goal), 1);
+                return;
+            }
+        }
+        fail("jam-easy reaches no goal");
+    }
+}
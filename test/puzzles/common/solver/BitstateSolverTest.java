@@ -0,0 +1,66 @@
+package puzzles.common.solver;
+
+import org.junit.jupiter.api.Test;
+import puzzles.bench.BenchPuzzles;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BitstateSolver held to what Solver.solve finds on the bench puzzles.
+ */
+class BitstateSolverTest {
+    /** log2 of the bits of a filter big enough that no state is lost on a bench puzzle */
+    private static final int LOG2_BITS = 24;
+
+    /**
+     * Lists the bench puzzles
+     * @return the Jam puzzles, then the Hoppers ones
+     */
+    private static List<EncodableConfiguration> puzzles() throws IOException {
+        List<EncodableConfiguration> puzzles = new ArrayList<>();
+        for(String name : BenchPuzzles.JAM){ puzzles.add(BenchPuzzles.jam(name)); }
+        for(String name : BenchPuzzles.HOPPERS){ puzzles.add(BenchPuzzles.hoppers(name)); }
+        return puzzles;
+    }
+
+    @Test
+    void matchesSolve() throws IOException {
+        for(EncodableConfiguration start : puzzles()){
+            BenchPuzzles.Answer answer = BenchPuzzles.solve(start);
+            BitstateSolver solver = new BitstateSolver(LOG2_BITS, 3);
+            BenchPuzzles.LevelRecorder recorder = new BenchPuzzles.LevelRecorder();
+            solver.addListener(recorder);
+            assertTrue(solver.explore(start, true));
+            assertEquals(answer.length() - 1, solver.getGoalDepth(), start.toString());
+            assertEquals(answer.unique(), solver.getStoredStates(), start.toString());
+            BenchPuzzles.assertSameLevels(answer, recorder.levels, start.toString());
+        }
+    }
+
+    @Test
+    void sweepStoresEveryReachableState() throws IOException {
+        for(EncodableConfiguration start : puzzles()){
+            BitstateSolver solver = new BitstateSolver(LOG2_BITS, 3);
+            solver.explore(start, false);
+            assertEquals(BenchPuzzles.reachable(start, Integer.MAX_VALUE).size(), solver.getStoredStates(), start.toString());
+            assertTrue(solver.getOmissionProbability() < 1e-6);
+        }
+    }
+
+    @Test
+    void smallFilterOnlyLosesStates() throws IOException {
+        // 4096 bits for about 22000 states, so most are dropped as false positives
+        EncodableConfiguration start = BenchPuzzles.jam("jam-medium");
+        int moves = BenchPuzzles.solve(start).length() - 1;
+        BitstateSolver solver = new BitstateSolver(12, 2);
+        if(solver.explore(start, true)){
+            assertTrue(solver.getGoalDepth() >= moves, "goal found at " + solver.getGoalDepth() + ", the shortest solution is " + moves);
+        }
+        assertTrue(solver.getStoredStates() < BenchPuzzles.reachable(start, Integer.MAX_VALUE).size());
+        assertTrue(solver.getCoverage() < 1);
+    }
+}
@@ -0,0 +1,75 @@
+package puzzles.common.solver;
+
+import org.junit.jupiter.api.Test;
+import puzzles.bench.BenchPuzzles;
+import puzzles.hoppers.model.HoppersConfig;
+import puzzles.jam.model.JamConfig;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DepthFirstSolver, with and without its transposition table, held to what
+ * Solver.solve finds on the bench puzzles.
+ */
+class DepthFirstSolverTest {
+    /** bytes of transposition table the tests give the solver */
+    private static final long TABLE_BYTES = 8 << 20;
+
+    /** deeper than any bench puzzle's solution */
+    private static final int MAX_DEPTH = 1000;
+
+    @Test
+    void iterativeDeepeningWithTableMatchesSolve() throws IOException {
+        for(String name : BenchPuzzles.JAM){
+            JamConfig start = BenchPuzzles.jam(name);
+            JamConfig before = start.copy();
+            DepthFirstSolver solver = new DepthFirstSolver(TABLE_BYTES);
+            BenchPuzzles.assertSolution(start, solver.solve(start, MAX_DEPTH), BenchPuzzles.solve(start).length());
+            assertEquals(before, start, name + ": the start was moved");
+            assertTrue(solver.getDuplicateConfigs() > 0, name);
+        }
+        for(String name : BenchPuzzles.HOPPERS){
+            HoppersConfig start = BenchPuzzles.hoppers(name);
+            BenchPuzzles.assertSolution(start, new DepthFirstSolver(TABLE_BYTES).solve(start, MAX_DEPTH), BenchPuzzles.solve(start).length());
+        }
+    }
+
+    @Test
+    void iterativeDeepeningWithoutTableMatchesSolve() throws IOException {
+        JamConfig jam = BenchPuzzles.jam("jam-easy");
+        BenchPuzzles.assertSolution(jam, new DepthFirstSolver().solve(jam, MAX_DEPTH), BenchPuzzles.solve(jam).length());
+        for(String name : BenchPuzzles.HOPPERS){
+            HoppersConfig start = BenchPuzzles.hoppers(name);
+            BenchPuzzles.assertSolution(start, new DepthFirstSolver().solve(start, MAX_DEPTH), BenchPuzzles.solve(start).length());
+        }
+    }
+
+    @Test
+    void tableSavesExpansions() throws IOException {
+        JamConfig start = BenchPuzzles.jam("jam-easy");
+        DepthFirstSolver plain = new DepthFirstSolver();
+        DepthFirstSolver table = new DepthFirstSolver(TABLE_BYTES);
+        plain.solve(start, MAX_DEPTH);
+        table.solve(start, MAX_DEPTH);
+        assertEquals(0, plain.getDuplicateConfigs());
+        assertTrue(table.getExpandedConfigs() < plain.getExpandedConfigs(), table.getExpandedConfigs() + " expanded with the table, " + plain.getExpandedConfigs() + " without");
+    }
+
+    @Test
+    void tinyTableStillFindsTheShortestPath() throws IOException {
+        // slots are overwritten all the time, which costs expansions but never the solution
+        JamConfig start = BenchPuzzles.jam("jam-easy");
+        BenchPuzzles.assertSolution(start, new DepthFirstSolver(100).solve(start, MAX_DEPTH), BenchPuzzles.solve(start).length());
+    }
+
+    @Test
+    void depthLimitIsKept() throws IOException {
+        JamConfig start = BenchPuzzles.jam("jam-medium");
+        int moves = BenchPuzzles.solve(start).length() - 1;
+        assertNull(new DepthFirstSolver(TABLE_BYTES).solve(start, moves - 1));
+        assertNull(new DepthFirstSolver(TABLE_BYTES).solveDepthFirst(start, moves - 1));
+        BenchPuzzles.assertSolution(start, new DepthFirstSolver(TABLE_BYTES).solveDepthFirst(start, moves), moves + 1);
+    }
+}
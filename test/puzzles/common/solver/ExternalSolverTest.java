@@ -0,0 +1,57 @@
+package puzzles.common.solver;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import puzzles.bench.BenchPuzzles;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ExternalSolver held to what Solver.solve finds on the bench puzzles.
+ */
+class ExternalSolverTest {
+    /** folder the search files are written to */
+    @TempDir
+    Path folder;
+
+    @Test
+    void matchesSolve() throws IOException {
+        List<EncodableConfiguration> puzzles = new ArrayList<>();
+        for(String name : BenchPuzzles.JAM){ puzzles.add(BenchPuzzles.jam(name)); }
+        for(String name : BenchPuzzles.HOPPERS){ puzzles.add(BenchPuzzles.hoppers(name)); }
+        for(EncodableConfiguration start : puzzles){
+            BenchPuzzles.Answer answer = BenchPuzzles.solve(start);
+            // 16 KB splits each level into many sorted runs merged a few at a time, 8 MB holds a level in memory
+            for(long bytes : new long[]{16 << 10, 8 << 20}){
+                ExternalSolver solver = new ExternalSolver(folder, bytes);
+                BenchPuzzles.LevelRecorder recorder = new BenchPuzzles.LevelRecorder();
+                solver.addListener(recorder);
+                BenchPuzzles.assertSolution(start, solver.solve(start), answer.length());
+                BenchPuzzles.assertSameLevels(answer, recorder.levels, start + ", " + bytes + " bytes");
+                // the goal's level is never written out, only the goal is counted
+                long before = recorder.levels.isEmpty() ? 1 : recorder.levels.get(recorder.levels.size() - 1);
+                assertEquals(before + 1, solver.getUniqueConfigs());
+                assertTrue(solver.getUniqueConfigs() <= answer.unique());
+                try(Stream<Path> left = Files.list(folder)){
+                    assertEquals(0, left.count(), "search files were left behind");
+                }
+            }
+        }
+    }
+
+    @Test
+    void reversibleSearchMatchesFullCheck() throws IOException {
+        EncodableConfiguration start = BenchPuzzles.jam("jam-medium");
+        ExternalSolver reversible = new ExternalSolver(folder, 1 << 20);
+        ExternalSolver full = new ExternalSolver(folder, 1 << 20);
+        assertEquals(reversible.solve(start, true).size(), full.solve(start, false).size());
+        assertEquals(full.getUniqueConfigs(), reversible.getUniqueConfigs());
+    }
+}
@@ -0,0 +1,51 @@
+package puzzles.common.solver;
+
+import org.junit.jupiter.api.Test;
+import puzzles.bench.BenchPuzzles;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ParallelSolver held to what Solver.solve finds on the bench puzzles.
+ */
+class ParallelSolverTest {
+    /**
+     * Solves a puzzle on several thread counts
+     * @param name name of the puzzle
+     * @param start starting configuration
+     */
+    private static void assertMatchesSolve(String name, Configuration start){
+        BenchPuzzles.Answer answer = BenchPuzzles.solve(start);
+        for(int threads : new int[]{1, 4}){
+            ParallelSolver solver = new ParallelSolver(threads);
+            BenchPuzzles.LevelRecorder recorder = new BenchPuzzles.LevelRecorder();
+            solver.addListener(recorder);
+            List<Configuration> path = new ArrayList<>(solver.solve(start));
+            // levels are put in the order a single queue would meet them, so the path is the very same
+            assertEquals(answer.path(), path, name);
+            // the goal's level is always finished here, where Solver.solve may stop inside it
+            BenchPuzzles.assertSameLevels(answer, recorder.levels, name);
+            assertTrue(recorder.levels.size() >= answer.levels().size(), name);
+            assertEquals(recorder.levels.get(recorder.levels.size() - 1), solver.getUniqueConfigs(), name);
+            assertTrue(solver.getUniqueConfigs() >= answer.unique(), name);
+        }
+    }
+
+    @Test
+    void matchesSolveOnJam() throws IOException {
+        for(String name : BenchPuzzles.JAM){
+            assertMatchesSolve(name, BenchPuzzles.jam(name));
+        }
+    }
+
+    @Test
+    void matchesSolveOnHoppers() throws IOException {
+        for(String name : BenchPuzzles.HOPPERS){
+            assertMatchesSolve(name, BenchPuzzles.hoppers(name));
+        }
+    }
+}
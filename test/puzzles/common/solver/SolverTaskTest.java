@@ -0,0 +1,101 @@
+package puzzles.common.solver;
+
+import org.junit.jupiter.api.Test;
+import puzzles.bench.BenchPuzzles;
+import puzzles.jam.model.JamConfig;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SolverTask held to what Solver.solve finds on the bench puzzles, and
+ * stopped by each of its budgets and by cancel.
+ */
+class SolverTaskTest {
+    /** a puzzle whose search takes many expansions */
+    private static final String PUZZLE = "jam-medium";
+
+    /**
+     * Runs a task to the end and checks it against Solver.solve
+     * @param name name of the puzzle
+     * @param start starting configuration
+     */
+    private static void assertMatchesSolve(String name, Configuration start){
+        BenchPuzzles.Answer answer = BenchPuzzles.solve(start);
+        SolverTask task = new SolverTask(start, SolverBudget.UNLIMITED);
+        BenchPuzzles.LevelRecorder recorder = new BenchPuzzles.LevelRecorder();
+        task.getStats().addListener(recorder);
+        assertEquals(SolverTask.Status.SOLVED, task.run(), name);
+        BenchPuzzles.assertSolution(start, task.getPath(), answer.length());
+        BenchPuzzles.assertSameLevels(answer, recorder.levels, name);
+    }
+
+    @Test
+    void matchesSolveOnJam() throws IOException {
+        for(String name : BenchPuzzles.JAM){
+            assertMatchesSolve(name, BenchPuzzles.jam(name));
+        }
+    }
+
+    @Test
+    void matchesSolveOnHoppers() throws IOException {
+        for(String name : BenchPuzzles.HOPPERS){
+            assertMatchesSolve(name, BenchPuzzles.hoppers(name));
+        }
+    }
+
+    @Test
+    void stepsReachTheSameSolution() throws IOException {
+        JamConfig start = BenchPuzzles.jam(PUZZLE);
+        BenchPuzzles.Answer answer = BenchPuzzles.solve(start);
+        SolverTask task = new SolverTask(start, SolverBudget.UNLIMITED);
+        long expanded = 0;
+        while(task.step(7) == SolverTask.Status.RUNNING){
+            assertTrue(task.getExpandedConfigs() <= expanded + 7);
+            expanded = task.getExpandedConfigs();
+            assertNull(task.getPath());
+        }
+        assertEquals(SolverTask.Status.SOLVED, task.getStatus());
+        BenchPuzzles.assertSolution(start, task.getPath(), answer.length());
+    }
+
+    @Test
+    void stepLevelClosesOneLevel() throws IOException {
+        SolverTask task = new SolverTask(BenchPuzzles.jam(PUZZLE), SolverBudget.UNLIMITED);
+        for(int depth = 1; depth <= 3; depth++){
+            assertEquals(SolverTask.Status.RUNNING, task.stepLevel());
+            assertEquals(depth, task.getDepth());
+        }
+    }
+
+    @Test
+    void nodeBudgetStopsTheSearch() throws IOException {
+        SolverTask task = new SolverTask(BenchPuzzles.jam(PUZZLE), new SolverBudget(Long.MAX_VALUE, 100, Long.MAX_VALUE));
+        assertEquals(SolverTask.Status.OUT_OF_NODES, task.run());
+        assertEquals(100, task.getExpandedConfigs());
+        assertNull(task.getPath());
+    }
+
+    @Test
+    void timeBudgetStopsTheSearch() throws Exception {
+        SolverTask task = new SolverTask(BenchPuzzles.jam(PUZZLE), new SolverBudget(1, Long.MAX_VALUE, Long.MAX_VALUE));
+        Thread.sleep(10);
+        assertEquals(SolverTask.Status.OUT_OF_TIME, task.run());
+        assertEquals(0, task.getExpandedConfigs());
+        assertNull(task.getPath());
+    }
+
+    @Test
+    void cancelStopsTheSearch() throws Exception {
+        SolverTask task = new SolverTask(BenchPuzzles.jam(PUZZLE), SolverBudget.UNLIMITED);
+        assertEquals(SolverTask.Status.RUNNING, task.step(10));
+        Thread canceller = new Thread(task::cancel);
+        canceller.start();
+        canceller.join();
+        assertEquals(SolverTask.Status.CANCELLED, task.step(1));
+        assertEquals(10, task.getExpandedConfigs());
+        assertEquals(SolverTask.Status.CANCELLED, task.run());
+        assertNull(task.getPath());
+    }
+}
@@ -0,0 +1,78 @@
+package puzzles.common.solver;
+
+import org.junit.jupiter.api.Test;
+import puzzles.bench.BenchPuzzles;
+import puzzles.hoppers.model.HoppersConfig;
+import puzzles.jam.model.JamConfig;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The searches of Solver that keep their states encoded, held to what
+ * Solver.solve finds on the bench puzzles.
+ */
+class SolverTest {
+    @Test
+    void solveCompactMatchesSolve() throws IOException {
+        for(String name : BenchPuzzles.JAM){
+            JamConfig start = BenchPuzzles.jam(name);
+            BenchPuzzles.Answer answer = BenchPuzzles.solve(start);
+            Solver solver = new Solver();
+            BenchPuzzles.LevelRecorder recorder = new BenchPuzzles.LevelRecorder();
+            solver.addListener(recorder);
+            BenchPuzzles.assertSolution(start, solver.solveCompact(start), answer.length());
+            assertEquals(answer.unique(), solver.getUniqueConfigs(), name);
+            assertEquals(answer.levels(), recorder.levels, name);
+        }
+    }
+
+    @Test
+    void solveCompactKeepsOneEntryPerSymmetryClass() throws IOException {
+        for(String name : BenchPuzzles.HOPPERS){
+            HoppersConfig start = BenchPuzzles.hoppers(name);
+            BenchPuzzles.Answer answer = BenchPuzzles.solve(start);
+            Solver solver = new Solver();
+            BenchPuzzles.assertSolution(start, solver.solveCompact(start), answer.length());
+            assertTrue(solver.getUniqueConfigs() <= answer.unique(), name + ": " + solver.getUniqueConfigs() + " kept, Solver.solve kept " + answer.unique());
+        }
+    }
+
+    @Test
+    void solveRankedMatchesSolve() throws IOException {
+        for(String name : BenchPuzzles.JAM){
+            JamConfig start = BenchPuzzles.jam(name);
+            BenchPuzzles.Answer answer = BenchPuzzles.solve(start);
+            Solver solver = new Solver();
+            BenchPuzzles.LevelRecorder recorder = new BenchPuzzles.LevelRecorder();
+            solver.addListener(recorder);
+            BenchPuzzles.assertSolution(start, solver.solveRanked(start), answer.length());
+            assertEquals(answer.unique(), solver.getUniqueConfigs(), name);
+            BenchPuzzles.assertSameLevels(answer, recorder.levels, name);
+        }
+    }
+
+    @Test
+    void solveOffHeapMatchesSolve() throws IOException {
+        List<EncodableConfiguration> puzzles = new ArrayList<>();
+        for(String name : BenchPuzzles.JAM){ puzzles.add(BenchPuzzles.jam(name)); }
+        for(String name : BenchPuzzles.HOPPERS){ puzzles.add(BenchPuzzles.hoppers(name)); }
+        for(EncodableConfiguration start : puzzles){
+            BenchPuzzles.Answer answer = BenchPuzzles.solve(start);
+            // the default table, then one so small it has to grow many times
+            for(int small = 0; small < 2; small++){
+                Solver solver = new Solver();
+                BenchPuzzles.LevelRecorder recorder = new BenchPuzzles.LevelRecorder();
+                solver.addListener(recorder);
+                Collection<Configuration> path = small == 0 ? solver.solveOffHeap(start) : solver.solveOffHeap(start, 4, 1.5);
+                BenchPuzzles.assertSolution(start, path, answer.length());
+                assertEquals(answer.unique(), solver.getUniqueConfigs(), start.toString());
+                assertEquals(answer.levels(), recorder.levels, start.toString());
+            }
+        }
+    }
+}
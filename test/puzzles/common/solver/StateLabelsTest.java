@@ -0,0 +1,36 @@
+package puzzles.common.solver;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round trips of the packed labels at every width.
+ */
+class StateLabelsTest {
+    @Test
+    void everyWidthKeepsItsNeighborsApart(){
+        for(int bits = 1; bits <= 32; bits <<= 1){
+            long max = (1L << bits) - 1;
+            StateLabels labels = new StateLabels(200, bits);
+            // the largest label, with every bit set, between two ranks left at zero
+            for(long rank = 1; rank < 200; rank += 3){ labels.set(rank, (int) max); }
+            for(long rank = 0; rank < 200; rank++){
+                assertEquals(rank % 3 == 1 ? max : 0, Integer.toUnsignedLong(labels.get(rank)), bits + " bits, rank " + rank);
+            }
+            assertEquals(67, labels.size(), bits + " bits");
+            labels.set(1, 0);
+            assertEquals(0, labels.get(1));
+            assertEquals(66, labels.size(), bits + " bits");
+            labels.set(0, 1);
+            assertEquals(1, labels.get(0));
+            assertEquals(max, Integer.toUnsignedLong(labels.get(4)), bits + " bits");
+        }
+    }
+
+    @Test
+    void widthMustBeAPowerOfTwo(){
+        assertThrows(IllegalArgumentException.class, () -> new StateLabels(10, 3));
+        assertThrows(IllegalArgumentException.class, () -> new StateLabels(10, 64));
+    }
+}
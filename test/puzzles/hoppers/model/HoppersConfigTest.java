@@ -0,0 +1,66 @@
+package puzzles.hoppers.model;
+
+import org.junit.jupiter.api.Test;
+import puzzles.bench.BenchPuzzles;
+import puzzles.common.solver.Configuration;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round trips of the Hoppers frog masks, hops and canonical encodings over
+ * every board reachable from a puzzle.
+ */
+class HoppersConfigTest {
+    @Test
+    void decodeUndoesEncode() throws IOException {
+        HoppersConfig start = BenchPuzzles.hoppers("hoppers-medium");
+        long[] key = new long[start.encodedLength()];
+        for(Configuration config : BenchPuzzles.reachable(start, Integer.MAX_VALUE)){
+            HoppersConfig board = (HoppersConfig) config;
+            board.encode(key, 0);
+            HoppersConfig decoded = start.decode(key, 0);
+            assertEquals(board, decoded);
+            assertEquals(board.zobristHash(), decoded.zobristHash());
+            assertEquals(board.getGreenCount(), decoded.getGreenCount());
+        }
+    }
+
+    @Test
+    void undoMoveUndoesApplyMove() throws IOException {
+        HoppersConfig start = BenchPuzzles.hoppers("hoppers-medium");
+        int[] moves = new int[start.maxMoves()];
+        for(Configuration config : BenchPuzzles.reachable(start, Integer.MAX_VALUE)){
+            HoppersConfig board = (HoppersConfig) config;
+            HoppersConfig before = board.copy();
+            int count = board.getMoves(moves);
+            assertEquals(board.getNeighbors().size(), count);
+            for(int i = 0; i < count; i++){
+                board.applyMove(moves[i]);
+                assertEquals(before.getGreenCount() - 1, board.getGreenCount());
+                board.undoMove(moves[i]);
+                assertEquals(before, board);
+                assertEquals(before.zobristHash(), board.zobristHash());
+            }
+        }
+    }
+
+    @Test
+    void canonicalEncodingIsSharedByItsClass() throws IOException {
+        HoppersConfig start = BenchPuzzles.hoppers("hoppers-medium");
+        long[] key = new long[start.encodedLength()];
+        long[] again = new long[start.encodedLength()];
+        for(Configuration config : BenchPuzzles.reachable(start, Integer.MAX_VALUE)){
+            HoppersConfig board = (HoppersConfig) config;
+            board.encodeCanonical(key, 0);
+            // decoding gives some board of the class, whose canonical encoding is the same
+            HoppersConfig decoded = start.decode(key, 0);
+            assertEquals(board.getGreenCount(), decoded.getGreenCount());
+            assertEquals(board.isGoal(), decoded.isGoal());
+            decoded.encodeCanonical(again, 0);
+            assertArrayEquals(key, again, () -> "canonical encoding " + Arrays.toString(key) + " changed");
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package puzzles.hoppers.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import puzzles.bench.BenchPuzzles;
+import puzzles.common.solver.SolverBudget;
+import puzzles.common.solver.SolverTask;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HoppersSolver held to what Solver.solve finds, on the bench puzzles and on
+ * small boards whose answers are known. Solution counts are also checked
+ * against a plain recursive count that keeps no table.
+ */
+class HoppersSolverTest {
+    /** folder the boards are written to */
+    @TempDir
+    Path folder;
+
+    /**
+     * Reads a board from its file text
+     * @param text the board in the puzzle file format
+     * @return the board
+     */
+    private HoppersConfig board(String text) throws IOException {
+        Path file = folder.resolve("board.txt");
+        Files.writeString(file, text);
+        return new HoppersConfig(file.toString());
+    }
+
+    /**
+     * Counts every line of hops that solves a board by trying each one
+     * @param config the board, left as it was
+     * @return the number of solutions
+     */
+    private static long countByHand(HoppersConfig config){
+        if(config.isGoal()){ return 1; }
+        int[] moves = new int[config.maxMoves()];
+        int count = config.getMoves(moves);
+        long solutions = 0;
+        for(int i = 0; i < count; i++){
+            config.applyMove(moves[i]);
+            solutions += countByHand(config);
+            config.undoMove(moves[i]);
+        }
+        return solutions;
+    }
+
+    @Test
+    void matchesSolve() throws IOException {
+        for(String name : BenchPuzzles.HOPPERS){
+            HoppersConfig start = BenchPuzzles.hoppers(name);
+            HoppersConfig before = start.copy();
+            HoppersSolver solver = new HoppersSolver();
+            BenchPuzzles.assertSolution(start, solver.solve(start), BenchPuzzles.solve(start).length());
+            assertEquals(SolverTask.Status.SOLVED, solver.getStatus());
+            assertEquals(before, start, name + ": the start was moved");
+        }
+    }
+
+    @Test
+    void unsolvableBoard() throws IOException {
+        HoppersConfig start = board("5 5\nR * . * .\n* . * . *\n. * . * .\n* . * . *\n. * . * G\n");
+        HoppersSolver solver = new HoppersSolver();
+        assertNull(solver.solve(start));
+        assertEquals(SolverTask.Status.NO_SOLUTION, solver.getStatus());
+    }
+
+    @Test
+    void deadBoardsAreSkipped() throws IOException {
+        HoppersConfig start = BenchPuzzles.hoppers("hoppers-hard");
+        HoppersSolver solver = new HoppersSolver();
+        BenchPuzzles.assertSolution(start, solver.solve(start), start.getGreenCount() + 1);
+        assertTrue(solver.getDeadConfigs() > 0);
+    }
+
+    @Test
+    void nodeBudgetStopsTheSearch() throws IOException {
+        HoppersSolver solver = new HoppersSolver();
+        assertNull(solver.solve(BenchPuzzles.hoppers("hoppers-hard"), new SolverBudget(Long.MAX_VALUE, 3, Long.MAX_VALUE)));
+        assertEquals(SolverTask.Status.OUT_OF_NODES, solver.getStatus());
+    }
+
+    @Test
+    void solvedBoardHasOneSolution() throws IOException {
+        HoppersConfig start = board("3 3\nR * .\n* . *\n. * .\n");
+        assertEquals(1, new HoppersSolver().countSolutions(start, 10, SolverBudget.UNLIMITED));
+    }
+
+    @Test
+    void singleHopHasOneSolution() throws IOException {
+        HoppersConfig start = board("5 5\nR * G * .\n* . * . *\n. * . * .\n* . * . *\n. * . * .\n");
+        assertEquals(1, new HoppersSolver().countSolutions(start, 10, SolverBudget.UNLIMITED));
+    }
+
+    @Test
+    void unsolvableBoardHasNoSolutions() throws IOException {
+        HoppersConfig start = board("5 5\nR * . * .\n* . * . *\n. * . * .\n* . * . *\n. * . * G\n");
+        HoppersSolver solver = new HoppersSolver();
+        assertEquals(0, solver.countSolutions(start, 10, SolverBudget.UNLIMITED));
+        assertEquals(SolverTask.Status.NO_SOLUTION, solver.getStatus());
+    }
+
+    @Test
+    void knownCounts() throws IOException {
+        assertEquals(9, new HoppersSolver().countSolutions(BenchPuzzles.hoppers("hoppers-easy"), Long.MAX_VALUE, SolverBudget.UNLIMITED));
+        assertEquals(3494, new HoppersSolver().countSolutions(BenchPuzzles.hoppers("hoppers-medium"), Long.MAX_VALUE, SolverBudget.UNLIMITED));
+    }
+
+    @Test
+    void countMatchesCountByHand() throws IOException {
+        for(String name : BenchPuzzles.HOPPERS){
+            HoppersConfig start = BenchPuzzles.hoppers(name);
+            assertEquals(countByHand(start.copy()), new HoppersSolver().countSolutions(start, Long.MAX_VALUE, SolverBudget.UNLIMITED), name);
+        }
+    }
+
+    @Test
+    void countStopsAtLimit() throws IOException {
+        HoppersConfig start = BenchPuzzles.hoppers("hoppers-medium");
+        HoppersSolver solver = new HoppersSolver();
+        for(long limit : new long[]{1, 2, 100, 3494}){
+            assertEquals(limit, solver.countSolutions(start, limit, SolverBudget.UNLIMITED));
+            assertEquals(SolverTask.Status.SOLVED, solver.getStatus());
+        }
+    }
+
+    @Test
+    void countRunsOutOfNodes() throws IOException {
+        HoppersSolver solver = new HoppersSolver();
+        assertEquals(-1, solver.countSolutions(BenchPuzzles.hoppers("hoppers-medium"), Long.MAX_VALUE, new SolverBudget(Long.MAX_VALUE, 2, Long.MAX_VALUE)));
+        assertEquals(SolverTask.Status.OUT_OF_NODES, solver.getStatus());
+    }
+}
@@ -0,0 +1,32 @@
+package puzzles.hoppers.solver;
+
+import org.junit.jupiter.api.Test;
+import puzzles.bench.BenchPuzzles;
+import puzzles.common.solver.SolverBudget;
+import puzzles.hoppers.model.HoppersConfig;
+import puzzles.hoppers.model.HoppersSolver;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Puzzles built by HoppersGenerator, recounted by HoppersSolver.
+ */
+class HoppersGeneratorTest {
+    @Test
+    void puzzlesHaveTheFrogsAndSolutionsAskedFor() throws IOException {
+        HoppersGenerator generator = new HoppersGenerator(BenchPuzzles.hoppers("hoppers-medium"));
+        for(long solutions : new long[]{1, 3}){
+            List<HoppersConfig> found = generator.generate(5, solutions, 4, 100_000, 2, 42);
+            assertEquals(4, found.size());
+            assertEquals(4, new HashSet<>(found).size());
+            for(HoppersConfig puzzle : found){
+                assertEquals(5, puzzle.getGreenCount());
+                assertEquals(solutions, new HoppersSolver().countSolutions(puzzle, Long.MAX_VALUE, SolverBudget.UNLIMITED));
+            }
+        }
+    }
+}
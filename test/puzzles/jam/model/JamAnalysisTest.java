@@ -0,0 +1,95 @@
+package puzzles.jam.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import puzzles.bench.BenchPuzzles;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Boards JamAnalysis can tell apart without searching, each with the reason
+ * it should give.
+ * */
+class JamAnalysisTest {
+    // Folder the boards are written to
+    @TempDir
+    Path folder;
+    // Layout of the board analysed last
+    private JamLayout layout;
+
+    /**
+     * Analyses a 6 by 6 board
+     * @param cars one "NAME r1 c1 r2 c2" line per car
+     * @return the analysis of the board
+     * */
+    private JamAnalysis analyse(String... cars) throws IOException {
+        Path file = folder.resolve("board.txt");
+        Files.writeString(file, "6 6\n" + cars.length + "\n" + String.join("\n", cars) + "\n");
+        JamConfig jamConfig = new JamConfig(file.toString());
+        layout = jamConfig.getLayout();
+        return new JamAnalysis(jamConfig);
+    }
+
+    /**
+     * Can a car of the board analysed last never move?
+     * @param analysis the analysis of the board
+     * @param name name of the car
+     * */
+    private boolean isFixed(JamAnalysis analysis, String name) {
+        return analysis.isFixed(layout.indexOf(name));
+    }
+
+    @Test
+    void solvablePuzzleHasNoReason() throws IOException {
+        JamAnalysis analysis = new JamAnalysis(BenchPuzzles.jam("jam-easy"));
+        assertFalse(analysis.isUnsolvable());
+        assertNull(analysis.getReason());
+    }
+
+    @Test
+    void noRedCar() throws IOException {
+        JamAnalysis analysis = analyse("A 0 0 0 1");
+        assertTrue(analysis.isUnsolvable());
+        assertEquals("There is no red car X", analysis.getReason());
+    }
+
+    @Test
+    void redCarHeldByFullColumn() throws IOException {
+        JamAnalysis analysis = analyse("X 2 0 2 1", "A 0 2 5 2");
+        assertTrue(isFixed(analysis, "X"));
+        assertTrue(isFixed(analysis, "A"));
+        assertEquals("The red car X can never move", analysis.getReason());
+    }
+
+    @Test
+    void carInRedRow() throws IOException {
+        JamAnalysis analysis = analyse("X 2 0 2 1", "A 2 3 2 4");
+        assertTrue(analysis.isUnsolvable());
+        assertEquals("Car A is in the red car's row, between it and the exit", analysis.getReason());
+    }
+
+    @Test
+    void blockerNeverMoves() throws IOException {
+        JamAnalysis analysis = analyse("X 2 0 2 1", "A 0 3 2 3", "B 3 3 5 3");
+        assertEquals("Car A blocks the red car and can never move", analysis.getReason());
+    }
+
+    @Test
+    void blockerCoversRedRowWhereverItSlides() throws IOException {
+        JamAnalysis analysis = analyse("X 2 0 2 1", "A 1 3 3 3", "B 5 0 5 5");
+        assertFalse(isFixed(analysis, "A"));
+        assertTrue(isFixed(analysis, "B"));
+        assertEquals("Car A blocks the red car wherever it slides", analysis.getReason());
+    }
+
+    @Test
+    void blockerThatCanLeaveIsNotAReason() throws IOException {
+        JamAnalysis analysis = analyse("X 2 0 2 1", "A 1 3 3 3");
+        assertFalse(analysis.isUnsolvable());
+        assertFalse(isFixed(analysis, "A"));
+    }
+}
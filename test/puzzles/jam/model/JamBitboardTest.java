@@ -0,0 +1,79 @@
+package puzzles.jam.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import puzzles.bench.BenchPuzzles;
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.DepthFirstSolver;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The bitboard form of a Traffic Jam board, checked against JamConfig.
+ * */
+class JamBitboardTest {
+    @Test
+    void decodeUndoesEncode() throws IOException {
+        JamConfig start = BenchPuzzles.jam("jam-medium");
+        assertTrue(JamBitboard.fits(start));
+        JamBitboard first = new JamBitboard(start);
+        Set<Configuration> boards = BenchPuzzles.reachable(first, Integer.MAX_VALUE);
+        assertEquals(BenchPuzzles.reachable(start, Integer.MAX_VALUE).size(), boards.size());
+        long[] key = new long[first.encodedLength()];
+        for (Configuration config : boards) {
+            JamBitboard board = (JamBitboard) config;
+            board.encode(key, 0);
+            JamBitboard decoded = first.decode(key, 0);
+            assertEquals(board, decoded);
+            assertEquals(board.zobristHash(), decoded.zobristHash());
+        }
+    }
+
+    @Test
+    void depthFirstMatchesSolve() throws IOException {
+        for (String name : BenchPuzzles.JAM) {
+            JamConfig start = BenchPuzzles.jam(name);
+            JamBitboard board = new JamBitboard(start);
+            BenchPuzzles.assertSolution(board, new DepthFirstSolver(8 << 20).solve(board, 1000), BenchPuzzles.solve(start).length());
+        }
+    }
+
+    @Test
+    void moveCarMatchesJamConfig() throws IOException {
+        Random random = new Random(42);
+        for (String name : BenchPuzzles.JAM) {
+            JamConfig config = BenchPuzzles.jam(name);
+            JamBitboard board = new JamBitboard(config);
+            int rows = config.getLayout().getRows();
+            int cols = config.getLayout().getCols();
+            // includes cells just off the board, to check the messages for those too
+            for (int i = 0; i < 2000; ++i) {
+                int row = random.nextInt(rows + 2) - 1;
+                int col = random.nextInt(cols + 2) - 1;
+                int endRow = random.nextInt(rows + 2) - 1;
+                int endCol = random.nextInt(cols + 2) - 1;
+                assertEquals(config.isACar(row, col), board.isACar(row, col));
+                assertEquals(config.moveCar(row, col, endRow, endCol), board.moveCar(row, col, endRow, endCol), name);
+                assertEquals(config.toString(), board.toString(), name);
+            }
+        }
+    }
+
+    @Test
+    void boardWithoutRedCarIsNeverSolved(@TempDir Path folder) throws IOException {
+        // a car against the right edge of the red car's row, but not the red car
+        Path file = folder.resolve("board.txt");
+        Files.writeString(file, "6 6\n1\nA 2 4 2 5\n");
+        JamBitboard board = new JamBitboard(new JamConfig(file.toString()));
+        assertFalse(board.isGoal());
+        for (Configuration config : board.getNeighbors()) {
+            assertFalse(config.isGoal());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package puzzles.jam.model;
+
+import org.junit.jupiter.api.Test;
+import puzzles.bench.BenchPuzzles;
+import puzzles.common.solver.Configuration;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round trips of the Traffic Jam state encoding and ranks over every board
+ * reachable from a puzzle.
+ * */
+class JamConfigTest {
+    @Test
+    void decodeUndoesEncode() throws IOException {
+        JamConfig start = BenchPuzzles.jam("jam-medium");
+        long[] key = new long[start.encodedLength() + 2];
+        for (Configuration config : BenchPuzzles.reachable(start, Integer.MAX_VALUE)) {
+            JamConfig board = (JamConfig) config;
+            key[0] = -1;
+            board.encode(key, 1);
+            JamConfig decoded = start.decode(key, 1);
+            assertEquals(board, decoded);
+            assertEquals(board.zobristHash(), decoded.zobristHash());
+            assertEquals(-1, key[0], "encode wrote before its offset");
+        }
+    }
+
+    @Test
+    void unrankUndoesRank() throws IOException {
+        JamConfig start = BenchPuzzles.jam("jam-medium");
+        Set<Long> ranks = new HashSet<>();
+        for (Configuration config : BenchPuzzles.reachable(start, Integer.MAX_VALUE)) {
+            JamConfig board = (JamConfig) config;
+            long rank = board.rank();
+            assertTrue(rank >= 0 && rank < start.stateCount(), "rank " + rank + " out of range");
+            assertTrue(ranks.add(rank), "two boards share rank " + rank);
+            JamConfig unranked = start.unrank(rank);
+            assertEquals(board, unranked);
+            assertEquals(board.zobristHash(), unranked.zobristHash());
+        }
+    }
+}
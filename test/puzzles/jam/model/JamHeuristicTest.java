@@ -0,0 +1,73 @@
+package puzzles.jam.model;
+
+import org.junit.jupiter.api.Test;
+import puzzles.bench.BenchPuzzles;
+import puzzles.common.solver.Configuration;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the Traffic Jam estimate against the true number of moves left on
+ * every board reachable from a puzzle.
+ * */
+class JamHeuristicTest {
+    /**
+     * Finds the moves left from every board reachable from the start, by a
+     * search outwards from all the goals at once. Every Jam move can be
+     * undone, so the neighbors of a board are also the boards that lead to it.
+     * @param start the starting board
+     * @return moves left from each reachable board that can be solved
+     * */
+    private static Map<Configuration, Integer> movesLeft(JamConfig start) {
+        Map<Configuration, Integer> left = new HashMap<>();
+        ArrayDeque<Configuration> queue = new ArrayDeque<>();
+        for (Configuration config : BenchPuzzles.reachable(start, Integer.MAX_VALUE)) {
+            if (config.isGoal()) {
+                left.put(config, 0);
+                queue.add(config);
+            }
+        }
+        while (!queue.isEmpty()) {
+            Configuration config = queue.poll();
+            for (Configuration neighbor : config.getNeighbors()) {
+                if (!left.containsKey(neighbor)) {
+                    left.put(neighbor, left.get(config) + 1);
+                    queue.add(neighbor);
+                }
+            }
+        }
+        return left;
+    }
+
+    /**
+     * Fails if the estimate is above the true moves left for any board
+     * @param name puzzle the boards came from
+     * @param left moves left from each board
+     * */
+    private static void assertAdmissible(String name, Map<Configuration, Integer> left) {
+        JamHeuristic heuristic = new JamHeuristic();
+        for (Map.Entry<Configuration, Integer> entry : left.entrySet()) {
+            int estimate = heuristic.estimate((JamConfig) entry.getKey());
+            assertTrue(estimate <= entry.getValue(), name + ": estimate " + estimate + " for a board " + entry.getValue() + " moves from a goal");
+        }
+    }
+
+    @Test
+    void neverOverestimates() throws IOException {
+        for (String name : BenchPuzzles.JAM) {
+            assertAdmissible(name, movesLeft(BenchPuzzles.jam(name)));
+        }
+    }
+
+    @Test
+    void neverOverestimatesWholeSlides() throws IOException {
+        for (String name : BenchPuzzles.JAM) {
+            assertAdmissible(name + " slides", movesLeft(BenchPuzzles.jam(name).withWholeSlides()));
+        }
+    }
+}
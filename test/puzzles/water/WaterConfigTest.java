@@ -0,0 +1,88 @@
+package puzzles.water;
+
+import org.junit.jupiter.api.Test;
+import puzzles.bench.BenchPuzzles;
+import puzzles.common.solver.Configuration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round trips of the Water state encoding and ranks.
+ */
+class WaterConfigTest {
+    /**
+     * Makes the starting configuration of a puzzle
+     * @param amount desired amount of water
+     * @param sizes the bucket sizes
+     * @return the configuration with every bucket empty
+     */
+    private static WaterConfig puzzle(int amount, Integer... sizes){
+        return new WaterConfig(amount, new ArrayList<>(List.of(sizes)));
+    }
+
+    /**
+     * Encodes and decodes configurations
+     * @param start the puzzle, used to decode
+     * @param configs configurations of the puzzle
+     */
+    private static void assertRoundTrips(WaterConfig start, Set<Configuration> configs){
+        long[] key = new long[start.encodedLength()];
+        for(Configuration config : configs){
+            ((WaterConfig) config).encode(key, 0);
+            assertEquals(config, start.decode(key, 0));
+        }
+    }
+
+    @Test
+    void decodeUndoesEncode(){
+        WaterConfig start = puzzle(4, 3, 5, 8);
+        Set<Configuration> configs = BenchPuzzles.reachable(start, Integer.MAX_VALUE);
+        assertTrue(configs.size() > 50);
+        assertRoundTrips(start, configs);
+    }
+
+    @Test
+    void levelsSpillIntoTheNextLong(){
+        // 21 bits a bucket, so the fourth bucket starts a second long
+        int big = (1 << 21) - 1;
+        WaterConfig start = puzzle(7, big, big, big, big);
+        assertEquals(2, start.encodedLength());
+        assertRoundTrips(start, BenchPuzzles.reachable(start, 2000));
+    }
+
+    @Test
+    void everyRankRoundTrips(){
+        WaterConfig start = puzzle(4, 3, 5, 8);
+        assertEquals(4 * 6 * 9, start.stateCount());
+        assertEquals(0, start.rank());
+        long[] key = new long[start.encodedLength()];
+        for(long rank = 0; rank < start.stateCount(); rank++){
+            WaterConfig config = start.unrank(rank);
+            assertEquals(rank, config.rank());
+            config.encode(key, 0);
+            assertEquals(config, start.decode(key, 0));
+        }
+    }
+
+    @Test
+    void bucketsOfOneSizeShareACanonicalEncoding(){
+        WaterConfig start = puzzle(2, 3, 3, 5);
+        // levels 1, 2, 0 and 2, 1, 0: the two 3 buckets swapped
+        WaterConfig first = start.unrank((1 * 4 + 2) * 6);
+        WaterConfig second = start.unrank((2 * 4 + 1) * 6);
+        assertNotEquals(first, second);
+        long[] a = new long[start.encodedLength()];
+        long[] b = new long[start.encodedLength()];
+        first.encodeCanonical(a, 0);
+        second.encodeCanonical(b, 0);
+        assertArrayEquals(a, b);
+        WaterConfig other = start.unrank((1 * 4 + 2) * 6 + 1);
+        other.encodeCanonical(b, 0);
+        assertFalse(Arrays.equals(a, b));
+    }
+}